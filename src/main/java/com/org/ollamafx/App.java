@@ -77,6 +77,7 @@ public class App extends Application {
         hostServices = getHostServices();
 
         ChatManager.getInstance().loadChats();
+        com.org.ollamafx.manager.ChatSearchManager.getInstance().start();
 
         // Apply saved theme
         String savedTheme = ConfigManager.getInstance().getTheme();
@@ -215,6 +216,7 @@ public class App extends Application {
 
     @Override
     public void stop() throws Exception {
+        com.org.ollamafx.manager.GenerationRegistry.getInstance().cancelAll();
         if (executorService != null) {
             executorService.shutdown();
             try {
@@ -228,7 +230,8 @@ public class App extends Application {
 
         com.org.ollamafx.manager.RagManager.getInstance().shutdown();
         OllamaServiceManager.getInstance().stopOllama();
-        ChatManager.getInstance().saveChats();
+        ChatManager.getInstance().flush();
+        com.org.ollamafx.manager.ChatSearchManager.getInstance().shutdown();
         super.stop();
     }
 
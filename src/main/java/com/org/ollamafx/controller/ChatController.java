@@ -13,7 +13,7 @@ import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.Slider;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.Tooltip;
@@ -26,6 +26,7 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.scene.shape.Rectangle;
@@ -36,18 +37,20 @@ import atlantafx.base.controls.ProgressSliderSkin;
 import atlantafx.base.controls.RingProgressIndicator;
 
 import java.io.File;
+import java.text.MessageFormat;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.io.IOException;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.Base64;
-import java.io.ByteArrayInputStream;
 import javafx.beans.binding.Bindings;
 import javafx.scene.control.Alert;
 import javafx.scene.image.Image;
@@ -57,19 +60,32 @@ import com.org.ollamafx.service.MarkdownService;
 
 import com.org.ollamafx.App;
 import com.org.ollamafx.manager.ChatManager;
+import com.org.ollamafx.manager.ChatStreamListener;
+import com.org.ollamafx.manager.ConfigManager;
+import com.org.ollamafx.manager.ContextAssembler;
+import com.org.ollamafx.manager.GenerationHandle;
+import com.org.ollamafx.manager.ImageStore;
+import com.org.ollamafx.manager.GenerationRegistry;
 import com.org.ollamafx.manager.ModelManager;
+import com.org.ollamafx.manager.ModelMetricsManager;
+import com.org.ollamafx.manager.ModelPreloader;
 import com.org.ollamafx.manager.OllamaManager;
+import com.org.ollamafx.manager.PrefixWarmer;
 import com.org.ollamafx.manager.RagManager;
 import com.org.ollamafx.model.ChatMessage;
 import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.ContextUsage;
+import com.org.ollamafx.model.ContextWindow;
+import com.org.ollamafx.model.GenerationStats;
 import com.org.ollamafx.model.OllamaModel;
 import com.org.ollamafx.model.RagCollection;
 import com.org.ollamafx.model.RagResult;
+import com.org.ollamafx.ui.ChatTranscript;
 import com.org.ollamafx.ui.ImagePreviewStrip;
 import com.org.ollamafx.ui.MarkdownOutput;
+import com.org.ollamafx.ui.TokenSink;
 import com.org.ollamafx.util.ImageUtils;
 
-import io.github.ollama4j.models.generate.OllamaStreamHandler;
 import com.org.ollamafx.manager.ChatCollectionManager;
 import com.org.ollamafx.model.ChatFolder;
 import com.org.ollamafx.model.RagDocumentItem;
@@ -84,10 +100,11 @@ import javafx.scene.control.SeparatorMenuItem;
 public class ChatController {
 
     private Future<?> currentGenerationTask;
+    private volatile GenerationHandle currentGeneration;
+    private ChatStreamListener generationViewListener;
     private boolean isGenerating = false;
-    private final StringBuilder activeResponseBuffer = new StringBuilder();
-    private long lastUiUpdate = 0;
-    private static final long UI_UPDATE_INTERVAL_MS = 30; // ~30fps for text updates
+    private TokenSink tokenSink; // Paces the streamed response to the frame rate
+    private static final long STREAM_CHECKPOINT_MS = 3000; // Persist partial answers while streaming
 
     // RAG collection selection
     private final Set<String> selectedRagCollections = new HashSet<>();
@@ -103,9 +120,7 @@ public class ChatController {
     @FXML
     private Label statusLabel;
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox messagesContainer;
+    private ChatTranscript transcript;
     @FXML
     private TextArea inputField;
     @FXML
@@ -159,6 +174,18 @@ public class ChatController {
     @FXML
     private TextField seedField;
 
+    // Context usage meter
+    @FXML
+    private HBox contextMeter;
+    @FXML
+    private ProgressBar contextMeterBar;
+    @FXML
+    private Label contextMeterLabel;
+    private final Tooltip contextMeterTooltip = new Tooltip();
+    private final PauseTransition contextMeterDebounce = new PauseTransition(Duration.millis(150));
+    // Idle time before the conversation is pre-evaluated (opt-in)
+    private final PauseTransition prefixWarmDebounce = new PauseTransition(Duration.millis(1500));
+
     private static final Logger LOGGER = Logger.getLogger(ChatController.class.getName());
 
     @FXML
@@ -167,6 +194,8 @@ public class ChatController {
         setupListeners();
         setupMultimedia();
         buildRagChips();
+        setupContextMeter();
+        setupPrefixWarmup();
 
         updateUIState(true); // Initial state is welcome screen
     }
@@ -246,6 +275,9 @@ public class ChatController {
         addBtn.setTooltip(new Tooltip(App.getBundle().getString("chat.ragAddCollection")));
         addBtn.setOnAction(e -> showAddCollectionMenu(addBtn, RagManager.getInstance().getCollections()));
         ragChipsContainer.getChildren().add(addBtn);
+
+        // RAG selection changes the reserve counted by the context meter
+        scheduleContextMeterUpdate();
     }
 
     private void showAddCollectionMenu(Node owner, ObservableList<RagCollection> collections) {
@@ -310,34 +342,130 @@ public class ChatController {
     }
 
     private void setupListeners() {
-        messagesContainer.heightProperty().addListener((observable, oldValue, newValue) -> {
-            scrollPane.setVvalue(1.0);
-        });
-
         modelSelector.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (currentSession != null && newVal != null) {
                 currentSession.setModelName(newVal);
-                ChatManager.getInstance().saveChats();
+                ChatManager.getInstance().markDirty(currentSession);
             }
             updateVisionWarning();
+            preloadModel(newVal);
         });
 
         tempSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
             updateCreativityLabel(newVal.doubleValue());
             if (currentSession != null) {
                 currentSession.setTemperature(newVal.doubleValue());
-                ChatManager.getInstance().saveChats();
+                ChatManager.getInstance().markDirty(currentSession);
             }
         });
 
         systemPromptField.textProperty().addListener((obs, oldVal, newVal) -> {
             if (currentSession != null) {
                 currentSession.setSystemPrompt(newVal);
-                ChatManager.getInstance().saveChats();
+                ChatManager.getInstance().markDirty(currentSession);
             }
         });
     }
 
+    private void setupContextMeter() {
+        Tooltip.install(contextMeter, contextMeterTooltip);
+        contextMeterDebounce.setOnFinished(e -> updateContextMeter());
+
+        inputField.textProperty().addListener((obs, oldVal, newVal) -> scheduleContextMeterUpdate());
+        systemPromptField.textProperty().addListener((obs, oldVal, newVal) -> scheduleContextMeterUpdate());
+        ctxSlider.valueProperty().addListener((obs, oldVal, newVal) -> scheduleContextMeterUpdate());
+        modelSelector.valueProperty().addListener((obs, oldVal, newVal) -> scheduleContextMeterUpdate());
+        imagePreviewStrip.getChildren().addListener((ListChangeListener<Node>) c -> scheduleContextMeterUpdate());
+        updateContextMeter();
+    }
+
+    private void setupPrefixWarmup() {
+        prefixWarmDebounce.setOnFinished(e -> warmPrefix());
+
+        inputField.textProperty().addListener((obs, oldVal, newVal) -> schedulePrefixWarm());
+        systemPromptField.textProperty().addListener((obs, oldVal, newVal) -> schedulePrefixWarm());
+        ctxSlider.valueProperty().addListener((obs, oldVal, newVal) -> schedulePrefixWarm());
+        modelSelector.valueProperty().addListener((obs, oldVal, newVal) -> schedulePrefixWarm());
+    }
+
+    private void schedulePrefixWarm() {
+        if (ConfigManager.getInstance().isPrefixWarmup()) {
+            prefixWarmDebounce.playFromStart();
+        }
+    }
+
+    /**
+     * Pushes the system prompt and the history that fits the window through the
+     * model once the user has been idle for a moment, so a later send only has
+     * to evaluate the new turn.
+     */
+    private void warmPrefix() {
+        String model = modelSelector.getValue();
+        if (currentSession == null || isGenerating || model == null
+                || !ConfigManager.getInstance().isPrefixWarmup()) {
+            return;
+        }
+        // With images the system prompt is left out, so the prefix would differ
+        if (imagePreviewStrip != null && imagePreviewStrip.getImageCount() > 0) {
+            return;
+        }
+        List<Map<String, Object>> prefix = ContextAssembler.stablePrefix(currentSession,
+                systemPromptField.getText());
+        if (prefix.isEmpty()) {
+            return;
+        }
+        PrefixWarmer.getInstance().warm(currentSession.getId().toString(), model, prefix,
+                collectGenerationOptions());
+    }
+
+    private void scheduleContextMeterUpdate() {
+        contextMeterDebounce.playFromStart();
+    }
+
+    /**
+     * Refreshes the estimate of how much of num_ctx the next request would use.
+     * History counts are cached per message, so this only scans the draft text.
+     */
+    private void updateContextMeter() {
+        if (contextMeter == null) {
+            return;
+        }
+        boolean visible = currentSession != null;
+        contextMeter.setVisible(visible);
+        contextMeter.setManaged(visible);
+        if (!visible) {
+            return;
+        }
+
+        ContextUsage usage = ContextAssembler.measure(currentSession, systemPromptField.getText(),
+                inputField.getText(), imagePreviewStrip.getImageCount(), !selectedRagCollections.isEmpty());
+
+        contextMeterBar.setProgress(Math.min(1.0, usage.getRatio()));
+        contextMeterLabel.setText(formatTokens(usage.getTotal()) + " / " + formatTokens(usage.getNumCtx()));
+
+        contextMeter.getStyleClass().removeAll("warning", "danger");
+        if (usage.isOverBudget()) {
+            contextMeter.getStyleClass().add("danger");
+        } else if (usage.getTotal() > usage.getBudget() * 0.8) {
+            contextMeter.getStyleClass().add("warning");
+        }
+
+        String tooltip = MessageFormat.format(App.getBundle().getString("chat.contextMeter.tooltip"),
+                usage.getSystemTokens(), usage.getHistoryTokens(), usage.getDraftTokens(), usage.getRagTokens(),
+                usage.getImageTokens(), usage.getTotal(), usage.getNumCtx(), usage.getBudget());
+        if (usage.isOverBudget()) {
+            tooltip += "\n\n" + App.getBundle().getString("chat.contextMeter.overflow");
+        }
+        contextMeterTooltip.setText(tooltip);
+    }
+
+    private static String formatTokens(int tokens) {
+        if (tokens < 1000) {
+            return String.valueOf(tokens);
+        }
+        return String.format(java.util.Locale.ROOT, "%.1fk", tokens / 1000.0);
+    }
+
     private void setupMultimedia() {
         initializeAdvancedParameters();
         initializeImagePreviewStrip();
@@ -348,8 +476,8 @@ public class ChatController {
     private void updateUIState(boolean isNewChat) {
         if (isNewChat) {
             // WELCOME STATE
-            if (scrollPane != null)
-                scrollPane.setVisible(false);
+            if (transcript != null)
+                transcript.setVisible(false);
             if (welcomeContainer != null)
                 welcomeContainer.setVisible(true);
 
@@ -380,8 +508,8 @@ public class ChatController {
             }
         } else {
             // ACTIVE CHAT STATE
-            if (scrollPane != null)
-                scrollPane.setVisible(true);
+            if (transcript != null)
+                transcript.setVisible(true);
             if (welcomeContainer != null)
                 welcomeContainer.setVisible(false);
 
@@ -419,6 +547,36 @@ public class ChatController {
         }
     }
 
+    /**
+     * Loads the model in the background so the first message does not wait for
+     * it. Progress is shown in the status label unless a response is streaming.
+     */
+    private void preloadModel(String model) {
+        if (model == null || model.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Long> load = ModelPreloader.getInstance().preload(model);
+        if (load.isDone()) {
+            return; // Loaded moments ago
+        }
+        if (statusLabel != null && !isGenerating) {
+            statusLabel.setText(MessageFormat.format(App.getBundle().getString("chat.status.loadingModel"), model));
+        }
+        load.whenComplete((ms, error) -> Platform.runLater(() -> {
+            if (statusLabel == null || isGenerating || !model.equals(modelSelector.getValue())) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                statusLabel.setText(MessageFormat.format(App.getBundle().getString("chat.status.modelLoadFailed"),
+                        model, cause.getMessage()));
+            } else {
+                statusLabel.setText(MessageFormat.format(App.getBundle().getString("chat.status.modelLoaded"),
+                        model, ms / 1000.0));
+            }
+        }));
+    }
+
     private void animateWelcomeText() {
         String fullText = App.getBundle().getString("chat.welcome");
         welcomeLabel.setText("");
@@ -479,10 +637,18 @@ public class ChatController {
     }
 
     private ChatSession currentSession;
+    /** Transcript row of each message of the session, in message order. */
+    private final List<ChatTranscript.Entry> messageEntries = new ArrayList<>();
+    /** Row of the response being streamed into this view, if any. */
+    private ChatTranscript.Entry liveEntry;
 
     public void setChatSession(ChatSession session) {
+        ChatManager.getInstance().closeChat(currentSession);
         this.currentSession = session;
-        messagesContainer.getChildren().clear();
+        messageEntries.clear();
+        prefixWarmDebounce.stop();
+        PrefixWarmer.getInstance().cancel();
+        transcript.clear();
 
         // Clear any pending images when switching chats
         if (imagePreviewStrip != null) {
@@ -490,6 +656,9 @@ public class ChatController {
         }
 
         if (session != null) {
+            // Messages of chats restored from the index are read now, and stay while shown
+            ChatManager.getInstance().openChat(session);
+
             // Adaptive UI: Specific state based on message count
             boolean newChat = session.getMessages().isEmpty();
             updateUIState(newChat);
@@ -497,6 +666,10 @@ public class ChatController {
             // Restore model selection
             if (session.getModelName() != null && !session.getModelName().isEmpty()) {
                 setModelName(session.getModelName());
+                // Same model as before: the selector does not fire, load it anyway
+                if (modelListLoaded) {
+                    preloadModel(modelSelector.getValue());
+                }
             }
 
             // Restore Parameters
@@ -520,15 +693,61 @@ public class ChatController {
             }
             buildRagChips();
 
+            // A response may still be streaming from a previous visit to this chat
+            GenerationHandle running = GenerationRegistry.getInstance().findBySession(session.getId().toString());
+            List<ChatMessage> history = session.getMessages();
+            ChatMessage streamingMsg = null;
+            if (running != null && !history.isEmpty()
+                    && "assistant".equals(history.get(history.size() - 1).getRole())) {
+                streamingMsg = history.get(history.size() - 1);
+            }
+            final ChatMessage keep = streamingMsg;
+
             // Cleanup any empty assistant messages (from errors or cancellations) before
             // rendering
-            session.getMessages().removeIf(msg -> "assistant".equals(msg.getRole())
+            boolean removed = history.removeIf(msg -> msg != keep && "assistant".equals(msg.getRole())
                     && (msg.getContent() == null || msg.getContent().isEmpty()));
+            if (removed) {
+                // Saved, so the journal and the search index have the same positions
+                ChatManager.getInstance().markDirty(session);
+            }
 
-            for (ChatMessage msg : session.getMessages()) {
-                addMessage(msg.getContent(), "user".equals(msg.getRole()), msg.hasImages() ? msg.getImages() : null);
+            // Rows only: their nodes are built as they scroll into view
+            for (ChatMessage msg : history) {
+                if ("user".equals(msg.getRole())) {
+                    messageEntries.add(addUserMessage(msg.getContent(), msg.hasImages() ? msg.getImageRefs() : null));
+                } else {
+                    messageEntries.add(addAssistantMessage(msg));
+                }
+            }
+
+            if (streamingMsg != null) {
+                attachToGeneration(running, streamingMsg);
             }
         }
+        updateContextMeter();
+        schedulePrefixWarm();
+    }
+
+    /**
+     * Scrolls so the given message of the session is at the top of the view,
+     * e.g. when it was opened from a search result.
+     */
+    public void scrollToMessage(int index, String timestamp) {
+        if (messageEntries.isEmpty() || currentSession == null) {
+            return;
+        }
+        // The index is where the message was when indexed; its timestamp finds it now
+        List<ChatMessage> messages = currentSession.getMessages();
+        if (timestamp != null && (index >= messages.size() || !timestamp.equals(messages.get(index).getTimestamp()))) {
+            for (int i = 0; i < messages.size(); i++) {
+                if (timestamp.equals(messages.get(i).getTimestamp())) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        transcript.scrollToEntry(messageEntries.get(Math.max(0, Math.min(index, messageEntries.size() - 1))));
     }
 
     @FXML
@@ -555,36 +774,37 @@ public class ChatController {
         }
 
         // Capture images and prepare session
-        List<String> images = imagePreviewStrip.hasImages() ? imagePreviewStrip.getBase64Images() : null;
-        prepareSessionForMessage(text, modelName, images);
+        List<String> imageRefs = imagePreviewStrip.hasImages() ? imagePreviewStrip.getImageRefs() : null;
+        // History as it was before this turn, for the context window
+        List<ChatMessage> history = new ArrayList<>(currentSession.getMessages());
+        prepareSessionForMessage(text, modelName, imageRefs);
 
         // UI Reset for generation
         inputField.clear();
         imagePreviewStrip.clearImages();
         setGeneratingState(true);
-        updateStatusLabelForGeneration(images);
-
-        activeResponseBuffer.setLength(0);
+        updateStatusLabelForGeneration(imageRefs);
 
         // Create Assistant Placeholder
         ChatMessage assistantMsg = createAssistantPlaceholder();
 
         // Start Generation Task
-        handleGenerationTask(modelName, text, images, assistantMsg);
+        handleGenerationTask(modelName, text, imageRefs, history, assistantMsg);
     }
 
-    private void prepareSessionForMessage(String text, String modelName, List<String> images) {
-        addMessage(text, true, images);
+    private void prepareSessionForMessage(String text, String modelName, List<String> imageRefs) {
+        transcript.setFollowBottom(true);
+        addMessage(text, true, imageRefs);
         if (currentSession != null) {
-            currentSession.addMessage(new ChatMessage("user", text, images));
+            currentSession.addMessage(new ChatMessage("user", text, imageRefs));
             currentSession.setModelName(modelName);
-            ChatManager.getInstance().saveChats();
+            ChatManager.getInstance().markDirty(currentSession);
         }
     }
 
-    private void updateStatusLabelForGeneration(List<String> images) {
+    private void updateStatusLabelForGeneration(List<String> imageRefs) {
         if (statusLabel != null) {
-            if (images != null && !images.isEmpty()) {
+            if (imageRefs != null && !imageRefs.isEmpty()) {
                 statusLabel.setText(App.getBundle().getString("chat.status.analyzingImage"));
             } else {
                 statusLabel.setText(App.getBundle().getString("chat.status.thinking"));
@@ -596,22 +816,38 @@ public class ChatController {
         ChatMessage assistantMsg = new ChatMessage("assistant", "");
         if (currentSession != null) {
             currentSession.addMessage(assistantMsg);
-            ChatManager.getInstance().saveChats();
+            ChatManager.getInstance().markDirty(currentSession);
         }
-        addMessage("", false, null);
+        addAssistantMessage(assistantMsg);
         if (statusLabel != null) {
             statusLabel.setText(App.getBundle().getString("chat.status.generating"));
         }
         return assistantMsg;
     }
 
-    private void handleGenerationTask(String modelName, String text, List<String> images, ChatMessage assistantMsg) {
+    private void handleGenerationTask(String modelName, String text, List<String> imageRefs,
+            List<ChatMessage> history, ChatMessage assistantMsg) {
         final ChatSession targetSession = currentSession;
         final boolean ragEnabled = !selectedRagCollections.isEmpty();
         final Set<String> ragCollections = ragEnabled ? new HashSet<>(selectedRagCollections) : null;
 
+        // Read the controls here, on the FX thread
+        final Map<String, Object> options = collectGenerationOptions();
+        final String systemPrompt = targetSession != null ? targetSession.getSystemPrompt()
+                : systemPromptField.getText();
+
+        // Each request gets its own handle so other chats keep streaming
+        final GenerationHandle generation = GenerationRegistry.getInstance()
+                .register(targetSession != null ? targetSession.getId().toString() : null);
+        generation.addListener(createPersistenceListener(assistantMsg, targetSession, modelName));
+        attachToGeneration(generation, assistantMsg);
+        prefixWarmDebounce.stop();
+
         currentGenerationTask = App.getExecutorService().submit(() -> {
             try {
+                // Only now are the images read, for the request
+                List<String> images = imageRefs != null ? ImageStore.getInstance().readBase64(imageRefs) : null;
+
                 // RAG context retrieval (if enabled)
                 List<RagResult> ragResults = null;
                 if (ragEnabled && (images == null || images.isEmpty())) {
@@ -625,69 +861,191 @@ public class ChatController {
                     ragResults = ragManager.queryContext(text, 5, ragCollections);
                 }
 
-                StringBuilder responseBuilder = new StringBuilder();
-                Map<String, Object> options = collectGenerationOptions();
-
-                String systemPrompt = targetSession != null ? targetSession.getSystemPrompt()
-                        : systemPromptField.getText();
-
                 // If RAG returned results, build augmented prompt
                 final String effectivePrompt;
                 if (ragResults != null && !ragResults.isEmpty()) {
                     effectivePrompt = RagManager.getInstance().buildAugmentedPrompt(text, ragResults);
+                    generation.setCitations(ragResults);
                 } else {
                     effectivePrompt = text;
                 }
 
-                final List<RagResult> finalRagResults = ragResults;
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                if (targetSession != null) {
+                    ContextWindow window = ContextAssembler.assemble(targetSession, history, systemPrompt,
+                            effectivePrompt, images);
+                    List<Map<String, Object>> messages = window.getMessages();
+                    PrefixWarmer warmer = PrefixWarmer.getInstance();
+                    if (warmer.isWarm(targetSession.getId().toString(), modelName,
+                            messages.subList(0, messages.size() - 1), options)) {
+                        generation.markPrefixWarmed();
+                    }
+                    // This request replaces whatever the warm-up left in the cache
+                    warmer.invalidate();
+                    OllamaManager.getInstance().streamChatAsync(generation, modelName, window.getMessages(), options);
+                } else {
+                    OllamaManager.getInstance().streamChatAsync(generation, modelName, effectivePrompt, images,
+                            options, systemPrompt);
+                }
 
-                OllamaManager.getInstance().askModelStream(modelName, effectivePrompt, images, options,
-                        systemPrompt,
-                        new OllamaStreamHandler() {
-                            @Override
-                            public void accept(String messagePart) {
-                                if (Thread.currentThread().isInterrupted()) {
-                                    throw new RuntimeException("Cancelled by user");
-                                }
+            } catch (InterruptedException e) {
+                generation.cancel();
+            } catch (Exception e) {
+                generation.fail(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the response into the session. It lives as long as the generation,
+     * independently of whichever view is showing the chat.
+     */
+    private ChatStreamListener createPersistenceListener(ChatMessage assistantMsg, ChatSession targetSession,
+            String modelName) {
+        return new ChatStreamListener() {
+            private long lastCheckpoint = System.currentTimeMillis();
+
+            @Override
+            public void onDelta(String delta) {
+                assistantMsg.appendContent(delta);
+                // Checkpoint long answers; the journal only appends the new text
+                long now = System.currentTimeMillis();
+                if (now - lastCheckpoint >= STREAM_CHECKPOINT_MS) {
+                    lastCheckpoint = now;
+                    ChatManager.getInstance().markDirty(targetSession);
+                }
+            }
 
-                                responseBuilder.setLength(0);
-                                responseBuilder.append(messagePart);
-                                String properFullText = responseBuilder.toString();
+            @Override
+            public void onComplete(GenerationStats stats) {
+                if (stats != null) {
+                    stats.setModel(modelName);
+                    assistantMsg.setStats(stats);
+                    ModelMetricsManager.getInstance().record(stats);
+                }
+                Platform.runLater(() -> ChatManager.getInstance().markDirty(targetSession));
+            }
 
-                                assistantMsg.setContent(properFullText);
+            @Override
+            public void onError(Throwable error) {
+                if (isCancellation(error)) {
+                    // Keep the partial answer, including text since the last checkpoint
+                    Platform.runLater(() -> ChatManager.getInstance().markDirty(targetSession));
+                    return;
+                }
+                LOGGER.log(Level.SEVERE, "Generation error", error);
+                Platform.runLater(() -> {
+                    assistantMsg.setContent("⚡ Error: " + error.getMessage());
+                    ChatManager.getInstance().markDirty(targetSession);
+                });
+            }
+        };
+    }
 
-                                long now = System.currentTimeMillis();
-                                if (now - lastUiUpdate > UI_UPDATE_INTERVAL_MS) {
-                                    Platform.runLater(() -> {
-                                        if (currentSession == targetSession) {
-                                            updateLastMessage(properFullText);
-                                        }
-                                    });
-                                    lastUiUpdate = now;
-                                }
-                            }
-                        });
+    /**
+     * Follows a running generation in this view: refreshes of the last message,
+     * at most once per frame, while it streams, and the final render when it ends. Used both for
+     * requests started here and for one still running when the chat is reopened.
+     */
+    private void attachToGeneration(GenerationHandle generation, ChatMessage assistantMsg) {
+        detachFromGeneration();
+        currentGeneration = generation;
+        // The response's row is the last one; it stays built while it streams
+        ObservableList<ChatTranscript.Entry> rows = transcript.getItems();
+        if (!rows.isEmpty()) {
+            liveEntry = rows.get(rows.size() - 1);
+            transcript.setLive(liveEntry, true);
+        }
+
+        TokenSink sink = TokenSink.open(assistantMsg::getContent, text -> {
+            if (currentGeneration == generation) {
+                updateLastMessage(text);
+            }
+        });
+        tokenSink = sink;
 
+        ChatStreamListener listener = new ChatStreamListener() {
+            @Override
+            public void onDelta(String delta) {
+                sink.offer();
+            }
+
+            @Override
+            public void onComplete(GenerationStats stats) {
                 Platform.runLater(() -> {
-                    String fullResponse = responseBuilder.toString();
-                    if (currentSession == targetSession) {
-                        updateLastMessage(fullResponse);
-                        // Add source citations if RAG was used
-                        if (finalRagResults != null && !finalRagResults.isEmpty()) {
-                            addSourceCitations(finalRagResults);
-                        }
+                    if (currentGeneration != generation) {
+                        return;
                     }
-                    assistantMsg.setContent(fullResponse);
-                    if (targetSession != null) {
-                        ChatManager.getInstance().saveChats();
+                    sink.flush(); // The tail that came in after the last frame
+                    showGenerationStats(stats);
+                    // Add source citations if RAG was used
+                    List<RagResult> citations = generation.getCitations();
+                    if (citations != null && !citations.isEmpty()) {
+                        addSourceCitations(citations);
                     }
-                    setGeneratingState(false);
+                    finishGeneration(generation);
                 });
+            }
 
-            } catch (Exception e) {
-                handleGenerationError(e, assistantMsg, targetSession);
+            @Override
+            public void onError(Throwable error) {
+                Platform.runLater(() -> {
+                    if (currentGeneration != generation) {
+                        return;
+                    }
+                    if (!isCancellation(error)) {
+                        updateLastMessage(assistantMsg.getContent());
+                    }
+                    finishGeneration(generation);
+                });
             }
-        });
+        };
+        generationViewListener = listener;
+        generation.addListener(listener);
+        setGeneratingState(true);
+    }
+
+    private void detachFromGeneration() {
+        GenerationHandle generation = currentGeneration;
+        if (generation != null && generationViewListener != null) {
+            generation.removeListener(generationViewListener);
+        }
+        currentGeneration = null;
+        generationViewListener = null;
+        if (tokenSink != null) {
+            tokenSink.close();
+            tokenSink = null;
+        }
+        if (liveEntry != null) {
+            transcript.setLive(liveEntry, false);
+            liveEntry = null;
+        }
+    }
+
+    private void finishGeneration(GenerationHandle generation) {
+        if (currentGeneration == generation) {
+            detachFromGeneration();
+            setGeneratingState(false);
+            updateContextMeter();
+            schedulePrefixWarm();
+        }
+    }
+
+    private static boolean isCancellation(Throwable error) {
+        return error instanceof CancellationException || error instanceof InterruptedException;
+    }
+
+    /**
+     * Called when this view is replaced. A running generation keeps going in the
+     * background and can be picked up again by the next view of the chat.
+     */
+    public void dispose() {
+        detachFromGeneration();
+        ChatManager.getInstance().closeChat(currentSession);
+        prefixWarmDebounce.stop();
+        PrefixWarmer.getInstance().cancel();
     }
 
     private Map<String, Object> collectGenerationOptions() {
@@ -708,28 +1066,6 @@ public class ChatController {
         return options;
     }
 
-    private void handleGenerationError(Exception e, ChatMessage assistantMsg, ChatSession targetSession) {
-        if (e instanceof InterruptedException || Thread.interrupted()
-                || "Cancelled by user".equals(e.getMessage())) {
-            Platform.runLater(() -> setGeneratingState(false));
-            return;
-        }
-
-        LOGGER.log(Level.SEVERE, "Generation error", e);
-        Platform.runLater(() -> {
-            String errorMsg = "⚡ Error: " + e.getMessage();
-            assistantMsg.setContent(errorMsg);
-            if (targetSession != null) {
-                ChatManager.getInstance().saveChats();
-            }
-
-            if (currentSession == targetSession) {
-                updateLastMessage(errorMsg);
-            }
-            setGeneratingState(false);
-        });
-    }
-
     private void updateCreativityLabel(double val) {
         String label = "";
         // Colors: Precise (Blue), Balanced (Green), Creative (Orange/Red)
@@ -765,7 +1101,7 @@ public class ChatController {
             // For now, let's just colorize Temp/TopP as they are "vibe" params.
             if (currentSession != null) {
                 currentSession.setNumCtx(val);
-                ChatManager.getInstance().saveChats();
+                ChatManager.getInstance().markDirty(currentSession);
             }
         });
 
@@ -777,7 +1113,7 @@ public class ChatController {
             // updateSliderColor(topKSlider, val, 1, 100);
             if (currentSession != null) {
                 currentSession.setTopK(val);
-                ChatManager.getInstance().saveChats();
+                ChatManager.getInstance().markDirty(currentSession);
             }
         });
 
@@ -788,7 +1124,7 @@ public class ChatController {
 
             if (currentSession != null) {
                 currentSession.setTopP(val);
-                ChatManager.getInstance().saveChats();
+                ChatManager.getInstance().markDirty(currentSession);
             }
         });
 
@@ -804,7 +1140,7 @@ public class ChatController {
                 try {
                     int seed = newValue.isEmpty() || newValue.equals("-") ? -1 : Integer.parseInt(newValue);
                     currentSession.setSeed(seed);
-                    ChatManager.getInstance().saveChats();
+                    ChatManager.getInstance().markDirty(currentSession);
                 } catch (NumberFormatException ignored) {
                 }
             }
@@ -869,10 +1205,15 @@ public class ChatController {
 
     }
 
-    private void updateLastMessage(String text) {
-        if (!messagesContainer.getChildren().isEmpty()) {
-            Node lastNode = messagesContainer.getChildren().get(messagesContainer.getChildren().size() - 1);
+    /** Node of the last transcript row, built if it was out of view. */
+    private Node lastRowNode() {
+        ObservableList<ChatTranscript.Entry> rows = transcript.getItems();
+        return rows.isEmpty() ? null : transcript.nodeOf(rows.get(rows.size() - 1));
+    }
 
+    private void updateLastMessage(String text) {
+        Node lastNode = lastRowNode();
+        if (lastNode != null) {
             if (lastNode instanceof HBox) {
                 HBox container = (HBox) lastNode;
                 if (!container.getChildren().isEmpty()) {
@@ -935,11 +1276,15 @@ public class ChatController {
     }
 
     private void cancelGeneration() {
-        // Force close the stream at the network level
-        OllamaManager.getInstance().cancelCurrentRequest();
+        // Abort only the request this chat owns
+        GenerationHandle generation = currentGeneration;
+        detachFromGeneration();
+        if (generation != null) {
+            generation.cancel();
+        }
 
         if (currentGenerationTask != null) {
-            currentGenerationTask.cancel(true); // Interrupt thread as well
+            currentGenerationTask.cancel(true); // Interrupt the RAG lookup if still running
         }
 
         // Remove thinking indicator if it's still there
@@ -953,7 +1298,7 @@ public class ChatController {
                 ChatMessage last = msgs.get(msgs.size() - 1);
                 if ("assistant".equals(last.getRole()) && (last.getContent() == null || last.getContent().isEmpty())) {
                     msgs.remove(msgs.size() - 1);
-                    ChatManager.getInstance().saveChats();
+                    ChatManager.getInstance().markDirty(currentSession);
                 }
             }
         }
@@ -962,61 +1307,76 @@ public class ChatController {
     }
 
     private void cleanupThinkingIndicator() {
-        if (!messagesContainer.getChildren().isEmpty()) {
-            Node lastNode = messagesContainer.getChildren().get(messagesContainer.getChildren().size() - 1);
+        Node lastNode = lastRowNode();
+        if (lastNode != null) {
             if (lastNode instanceof HBox) {
                 HBox container = (HBox) lastNode;
                 if (!container.getChildren().isEmpty() && container.getChildren().get(0) instanceof VBox) {
                     VBox wrapper = (VBox) container.getChildren().get(0);
                     if (!wrapper.getChildren().isEmpty()
                             && wrapper.getChildren().get(0) instanceof RingProgressIndicator) {
-                        // Remove the whole message container if it's just a placeholder ring
-                        messagesContainer.getChildren().remove(lastNode);
+                        // Remove the whole message row if it's just a placeholder ring
+                        ObservableList<ChatTranscript.Entry> rows = transcript.getItems();
+                        rows.remove(rows.size() - 1);
                     }
                 }
             }
         }
     }
 
-    private void addMessage(String text, boolean isUser, List<String> images) {
+    private void addMessage(String text, boolean isUser, List<String> imageRefs) {
         if (isUser) {
-            addUserMessage(text, images);
+            addUserMessage(text, imageRefs);
         } else {
             addAssistantMessage(text);
         }
     }
 
-    private void addUserMessage(String text, List<String> images) {
+    private ChatTranscript.Entry addUserMessage(String text, List<String> imageRefs) {
+        return addRow(() -> createUserMessageNode(text, imageRefs), text.length());
+    }
+
+    /** Appends a row to the transcript; its node is built when it is first shown. */
+    private ChatTranscript.Entry addRow(Supplier<Node> builder, int textLength) {
+        ChatTranscript.Entry entry = new ChatTranscript.Entry(builder, textLength);
+        transcript.getItems().add(entry);
+        return entry;
+    }
+
+    private Node createUserMessageNode(String text, List<String> imageRefs) {
         VBox userBubbleWrapper = new VBox(4);
         userBubbleWrapper.setAlignment(Pos.CENTER_RIGHT);
 
-        if (images != null && !images.isEmpty()) {
-            userBubbleWrapper.getChildren().add(createThumbnailRow(images));
+        if (imageRefs != null && !imageRefs.isEmpty()) {
+            userBubbleWrapper.getChildren().add(createThumbnailRow(imageRefs));
         }
 
         Label bubble = new Label(text.isEmpty() ? App.getBundle().getString("chat.image.marker") : text);
         bubble.setWrapText(true);
         bubble.getStyleClass().addAll("chat-bubble", "chat-bubble-user");
         bubble.maxWidthProperty()
-                .bind(Bindings.min(600.0, messagesContainer.widthProperty().subtract(60)));
+                .bind(Bindings.min(600.0, transcript.widthProperty().subtract(60)));
 
         userBubbleWrapper.getChildren().add(bubble);
 
         HBox bubbleContainer = new HBox();
         bubbleContainer.setAlignment(Pos.CENTER_RIGHT);
         bubbleContainer.getChildren().add(userBubbleWrapper);
-        messagesContainer.getChildren().add(bubbleContainer);
+        return bubbleContainer;
     }
 
-    private HBox createThumbnailRow(List<String> images) {
+    private HBox createThumbnailRow(List<String> imageRefs) {
         HBox thumbnailRow = new HBox(6);
         thumbnailRow.setAlignment(Pos.CENTER_RIGHT);
         thumbnailRow.setPadding(new Insets(0, 0, 4, 0));
-        for (String base64 : images) {
+        for (String ref : imageRefs) {
+            String url = ImageStore.getInstance().thumbnailUrl(ref);
+            if (url == null) {
+                continue;
+            }
             try {
-                byte[] bytes = Base64.getDecoder().decode(base64);
-                Image img = new Image(new ByteArrayInputStream(bytes), 80,
-                        80, true, true);
+                // Loaded in the background, from the stored thumbnail when there is one
+                Image img = new Image(url, 80, 80, true, true, true);
                 ImageView iv = new ImageView(img);
                 iv.setFitWidth(80);
                 iv.setFitHeight(80);
@@ -1033,7 +1393,19 @@ public class ChatController {
         return thumbnailRow;
     }
 
+    /** A row that is not a message of the session, e.g. an error. */
     private void addAssistantMessage(String text) {
+        addRow(() -> createAssistantMessageNode(text, null), text.length());
+    }
+
+    /** The message's row; rebuilt from its current content if dropped while out of view. */
+    private ChatTranscript.Entry addAssistantMessage(ChatMessage msg) {
+        String text = msg.getContent() != null ? msg.getContent() : "";
+        return addRow(() -> createAssistantMessageNode(msg.getContent() != null ? msg.getContent() : "",
+                msg.getStats()), text.length());
+    }
+
+    private Node createAssistantMessageNode(String text, GenerationStats stats) {
         HBox container = new HBox();
         container.setAlignment(Pos.CENTER);
         container.setPadding(new Insets(10, 20, 10, 20));
@@ -1042,7 +1414,7 @@ public class ChatController {
         contentWrapper.setStyle("-fx-background-color: transparent;");
         HBox.setHgrow(contentWrapper, Priority.ALWAYS);
         contentWrapper.maxWidthProperty()
-                .bind(Bindings.min(800.0, messagesContainer.widthProperty().subtract(100)));
+                .bind(Bindings.min(800.0, transcript.widthProperty().subtract(100)));
 
         if (text.isEmpty()) {
             RingProgressIndicator ring = new RingProgressIndicator();
@@ -1050,10 +1422,13 @@ public class ChatController {
             contentWrapper.getChildren().add(ring);
         } else {
             setupAssistantContent(contentWrapper, text);
+            if (stats != null) {
+                addStatsToFooter(contentWrapper, stats);
+            }
         }
 
         container.getChildren().add(contentWrapper);
-        messagesContainer.getChildren().add(container);
+        return container;
     }
 
     private void setupAssistantContent(VBox contentWrapper, String text) {
@@ -1096,12 +1471,64 @@ public class ChatController {
         contentWrapper.getChildren().addAll(markdownOutput, footer);
     }
 
+    /**
+     * Shows the timings of the response that just finished in its footer.
+     */
+    private void showGenerationStats(GenerationStats stats) {
+        if (stats == null) {
+            return;
+        }
+        Node lastNode = lastRowNode();
+        if (lastNode instanceof HBox && !((HBox) lastNode).getChildren().isEmpty()
+                && ((HBox) lastNode).getChildren().get(0) instanceof VBox) {
+            addStatsToFooter((VBox) ((HBox) lastNode).getChildren().get(0), stats);
+        }
+    }
+
+    private void addStatsToFooter(VBox contentWrapper, GenerationStats stats) {
+        if (stats.getEvalCount() == 0) {
+            return;
+        }
+        for (Node child : contentWrapper.getChildren()) {
+            if (child instanceof HBox) {
+                HBox footer = (HBox) child;
+                footer.getChildren().removeIf(n -> n.getStyleClass().contains("chat-stats-label")
+                        || n.getStyleClass().contains("chat-stats-spacer"));
+
+                Label statsLabel = new Label(MessageFormat.format(App.getBundle().getString("chat.stats.summary"),
+                        String.format("%.1f", stats.getTokensPerSecond()),
+                        String.format("%.2f", stats.getTimeToFirstTokenMs() / 1000.0),
+                        stats.getEvalCount()));
+                statsLabel.getStyleClass().add("chat-stats-label");
+                String details = MessageFormat.format(App.getBundle().getString("chat.stats.details"),
+                        stats.getEvalCount(), String.format("%.1f", stats.getTokensPerSecond()),
+                        stats.getPromptEvalCount(), String.format("%.1f", stats.getPromptTokensPerSecond()),
+                        String.format("%.2f", stats.getLoadDuration() / 1_000_000_000.0),
+                        String.format("%.2f", stats.getTimeToFirstTokenMs() / 1000.0),
+                        String.format("%.2f", stats.getTotalDuration() / 1_000_000_000.0));
+                if (stats.isPrefixWarmed()) {
+                    details += "\n" + App.getBundle().getString("chat.stats.prefixWarmed");
+                }
+                statsLabel.setTooltip(new Tooltip(details));
+
+                Region spacer = new Region();
+                spacer.getStyleClass().add("chat-stats-spacer");
+                HBox.setHgrow(spacer, Priority.ALWAYS);
+                footer.getChildren().addAll(0, List.of(statsLabel, spacer));
+                return;
+            }
+        }
+    }
+
     /**
      * Add clickable source citation pills below the last assistant message.
      */
     private void addSourceCitations(List<RagResult> results) {
         if (results == null || results.isEmpty()) return;
+        addRow(() -> createSourceCitationsNode(results), 0);
+    }
 
+    private Node createSourceCitationsNode(List<RagResult> results) {
         HBox sourcesRow = new HBox(6);
         sourcesRow.setAlignment(Pos.CENTER_LEFT);
         sourcesRow.setPadding(new Insets(5, 20, 5, 20));
@@ -1137,7 +1564,7 @@ public class ChatController {
                     sourcesRow.getChildren().add(pill);
                 });
 
-        messagesContainer.getChildren().add(sourcesRow);
+        return sourcesRow;
     }
 
     @FXML
@@ -1236,9 +1663,9 @@ public class ChatController {
         inputField.setOnDragDropped(this::handleDragDropped);
         inputField.setOnDragExited(e -> inputField.getStyleClass().remove("drag-overlay"));
 
-        // Also allow drops on the messages container
-        messagesContainer.setOnDragOver(this::handleDragOver);
-        messagesContainer.setOnDragDropped(this::handleDragDropped);
+        // Also allow drops on the transcript
+        transcript.setOnDragOver(this::handleDragOver);
+        transcript.setOnDragDropped(this::handleDragDropped);
     }
 
     private void handleDragOver(DragEvent event) {
@@ -1,12 +1,20 @@
 package com.org.ollamafx.controller;
 
-import javafx.concurrent.Task;
+import com.org.ollamafx.App;
+import com.org.ollamafx.manager.DownloadManager;
+import com.org.ollamafx.model.DownloadJob;
+import com.org.ollamafx.model.PullProgress;
+import com.org.ollamafx.util.Utils;
+import javafx.beans.value.ChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
 import atlantafx.base.controls.RingProgressIndicator;
 
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+
 public class DownloadPopupController {
 
     @FXML
@@ -20,7 +28,12 @@ public class DownloadPopupController {
     @FXML
     private Button cancelButton;
 
-    private Task<Void> downloadTask;
+    @FXML
+    private Button backgroundButton;
+
+    private DownloadJob downloadJob;
+    private final ChangeListener<PullProgress> progressListener = (obs, oldVal, newVal) -> showProgress(newVal);
+    private final ChangeListener<DownloadJob.State> stateListener = (obs, oldVal, newVal) -> showState(newVal);
     private double xOffset = 0;
     private double yOffset = 0;
 
@@ -38,36 +51,95 @@ public class DownloadPopupController {
         });
     }
 
-    public void setDownloadTask(Task<Void> task) {
-        this.downloadTask = task;
+    /**
+     * Shows a queued pull. Closing the popup does not stop it; the download keeps
+     * going in {@link DownloadManager} and is listed in the local models view.
+     */
+    public void setDownloadJob(DownloadJob job) {
+        this.downloadJob = job;
+        job.progressProperty().addListener(progressListener);
+        job.stateProperty().addListener(stateListener);
+        showProgress(job.progressProperty().get());
+        showState(job.stateProperty().get());
+    }
 
-        // Bind UI elements to the task
-        ringIndicator.progressProperty().bind(task.progressProperty());
-        statusLabel.textProperty().bind(task.messageProperty());
+    private void showProgress(PullProgress progress) {
+        if (progress == null) {
+            return;
+        }
+        ringIndicator.setProgress(progress.getFraction());
+        statusLabel.setText(describe(progress));
+    }
 
-        // Close window when task finishes (Succeeded, Failed, or Cancelled)
-        task.stateProperty().addListener((obs, oldState, newState) -> {
-            if (newState == javafx.concurrent.Worker.State.SUCCEEDED ||
-                    newState == javafx.concurrent.Worker.State.FAILED ||
-                    newState == javafx.concurrent.Worker.State.CANCELLED) {
+    private void showState(DownloadJob.State state) {
+        ResourceBundle bundle = App.getBundle();
+        switch (state) {
+            case PENDING:
+                if (downloadJob.progressProperty().get() == null) {
+                    statusLabel.setText(bundle.getString("download.status.queued"));
+                }
+                break;
+            case PAUSED:
+                statusLabel.setText(bundle.getString("download.status.paused"));
+                break;
+            case FAILED:
+                statusLabel.setText(MessageFormat.format(bundle.getString("download.status.failed"),
+                        downloadJob.getError()));
+                cancelButton.setText(bundle.getString("download.action.close"));
+                break;
+            case COMPLETED:
                 closeWindow();
-            }
-        });
+                break;
+            default:
+                break;
+        }
     }
 
     public void setModelName(String modelName) {
         titleLabel.setText(com.org.ollamafx.App.getBundle().getString("download.title.default") + " " + modelName);
     }
 
+    /** Human readable line for a pull: bytes, rate, ETA and layers, or the current phase. */
+    public static String describe(PullProgress progress) {
+        ResourceBundle bundle = App.getBundle();
+        String status = progress.getStatus();
+        if (progress.isSuccess()) {
+            return bundle.getString("download.status.success");
+        }
+        if (status.startsWith("verifying")) {
+            return bundle.getString("download.status.verifying");
+        }
+        if (status.startsWith("writing") || status.startsWith("removing")) {
+            return bundle.getString("download.status.writing");
+        }
+        if (progress.getTotalBytes() <= 0) {
+            return status.contains("manifest") ? bundle.getString("download.status.manifest") : status;
+        }
+        String rate = progress.getBytesPerSecond() > 0 ? Utils.formatSize((long) progress.getBytesPerSecond()) : "--";
+        String eta = progress.getEtaSeconds() >= 0 ? Utils.formatDuration(progress.getEtaSeconds()) : "--";
+        return MessageFormat.format(bundle.getString("download.status.progress"),
+                Utils.formatSize(progress.getCompletedBytes()), Utils.formatSize(progress.getTotalBytes()),
+                rate, eta, progress.getLayersDone(), progress.getLayers().size());
+    }
+
     @FXML
     private void onCancel() {
-        if (downloadTask != null && downloadTask.isRunning()) {
-            downloadTask.cancel();
+        if (downloadJob != null && downloadJob.getState() != DownloadJob.State.COMPLETED) {
+            DownloadManager.getInstance().remove(downloadJob);
         }
         closeWindow();
     }
 
+    @FXML
+    private void onBackground() {
+        closeWindow();
+    }
+
     private void closeWindow() {
+        if (downloadJob != null) {
+            downloadJob.progressProperty().removeListener(progressListener);
+            downloadJob.stateProperty().removeListener(stateListener);
+        }
         Stage stage = (Stage) cancelButton.getScene().getWindow();
         stage.close();
     }
@@ -4,8 +4,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.text.MessageFormat;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Properties;
 import java.util.ResourceBundle;
@@ -15,9 +13,10 @@ import org.kordamp.ikonli.javafx.FontIcon;
 import com.org.ollamafx.App;
 import com.org.ollamafx.manager.ChatManager;
 import com.org.ollamafx.manager.ConfigManager;
+import com.org.ollamafx.manager.DownloadManager;
 import com.org.ollamafx.manager.ModelManager;
-import com.org.ollamafx.manager.OllamaManager;
 import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.DownloadJob;
 import com.org.ollamafx.model.OllamaModel;
 import com.org.ollamafx.service.GitHubUpdateService;
 import com.org.ollamafx.service.UpdateManagerService;
@@ -25,8 +24,9 @@ import com.org.ollamafx.ui.ModelCard;
 
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.WeakChangeListener;
 import javafx.collections.ListChangeListener;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -66,6 +66,15 @@ public class HomeController implements Initializable {
 
     private ModelManager modelManager;
 
+    // Held here so the weak listeners on the shared download jobs live as long as this view
+    private final ChangeListener<DownloadJob.State> downloadStateListener = (obs, oldState, newState) -> {
+        if (newState == DownloadJob.State.COMPLETED && modelManager != null) {
+            modelManager.loadLibraryModels();
+        }
+    };
+    private final WeakChangeListener<DownloadJob.State> weakDownloadStateListener = new WeakChangeListener<>(
+            downloadStateListener);
+
     public void setModelManager(ModelManager modelManager) {
         this.modelManager = modelManager;
         setupListeners();
@@ -201,47 +210,11 @@ public class HomeController implements Initializable {
             stage.setScene(scene);
             stage.setResizable(false);
 
-            Task<Void> task = new Task<>() {
-                @Override
-                protected Void call() throws Exception {
-                    updateMessage(App.getBundle().getString("download.status.process"));
-                    updateProgress(0, 100);
-
-                    OllamaManager.getInstance().pullModel(model.getName(), model.getTag(),
-                            (progress, status) -> {
-                                updateMessage(status);
-                                if (progress >= 0) {
-                                    updateProgress(progress, 100);
-                                } else {
-                                    updateProgress(-1, 100);
-                                }
-                            });
-
-                    return null;
-                }
-            };
-
-            task.setOnSucceeded(e -> {
-                if (modelManager != null) {
-                    String date = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
-                            .format(LocalDateTime.now());
-                    OllamaModel newModel = new OllamaModel(
-                            model.getName(), App.getBundle().getString("model.installed"), "N/A",
-                            model.getTag(),
-                            model.getSize(), date,
-                            "N/A", "N/A"); // simplified
-                    modelManager.addLocalModel(newModel);
-
-                    modelManager.loadLibraryModels();
-                }
-            });
-
-            task.setOnFailed(e -> {
-                System.err.println("Download failed: " + task.getException().getMessage());
-            });
-
-            controller.setDownloadTask(task);
-            App.getExecutorService().submit(task);
+            DownloadJob job = DownloadManager.getInstance().enqueue(model.getName(), model.getTag());
+            // Once per job, however often its download is clicked
+            job.stateProperty().removeListener(weakDownloadStateListener);
+            job.stateProperty().addListener(weakDownloadStateListener);
+            controller.setDownloadJob(job);
             stage.showAndWait();
 
         } catch (IOException e) {
@@ -1,15 +1,23 @@
 package com.org.ollamafx.controller;
 
+import com.org.ollamafx.manager.DownloadManager;
 import com.org.ollamafx.manager.ModelManager;
+import com.org.ollamafx.manager.ModelMetricsManager;
+import com.org.ollamafx.model.DownloadJob;
+import com.org.ollamafx.model.ModelMetrics;
 import com.org.ollamafx.model.OllamaModel;
 import atlantafx.base.theme.Styles;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
 import javafx.collections.ListChangeListener;
+import javafx.collections.WeakListChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
@@ -19,6 +27,7 @@ import com.org.ollamafx.App;
 import java.text.MessageFormat;
 
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
@@ -27,6 +36,11 @@ public class LocalModelsController implements Initializable {
 
     @FXML
     private VBox modelListContainer;
+    @FXML
+    private VBox downloadsContainer;
+
+    // Held here so the weak listener on the shared queue lives as long as this view
+    private final ListChangeListener<DownloadJob> downloadsListener = c -> populateDownloads();
 
     // We might want to keep a reference to title or other header elements if
     // needed,
@@ -36,7 +50,105 @@ public class LocalModelsController implements Initializable {
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        // Init logic if needed, currently empty as we wait for modelManager
+        DownloadManager.getInstance().getJobs().addListener(new WeakListChangeListener<>(downloadsListener));
+        populateDownloads();
+    }
+
+    /** Download queue above the installed models; hidden while it is empty. */
+    private void populateDownloads() {
+        if (downloadsContainer == null) {
+            return;
+        }
+        downloadsContainer.getChildren().clear();
+        List<DownloadJob> jobs = DownloadManager.getInstance().getJobs();
+        boolean visible = !jobs.isEmpty();
+        downloadsContainer.setVisible(visible);
+        downloadsContainer.setManaged(visible);
+        if (!visible) {
+            return;
+        }
+
+        Label title = new Label(App.getBundle().getString("local.downloads.title"));
+        title.getStyleClass().add("title-4");
+        downloadsContainer.getChildren().add(title);
+        for (DownloadJob job : jobs) {
+            downloadsContainer.getChildren().add(createDownloadRow(job));
+        }
+    }
+
+    private HBox createDownloadRow(DownloadJob job) {
+        HBox card = new HBox();
+        card.getStyleClass().add("apple-card-row");
+        card.setAlignment(Pos.CENTER_LEFT);
+        card.setSpacing(15);
+
+        VBox infoBox = new VBox();
+        infoBox.setAlignment(Pos.CENTER_LEFT);
+        infoBox.setSpacing(4);
+        HBox.setHgrow(infoBox, Priority.ALWAYS);
+
+        Label nameLbl = new Label(job.getFullName());
+        nameLbl.setStyle("-fx-font-size: 16px; -fx-font-weight: normal; -fx-text-fill: -color-fg-default;");
+        Label statusLbl = new Label();
+        statusLbl.getStyleClass().add("apple-text-subtle");
+        ProgressBar bar = new ProgressBar(0);
+        bar.setMaxWidth(Double.MAX_VALUE);
+        infoBox.getChildren().addAll(nameLbl, bar, statusLbl);
+
+        Button actionBtn = new Button();
+        Button removeBtn = new Button(App.getBundle().getString("download.action.remove"));
+        removeBtn.getStyleClass().add(Styles.DANGER);
+        removeBtn.setOnAction(e -> DownloadManager.getInstance().remove(job));
+
+        Runnable refresh = () -> {
+            ResourceBundle bundle = App.getBundle();
+            DownloadJob.State state = job.stateProperty().get();
+            double fraction = job.getFraction();
+            bar.setProgress(state == DownloadJob.State.ACTIVE && fraction < 0 ? -1 : Math.max(0, fraction));
+
+            actionBtn.setVisible(state != DownloadJob.State.COMPLETED);
+            actionBtn.setManaged(state != DownloadJob.State.COMPLETED);
+            switch (state) {
+                case ACTIVE:
+                    statusLbl.setText(job.progressProperty().get() != null
+                            ? DownloadPopupController.describe(job.progressProperty().get()).replace("\n", " · ")
+                            : bundle.getString("download.status.process"));
+                    actionBtn.setText(bundle.getString("download.action.pause"));
+                    actionBtn.setOnAction(e -> DownloadManager.getInstance().pause(job));
+                    break;
+                case PENDING:
+                    statusLbl.setText(bundle.getString("download.status.queued"));
+                    actionBtn.setText(bundle.getString("download.action.pause"));
+                    actionBtn.setOnAction(e -> DownloadManager.getInstance().pause(job));
+                    break;
+                case PAUSED:
+                    statusLbl.setText(bundle.getString("download.status.paused"));
+                    actionBtn.setText(bundle.getString("download.action.resume"));
+                    actionBtn.setOnAction(e -> DownloadManager.getInstance().resume(job));
+                    break;
+                case FAILED:
+                    statusLbl.setText(MessageFormat.format(bundle.getString("download.status.failed"),
+                            job.getError()));
+                    actionBtn.setText(bundle.getString("download.action.retry"));
+                    actionBtn.setOnAction(e -> DownloadManager.getInstance().resume(job));
+                    break;
+                case COMPLETED:
+                    statusLbl.setText(bundle.getString("download.status.success"));
+                    removeBtn.setText(bundle.getString("download.action.close"));
+                    removeBtn.getStyleClass().remove(Styles.DANGER);
+                    break;
+            }
+        };
+        refresh.run();
+
+        // The row keeps the listener alive; the job only references it weakly
+        InvalidationListener listener = obs -> refresh.run();
+        card.getProperties().put("downloadListener", listener);
+        job.stateProperty().addListener(new WeakInvalidationListener(listener));
+        job.progressProperty().addListener(new WeakInvalidationListener(listener));
+
+        card.getChildren().addAll(infoBox, actionBtn, removeBtn);
+        return card;
     }
 
     public void setModelManager(ModelManager modelManager) {
@@ -93,6 +205,24 @@ public class LocalModelsController implements Initializable {
 
             infoBox.getChildren().addAll(nameLbl, detailsLbl);
 
+            // Throughput measured from this machine's own responses
+            ModelMetrics metrics = ModelMetricsManager.getInstance()
+                    .getMetrics(model.getName() + ":" + model.getTag());
+            if (metrics != null && metrics.getResponses() > 0) {
+                String metricsText = MessageFormat.format(App.getBundle().getString("local.metrics"),
+                        String.format("%.1f", metrics.getAverageTokensPerSecond()),
+                        String.format("%.0f", metrics.getAveragePromptTokensPerSecond()),
+                        String.format("%.2f", metrics.getAverageTimeToFirstTokenMs() / 1000.0),
+                        metrics.getResponses());
+                if (metrics.getWarmTtftSamples() > 0) {
+                    metricsText += MessageFormat.format(App.getBundle().getString("local.metrics.warm"),
+                            String.format("%.2f", metrics.getAverageWarmTimeToFirstTokenMs() / 1000.0));
+                }
+                Label metricsLbl = new Label(metricsText);
+                metricsLbl.getStyleClass().add("apple-text-subtle");
+                infoBox.getChildren().add(metricsLbl);
+            }
+
             // Spacer
             Region spacer = new Region();
             HBox.setHgrow(spacer, Priority.ALWAYS);
@@ -1,26 +1,37 @@
 package com.org.ollamafx.controller;
 
 import com.org.ollamafx.manager.ChatManager;
+import com.org.ollamafx.manager.ChatSearchManager;
+import com.org.ollamafx.manager.DownloadManager;
 import com.org.ollamafx.manager.ModelManager;
 import com.org.ollamafx.manager.OllamaServiceManager;
 import com.org.ollamafx.manager.ChatCollectionManager;
 import com.org.ollamafx.model.ChatSession;
 import com.org.ollamafx.model.ChatNode;
 import com.org.ollamafx.model.ChatFolder;
+import com.org.ollamafx.model.SearchHit;
 import com.org.ollamafx.model.SmartCollection;
 import com.org.ollamafx.ui.ChatTreeCell;
+import com.org.ollamafx.ui.ChatTreeModel;
+import com.org.ollamafx.ui.SearchHitCell;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.animation.FadeTransition;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.ToggleButton;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
 import javafx.scene.control.MenuItem;
@@ -35,18 +46,16 @@ import javafx.scene.shape.SVGPath;
 import javafx.util.Duration;
 import javafx.scene.control.Button;
 import javafx.scene.control.Tooltip;
-import javafx.collections.ListChangeListener;
 import javafx.animation.Animation;
 import java.awt.Desktop;
 import java.net.URI;
 import java.io.File;
 import java.nio.file.Files;
 
-import org.kordamp.ikonli.feather.Feather;
-import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
@@ -60,6 +69,10 @@ public class MainController implements Initializable {
     private TreeView<ChatNode> chatTreeView;
     @FXML
     private StackPane centerContentPane;
+    @FXML
+    private TextField sidebarSearchField;
+    @FXML
+    private ListView<SearchHit> searchResultsList;
 
     // Bottom Tool Buttons
     @FXML
@@ -96,6 +109,12 @@ public class MainController implements Initializable {
     private ChatManager chatManager;
     private ChatCollectionManager collectionManager;
     private ModelManager modelManager;
+    private ChatController activeChatController;
+    private ChatTreeModel chatTreeModel;
+
+    private static final int SEARCH_RESULT_LIMIT = 50;
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(200));
+    private int searchGeneration; // Results of older queries are dropped
 
     public MainController() {
         this.chatManager = ChatManager.getInstance();
@@ -148,9 +167,11 @@ public class MainController implements Initializable {
 
         // --- Chat Tree Setup ---
         setupChatTree();
+        setupSearch();
 
-        // Refresh tree initially
-        refreshChatTree();
+        // The tree follows the managers' change events by itself
+        chatTreeModel = new ChatTreeModel();
+        chatTreeView.setRoot(chatTreeModel.getRoot());
 
         // Listen for selection changes
         chatTreeView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
@@ -160,22 +181,6 @@ public class MainController implements Initializable {
             }
         });
 
-        // Listen for chat list changes to refresh tree
-        // Weak listener or careful management needed? For now straightforward.
-        chatManager.getChatSessions().addListener((ListChangeListener<ChatSession>) c -> {
-            refreshChatTree();
-        });
-
-        // Listen for folder changes (List add/remove)
-        collectionManager.getFolders().addListener((ListChangeListener<ChatFolder>) c -> {
-            refreshChatTree();
-        });
-
-        // Listen for content updates (Color, content changes)
-        collectionManager.addUpdateListener(() -> {
-            Platform.runLater(this::refreshChatTree);
-        });
-
         // --- Sidebar button icons (Lucide/Feather stroke style) ---
         btnHome.setGraphic(sidebarIcon("M10 20v-6h4v6h5v-8h3L12 3 2 12h3v8z", 16));
         btnAvailable.setGraphic(sidebarIcon("M19 9h-4V3H9v6H5l7 7 7-7zM5 18v2h14v-2H5z", 16));
@@ -217,6 +222,8 @@ public class MainController implements Initializable {
     private void setupChatTree() {
         chatTreeView.setCellFactory(tv -> new ChatTreeCell());
         chatTreeView.setShowRoot(false);
+        // Shift/Cmd-click selects several chats; move and delete act on all of them
+        chatTreeView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // Context Menu for empty space / root
         ContextMenu rootMenu = new ContextMenu();
@@ -224,152 +231,73 @@ public class MainController implements Initializable {
         smartColItem.setOnAction(e -> {
             Optional<SmartCollection> result = com.org.ollamafx.ui.SmartCollectionDialog.show(null);
             result.ifPresent(sc -> {
-                collectionManager.createSmartCollection(sc.getName(), sc.getCriteria(), sc.getValue(), sc.getIcon());
+                collectionManager.createSmartCollection(sc.getName(), sc.getConditions(), sc.getIcon());
             });
         });
         rootMenu.getItems().add(smartColItem);
         chatTreeView.setContextMenu(rootMenu);
     }
 
-    public void refreshChatTree() {
-        TreeItem<ChatNode> root = new TreeItem<>(new ChatNode((ChatFolder) null));
-        root.setExpanded(true);
-
-        addSmartCollectionsToTree(root);
-        addFoldersToTree(root);
-        addUncategorizedChatsToTree(root);
-
-        chatTreeView.setRoot(root);
-    }
-
-    private void addSmartCollectionsToTree(TreeItem<ChatNode> root) {
-        for (SmartCollection sc : collectionManager.getSmartCollections()) {
-            TreeItem<ChatNode> scItem = new TreeItem<>(new ChatNode(sc), createSmartCollectionIcon(sc));
-            scItem.setExpanded(sc.isExpanded());
-
-            scItem.expandedProperty().addListener((obs, oldVal, newVal) -> {
-                sc.setExpanded(newVal);
-                collectionManager.updateSmartCollection(sc);
-            });
-
-            for (ChatSession chat : collectionManager.getChatsForSmartCollection(sc)) {
-                scItem.getChildren().add(createChatTreeItem(chat));
+    private void setupSearch() {
+        searchResultsList.setCellFactory(lv -> new SearchHitCell(this::findChatById));
+        searchResultsList.setPlaceholder(new Label(com.org.ollamafx.App.getBundle().getString("sidebar.searchEmpty")));
+        searchDebounce.setOnFinished(e -> runSearch(sidebarSearchField.getText()));
+
+        sidebarSearchField.textProperty().addListener((obs, oldVal, newVal) -> {
+            boolean searching = newVal != null && !newVal.isBlank();
+            chatTreeView.setVisible(!searching);
+            chatTreeView.setManaged(!searching);
+            searchResultsList.setVisible(searching);
+            searchResultsList.setManaged(searching);
+            if (searching) {
+                searchDebounce.playFromStart();
+            } else {
+                searchDebounce.stop();
+                searchGeneration++;
+                searchResultsList.getItems().clear();
             }
-            root.getChildren().add(scItem);
-        }
-    }
-
-    private void addFoldersToTree(TreeItem<ChatNode> root) {
-        for (ChatFolder folder : collectionManager.getFolders()) {
-            TreeItem<ChatNode> folderItem = new TreeItem<>(new ChatNode(folder), createFolderIcon(folder));
-            folderItem.setExpanded(folder.isExpanded());
-
-            folderItem.expandedProperty().addListener((obs, oldVal, newVal) -> {
-                folder.setExpanded(newVal);
-                folderItem.setGraphic(createFolderIcon(folder));
-            });
-
-            for (String chatId : folder.getChatIds()) {
-                ChatSession chat = findChatById(chatId);
-                if (chat != null) {
-                    folderItem.getChildren().add(createChatTreeItem(chat));
-                }
+        });
+        sidebarSearchField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                sidebarSearchField.clear();
             }
-            root.getChildren().add(folderItem);
-        }
-    }
-
-    private void addUncategorizedChatsToTree(TreeItem<ChatNode> root) {
-        for (ChatSession chat : chatManager.getChatSessions()) {
-            if (!collectionManager.isChatInFolder(chat)) {
-                root.getChildren().add(createChatTreeItem(chat));
+        });
+        searchResultsList.setOnMouseClicked(e -> {
+            SearchHit hit = searchResultsList.getSelectionModel().getSelectedItem();
+            if (hit != null) {
+                openSearchHit(hit);
             }
-        }
-    }
-
-    private TreeItem<ChatNode> createChatTreeItem(ChatSession chat) {
-        FontIcon chatIcon = new FontIcon(Feather.MESSAGE_SQUARE);
-        chatIcon.getStyleClass().add("chat-icon");
-        return new TreeItem<>(new ChatNode(chat), chatIcon);
+        });
     }
 
-    private javafx.scene.Node createSmartCollectionIcon(SmartCollection sc) {
-        Feather icon = Feather.ACTIVITY; // Default
-        if (sc.getIcon() != null) {
-            try {
-                // Determine icon based on internal mapping or criteria
-                // sc.getIcon() returns string name like "clock"
-                switch (sc.getIcon().toLowerCase()) {
-                    case "clock":
-                        icon = Feather.CLOCK;
-                        break;
-                    case "tag":
-                        icon = Feather.TAG;
-                        break;
-                    case "cpu":
-                        icon = Feather.CPU;
-                        break;
-                    case "star":
-                        icon = Feather.STAR;
-                        break;
-                    default:
-                        icon = Feather.ACTIVITY;
-                }
-            } catch (Exception e) {
-                // ignore
+    private void runSearch(String text) {
+        int generation = ++searchGeneration;
+        ChatSearchManager.getInstance().searchAsync(text, SEARCH_RESULT_LIMIT).thenAccept(hits -> Platform.runLater(() -> {
+            if (generation != searchGeneration) {
+                return;
             }
-        } else {
-            // Fallback based on criteria
-            if (sc.getCriteria() != null) {
-                switch (sc.getCriteria()) {
-                    case DATE:
-                        icon = Feather.CLOCK;
-                        break;
-                    case KEYWORD:
-                        icon = Feather.TAG;
-                        break;
-                    case MODEL:
-                        icon = Feather.CPU;
-                        break;
-                }
-            }
-        }
-
-        FontIcon fontIcon = new FontIcon(icon);
-        fontIcon.setIconSize(16);
-        fontIcon.setIconColor(Color.web("#007AFF")); // Apple Blue by default for smart collections
-        return fontIcon;
+            // Hits in trashed chats are not shown
+            List<SearchHit> visible = hits.stream()
+                    .filter(hit -> findChatById(hit.getSessionId()) != null)
+                    .toList();
+            searchResultsList.getItems().setAll(visible);
+        }));
     }
 
-    private javafx.scene.Node createFolderIcon(ChatFolder folder) {
-        // SVG Path for a standard folder icon (Material Design style)
-        String folderPathContent = "M10 4H4c-1.1 0-1.99.9-1.99 2L2 18c0 1.1.9 2 2 2h16c1.1 0 2-.9 2-2V8c0-1.1-.9-2-2-2h-8l-2-2z";
-
-        SVGPath svgPath = new SVGPath();
-        svgPath.setContent(folderPathContent);
-
-        String colorHex = folder.getColor();
-        if (colorHex == null || colorHex.isEmpty()) {
-            colorHex = "#8E8E93"; // Default Gray
+    private void openSearchHit(SearchHit hit) {
+        ChatSession session = findChatById(hit.getSessionId());
+        if (session == null) {
+            return;
         }
-
-        try {
-            svgPath.setFill(Color.web(colorHex));
-        } catch (IllegalArgumentException e) {
-            svgPath.setFill(Color.GRAY);
+        openChat(session);
+        if (activeChatController != null) {
+            activeChatController.scrollToMessage(hit.getMessageIndex(), hit.getMessageTimestamp());
         }
+    }
 
-        // Scale it down to icon size (approx 16x16 or 20x20)
-        // The original path is on a 24x24 grid.
-        svgPath.setScaleX(0.75);
-        svgPath.setScaleY(0.75);
-
-        // Wrap in a StackPane to ensure proper sizing/alignment in the TreeCell
-        StackPane iconContainer = new StackPane(svgPath);
-        iconContainer.setPrefSize(20, 20);
-        iconContainer.setMaxSize(20, 20);
-
-        return iconContainer;
+    /** Applies pending chat, folder and collection changes to the sidebar tree now. */
+    public void refreshChatTree() {
+        chatTreeModel.sync();
     }
 
     private ChatSession findChatById(String id) {
@@ -478,7 +406,7 @@ public class MainController implements Initializable {
             Parent view = loader.load();
             AvailableModelsController controller = loader.getController();
             controller.setModelManager(this.modelManager); // Inyección de dependencia.
-            centerContentPane.getChildren().setAll(view); // Update StackPane content
+            setCenterContent(view); // Update StackPane content
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -498,7 +426,7 @@ public class MainController implements Initializable {
             homeController.setMainController(this);
         }
 
-        centerContentPane.getChildren().setAll(homeView);
+        setCenterContent(homeView);
     }
 
     /**
@@ -513,7 +441,7 @@ public class MainController implements Initializable {
             Parent view = loader.load();
             LocalModelsController controller = loader.getController();
             controller.setModelManager(this.modelManager); // Inyección de dependencia.
-            centerContentPane.getChildren().setAll(view); // Update StackPane content
+            setCenterContent(view); // Update StackPane content
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -526,7 +454,7 @@ public class MainController implements Initializable {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ui/settings_view.fxml"));
             loader.setResources(com.org.ollamafx.App.getBundle());
             Parent view = loader.load();
-            centerContentPane.getChildren().setAll(view); // Update StackPane content
+            setCenterContent(view); // Update StackPane content
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -539,7 +467,7 @@ public class MainController implements Initializable {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ui/about_view.fxml"));
             loader.setResources(com.org.ollamafx.App.getBundle());
             Parent view = loader.load();
-            centerContentPane.getChildren().setAll(view); // Update StackPane content
+            setCenterContent(view); // Update StackPane content
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -552,7 +480,7 @@ public class MainController implements Initializable {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ui/rag_library_view.fxml"));
             loader.setResources(com.org.ollamafx.App.getBundle());
             Parent view = loader.load();
-            centerContentPane.getChildren().setAll(view);
+            setCenterContent(view);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -564,7 +492,7 @@ public class MainController implements Initializable {
         com.org.ollamafx.ui.TrashView trashView = new com.org.ollamafx.ui.TrashView();
         trashView.prefWidthProperty().bind(centerContentPane.widthProperty());
         trashView.prefHeightProperty().bind(centerContentPane.heightProperty());
-        centerContentPane.getChildren().setAll(trashView);
+        setCenterContent(trashView);
     }
 
     @FXML
@@ -638,7 +566,7 @@ public class MainController implements Initializable {
             }
         }
 
-        // 2. Create the chat (This triggers listener -> refreshChatTree)
+        // 2. Create the chat (the tree picks it up on the next pulse)
         // Use a simple default name or fetch from bundle if desired.
         java.util.ResourceBundle bundle = com.org.ollamafx.App.getBundle();
         String defaultName = "New Chat";
@@ -703,14 +631,27 @@ public class MainController implements Initializable {
 
             ChatController controller = loader.getController();
             controller.setModelManager(this.modelManager); // Inject ModelManager
-            controller.setChatSession(session); // Inject Session
 
-            centerContentPane.getChildren().setAll(view); // Update StackPane content
+            setCenterContent(view); // Update StackPane content
+            controller.setChatSession(session); // Inject Session (may reattach a running generation)
+            activeChatController = controller;
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Replaces the center view, letting the current chat view release any
+     * generation it is following (the generation itself keeps running).
+     */
+    private void setCenterContent(Node view) {
+        if (activeChatController != null) {
+            activeChatController.dispose();
+            activeChatController = null;
+        }
+        centerContentPane.getChildren().setAll(view);
+    }
+
     @FXML
     public void toggleTheme() {
         if (Application.getUserAgentStylesheet()
@@ -811,6 +752,9 @@ public class MainController implements Initializable {
         }
 
         if (running) {
+            // Picks up queued downloads, including those restored from the last session
+            DownloadManager.getInstance().schedule();
+
             if (statusDot != null) {
                 statusDot.getStyleClass().removeAll("status-dot-stopped");
                 if (!statusDot.getStyleClass().contains("status-dot-running")) {
@@ -1,14 +1,14 @@
 package com.org.ollamafx.controller;
 
 import com.org.ollamafx.App;
+import com.org.ollamafx.manager.DownloadManager;
 import com.org.ollamafx.manager.ModelManager;
-import com.org.ollamafx.manager.OllamaManager;
+import com.org.ollamafx.model.DownloadJob;
 import com.org.ollamafx.model.OllamaModel;
 import atlantafx.base.theme.Styles;
 
 import javafx.animation.PauseTransition;
 import javafx.application.Application;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
@@ -33,8 +33,6 @@ import javafx.util.Duration;
 
 import java.io.IOException;
 import java.text.MessageFormat;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import javafx.geometry.Insets;
 import javafx.scene.control.Alert;
@@ -107,44 +105,8 @@ public class ModelDetailController {
             stage.setScene(scene);
             stage.setResizable(false);
 
-            Task<Void> task = new Task<>() {
-                @Override
-                protected Void call() throws Exception {
-                    updateMessage(App.getBundle().getString("download.status.process"));
-                    updateProgress(0, 100);
-
-                    OllamaManager.getInstance().pullModel(model.getName(), model.getTag(),
-                            (progress, status) -> {
-                                updateMessage(status);
-                                if (progress >= 0) {
-                                    updateProgress(progress, 100);
-                                } else {
-                                    updateProgress(-1, 100);
-                                }
-                            });
-
-                    return null;
-                }
-            };
-
-            task.setOnSucceeded(e -> {
-                if (modelManager != null) {
-                    String date = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
-                            .format(LocalDateTime.now());
-                    OllamaModel newModel = new OllamaModel(
-                            model.getName(), App.getBundle().getString("model.installed"), "N/A", model.getTag(),
-                            model.sizeProperty().get(), date,
-                            model.getContextLength(), model.getInputType());
-                    modelManager.addLocalModel(newModel);
-                }
-            });
-
-            task.setOnFailed(e -> {
-                System.err.println("Download failed: " + task.getException().getMessage());
-            });
-
-            controller.setDownloadTask(task);
-            App.getExecutorService().submit(task);
+            DownloadJob job = DownloadManager.getInstance().enqueue(model.getName(), model.getTag());
+            controller.setDownloadJob(job);
             stage.showAndWait();
 
         } catch (IOException e) {
@@ -2,10 +2,12 @@ package com.org.ollamafx.controller;
 
 import com.org.ollamafx.App;
 import com.org.ollamafx.manager.ConfigManager;
+import com.org.ollamafx.manager.DownloadManager;
 import com.org.ollamafx.manager.HardwareManager;
 import com.org.ollamafx.manager.LibraryCacheManager;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
@@ -31,6 +33,14 @@ public class SettingsController {
     @FXML
     private TextField apiTimeoutField;
     @FXML
+    private TextField keepAliveField;
+    @FXML
+    private CheckBox prefixWarmupCheck;
+    @FXML
+    private TextField downloadParallelismField;
+    @FXML
+    private TextField downloadCapField;
+    @FXML
     private Button themeButton;
     @FXML
     private ComboBox<String> languageComboBox;
@@ -69,6 +79,11 @@ public class SettingsController {
 
         hostTextField.setText(configManager.getOllamaHost());
         apiTimeoutField.setText(String.valueOf(configManager.getApiTimeout()));
+        keepAliveField.setText(configManager.getKeepAlive());
+        prefixWarmupCheck.setSelected(configManager.isPrefixWarmup());
+        downloadParallelismField.setText(String.valueOf(configManager.getDownloadParallelism()));
+        downloadCapField.setText(String.valueOf(configManager.getDownloadBandwidthCapMb()));
+        prefixWarmupCheck.selectedProperty().addListener((obs, oldVal, newVal) -> configManager.setPrefixWarmup(newVal));
 
         // Populate Hardware Info
         ramLabel.setText(HardwareManager.getRamDetails());
@@ -145,6 +160,33 @@ public class SettingsController {
                 // leave as default if invalid
             }
 
+            try {
+                int parallelism = Integer.parseInt(downloadParallelismField.getText().trim());
+                if (parallelism > 0) {
+                    configManager.setDownloadParallelism(parallelism);
+                }
+            } catch (NumberFormatException ignored) {
+                // leave as is if invalid
+            }
+            try {
+                int cap = Integer.parseInt(downloadCapField.getText().trim());
+                if (cap >= 0) {
+                    configManager.setDownloadBandwidthCapMb(cap);
+                }
+            } catch (NumberFormatException ignored) {
+                // leave as is if invalid
+            }
+            downloadParallelismField.setText(String.valueOf(configManager.getDownloadParallelism()));
+            downloadCapField.setText(String.valueOf(configManager.getDownloadBandwidthCapMb()));
+            DownloadManager.getInstance().schedule();
+
+            String newKeepAlive = keepAliveField.getText() != null ? keepAliveField.getText().trim() : "";
+            if (ConfigManager.isValidKeepAlive(newKeepAlive)) {
+                configManager.setKeepAlive(newKeepAlive);
+            } else {
+                keepAliveField.setText(configManager.getKeepAlive());
+            }
+
             com.org.ollamafx.manager.OllamaManager.getInstance().updateClient();
             statusLabel.setText("✓ " + bundle.getString("settings.status.saved"));
             statusLabel.setStyle("-fx-text-fill: -color-success-fg;");
@@ -0,0 +1,39 @@
+package com.org.ollamafx.manager;
+
+import io.github.ollama4j.models.generate.OllamaStreamHandler;
+
+/**
+ * Adapter for callers that still expect the ollama4j contract, where the
+ * handler receives the whole response so far on every token. It copies the
+ * full text per delta, so new code should implement {@link ChatStreamListener}
+ * directly.
+ */
+public class AccumulatingStreamListener implements ChatStreamListener {
+
+    private final OllamaStreamHandler handler;
+    private final StringBuilder fullContent = new StringBuilder();
+    private Throwable error;
+
+    public AccumulatingStreamListener(OllamaStreamHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void onDelta(String delta) {
+        fullContent.append(delta);
+        handler.accept(fullContent.toString());
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        this.error = error;
+    }
+
+    public String getContent() {
+        return fullContent.toString();
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
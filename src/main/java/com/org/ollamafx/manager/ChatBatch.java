@@ -0,0 +1,59 @@
+package com.org.ollamafx.manager;
+
+/**
+ * Unit of work over chats, folders and the trash.
+ *
+ * While a batch is open, ChatCollectionManager and TrashManager apply changes
+ * in memory only: their files are written and their listeners notified once,
+ * when the outermost batch closes. Chat files need nothing special, ChatManager
+ * already writes them behind.
+ *
+ * <pre>
+ * ChatBatch.run(() -> {
+ *     for (ChatSession chat : chats)
+ *         collectionManager.moveChatToFolder(chat, folder);
+ * });
+ * </pre>
+ *
+ * Batches nest. FX thread only.
+ */
+public final class ChatBatch implements AutoCloseable {
+
+    private static int depth;
+
+    private boolean closed;
+
+    private ChatBatch() {
+    }
+
+    public static ChatBatch begin() {
+        depth++;
+        return new ChatBatch();
+    }
+
+    /** Runs the work as one batch. */
+    public static void run(Runnable work) {
+        ChatBatch batch = begin();
+        try {
+            work.run();
+        } finally {
+            batch.close();
+        }
+    }
+
+    static boolean isOpen() {
+        return depth > 0;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (--depth == 0) {
+            ChatCollectionManager.getInstance().batchClosed();
+            TrashManager.getInstance().batchClosed();
+        }
+    }
+}
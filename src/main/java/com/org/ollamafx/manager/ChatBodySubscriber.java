@@ -0,0 +1,91 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * Consumes a /api/chat body as it arrives from the HttpClient. The bytes go
+ * into a non-blocking Jackson parser, which also finds the NDJSON record
+ * boundaries, so no line Strings are built. Only one buffer list is requested
+ * at a time, so a slow listener applies backpressure to the connection.
+ */
+class ChatBodySubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final ChatStreamDecoder decoder;
+    private final GenerationHandle handle;
+    private Flow.Subscription subscription;
+
+    ChatBodySubscriber(JsonFactory factory, GenerationHandle handle) throws IOException {
+        this.parser = factory.createNonBlockingByteBufferParser();
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.handle = handle;
+        this.decoder = new ChatStreamDecoder(handle::delta);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        handle.setCanceller(subscription::cancel);
+        if (!handle.isDone()) {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        try {
+            for (ByteBuffer buffer : items) {
+                if (!buffer.hasRemaining()) {
+                    continue;
+                }
+                feeder.feedInput(buffer);
+                if (decoder.drain(parser)) {
+                    subscription.cancel();
+                    finish();
+                    return;
+                }
+            }
+            subscription.request(1);
+        } catch (Exception e) {
+            subscription.cancel();
+            handle.fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        handle.fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            feeder.endOfInput();
+            decoder.drain(parser);
+        } catch (IOException e) {
+            handle.fail(e);
+            return;
+        }
+        if (decoder.isFinished()) {
+            finish();
+        } else {
+            handle.fail(new IOException("Stream closed before the response was complete"));
+        }
+    }
+
+    private void finish() {
+        if (decoder.getError() != null) {
+            handle.fail(new Exception(decoder.getError()));
+        } else {
+            handle.complete(decoder.getStats());
+        }
+    }
+}
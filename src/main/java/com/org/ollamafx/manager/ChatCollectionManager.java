@@ -6,15 +6,22 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.org.ollamafx.model.ChatFolder;
 import com.org.ollamafx.model.ChatSession;
 import com.org.ollamafx.model.SmartCollection;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.util.Duration;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public class ChatCollectionManager {
@@ -24,9 +31,16 @@ public class ChatCollectionManager {
     private final File storageFile;
     private final ObjectMapper objectMapper;
     private final List<Runnable> updateListeners = new ArrayList<>();
+    // Deferred while a ChatBatch is open
+    private boolean collectionsSavePending;
+    private boolean smartSavePending;
+    private boolean updatePending;
 
     private final ObservableList<SmartCollection> smartCollections;
     private final File smartStorageFile;
+    private final SmartCollectionViews smartViews = new SmartCollectionViews();
+    /** Re-evaluates relative DATE collections ("last 7 days") when the day changes. */
+    private final PauseTransition midnightRefresh = new PauseTransition();
 
     private ChatCollectionManager() {
         folders = FXCollections.observableArrayList();
@@ -46,6 +60,7 @@ public class ChatCollectionManager {
 
         loadCollections();
         loadSmartCollections(); // Load smart collections
+        setupSmartViews();
     }
 
     public static synchronized ChatCollectionManager getInstance() {
@@ -78,11 +93,29 @@ public class ChatCollectionManager {
     }
 
     private void notifyUpdate() {
+        if (ChatBatch.isOpen()) {
+            updatePending = true;
+            return;
+        }
         for (Runnable listener : updateListeners) {
             listener.run();
         }
     }
 
+    /** Writes and notifies what was deferred while the batch was open. */
+    void batchClosed() {
+        if (collectionsSavePending) {
+            saveCollections();
+        }
+        if (smartSavePending) {
+            saveSmartCollections();
+        }
+        if (updatePending) {
+            updatePending = false;
+            notifyUpdate();
+        }
+    }
+
     // --- Folder Management ---
 
     public ChatFolder createFolder(String name) {
@@ -167,6 +200,15 @@ public class ChatCollectionManager {
         }
     }
 
+    /** Moves several chats at once; null moves them to Uncategorized. */
+    public void moveChatsToFolder(Collection<ChatSession> chats, ChatFolder targetFolder) {
+        ChatBatch.run(() -> {
+            for (ChatSession chat : chats) {
+                moveChatToFolder(chat, targetFolder);
+            }
+        });
+    }
+
     public boolean isChatInFolder(ChatSession chat) {
         return chat != null && chatFolderMap.containsKey(chat.getId().toString());
     }
@@ -189,10 +231,11 @@ public class ChatCollectionManager {
 
     // --- Smart Collection Management ---
 
-    public SmartCollection createSmartCollection(String name, SmartCollection.Criteria criteria, String value,
+    public SmartCollection createSmartCollection(String name, List<SmartCollection.Condition> conditions,
             String icon) {
-        SmartCollection sc = new SmartCollection(name, criteria, value, icon);
+        SmartCollection sc = new SmartCollection(name, conditions, icon);
         smartCollections.add(sc);
+        smartViews.rebuild(sc);
         saveSmartCollections();
         notifyUpdate();
         return sc;
@@ -200,57 +243,116 @@ public class ChatCollectionManager {
 
     public void deleteSmartCollection(SmartCollection sc) {
         smartCollections.remove(sc);
+        smartViews.remove(sc);
         saveSmartCollections();
         notifyUpdate();
     }
 
+    /** Saves a collection whose conditions did not change (e.g. expanded). */
     public void updateSmartCollection(SmartCollection sc) {
         saveSmartCollections();
         notifyUpdate();
     }
 
+    /** Applies an edit of the collection and recomputes its chats. */
+    public void redefineSmartCollection(SmartCollection sc, String name, List<SmartCollection.Condition> conditions,
+            String icon) {
+        sc.setName(name);
+        sc.setConditions(conditions);
+        sc.setIcon(icon);
+        smartViews.rebuild(sc);
+        saveSmartCollections();
+        notifyUpdate();
+    }
+
+    /** Chats in the collection, kept up to date as chats change; no scan of the chat list. */
     public List<ChatSession> getChatsForSmartCollection(SmartCollection sc) {
-        List<ChatSession> allChats = ChatManager.getInstance().getChatSessions();
-        List<ChatSession> filtered = new ArrayList<>();
-
-        if (sc == null || sc.getCriteria() == null)
-            return filtered;
-
-        switch (sc.getCriteria()) {
-            case KEYWORD:
-                String keyword = sc.getValue().toLowerCase();
-                for (ChatSession chat : allChats) {
-                    // Search in title and maybe content? For now just title (name)
-                    if (chat.getName() != null && chat.getName().toLowerCase().contains(keyword)) {
-                        filtered.add(chat);
-                    }
+        if (sc == null)
+            return new ArrayList<>();
+        return smartViews.getMembers(sc);
+    }
+
+    private void setupSmartViews() {
+        // Before the first keyword lookups, so the index opening after them is not missed
+        ChatSearchManager.getInstance().addIndexListener(this::onChatIndexed);
+        ChatManager chatManager = ChatManager.getInstance();
+        for (ChatSession chat : chatManager.getChatSessions()) {
+            smartViews.chatAdded(List.of(), chat);
+        }
+        for (SmartCollection sc : smartCollections) {
+            smartViews.rebuild(sc);
+        }
+
+        chatManager.getChatSessions().addListener((ListChangeListener<ChatSession>) c -> {
+            boolean changed = false;
+            while (c.next()) {
+                // A re-sort (pin) shows up as removed and added again
+                for (ChatSession chat : c.getRemoved()) {
+                    changed |= smartViews.chatRemoved(chat);
                 }
-                break;
-            case MODEL:
-                String model = sc.getValue();
-                for (ChatSession chat : allChats) {
-                    if (chat.getModelName() != null && chat.getModelName().equalsIgnoreCase(model)) {
-                        filtered.add(chat);
-                    }
+                for (ChatSession chat : c.getAddedSubList()) {
+                    changed |= smartViews.chatAdded(smartCollections, chat);
                 }
-                break;
-            case DATE:
-                // Value might be "Today", "Last 7 Days", etc.
-                // Parsing this requires some logic.
-                // For simplified implementation, let's assume value is "7" for days.
-                try {
-                    int days = Integer.parseInt(sc.getValue());
-                    LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
-                    // ChatSession needs a creation date or last modified date.
-                    // Assuming ChatSession has access to file timestamp or similar.
-                    // If ChatSession structure doesn't support it, we might need to skip or infer.
-                    // For now, let's skip implementation or add TODO.
-                } catch (NumberFormatException e) {
-                    // handle specific strings like "Today"
+            }
+            if (changed) {
+                notifyUpdate();
+            }
+        });
+        chatManager.addChangeListener(chat -> {
+            if (smartViews.chatChanged(smartCollections, chat)) {
+                notifyUpdate();
+            }
+        });
+        scheduleMidnightRefresh();
+    }
+
+    /** Indexer thread: refreshes the content matches of keyword collections for the chat. */
+    private void onChatIndexed(String sessionId) {
+        if (sessionId == null) {
+            // Index opened or rebuilt
+            Platform.runLater(() -> {
+                for (SmartCollection sc : smartCollections) {
+                    smartViews.rebuild(sc);
                 }
-                break;
+                notifyUpdate();
+            });
+            return;
+        }
+        Set<String> keywords = smartViews.keywords();
+        if (keywords.isEmpty()) {
+            return;
+        }
+        Map<String, Boolean> matches = new HashMap<>();
+        for (String keyword : keywords) {
+            matches.put(keyword, ChatSearchManager.getInstance().sessionMatches(sessionId, keyword));
         }
-        return filtered;
+        Platform.runLater(() -> {
+            smartViews.setContentMatches(sessionId, matches);
+            ChatSession chat = smartViews.getChat(sessionId);
+            if (chat != null && smartViews.chatChanged(smartCollections, chat)) {
+                notifyUpdate();
+            }
+        });
+    }
+
+    private void scheduleMidnightRefresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime midnight = LocalDate.now().plusDays(1).atStartOfDay();
+        midnightRefresh.setDuration(Duration.millis(java.time.Duration.between(now, midnight).toMillis() + 1000));
+        midnightRefresh.setOnFinished(e -> {
+            boolean relative = false;
+            for (SmartCollection sc : smartCollections) {
+                if (SmartCollectionViews.isRelative(sc)) {
+                    smartViews.rebuild(sc);
+                    relative = true;
+                }
+            }
+            if (relative) {
+                notifyUpdate();
+            }
+            scheduleMidnightRefresh();
+        });
+        midnightRefresh.playFromStart();
     }
 
     // ... existing folder logic ...
@@ -258,6 +360,10 @@ public class ChatCollectionManager {
     // --- Persistence ---
 
     private void saveCollections() {
+        collectionsSavePending = ChatBatch.isOpen();
+        if (collectionsSavePending) {
+            return;
+        }
         try {
             objectMapper.writeValue(storageFile, new ArrayList<>(folders));
         } catch (IOException e) {
@@ -266,6 +372,10 @@ public class ChatCollectionManager {
     }
 
     private void saveSmartCollections() {
+        smartSavePending = ChatBatch.isOpen();
+        if (smartSavePending) {
+            return;
+        }
         try {
             objectMapper.writeValue(smartStorageFile, new ArrayList<>(smartCollections));
         } catch (IOException e) {
@@ -0,0 +1,91 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.org.ollamafx.model.ChatSession;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ~/.OllamaFX/chats/index.json: the header of every stored chat (name, model,
+ * pinned, dates, parameters) plus its message count. It is enough to list the
+ * chats at startup without opening a single journal.
+ *
+ * The index is rewritten after the journals it describes, so a journal that is
+ * newer than the index has changes the index may not have seen.
+ */
+class ChatIndex {
+    private static final Logger LOGGER = Logger.getLogger(ChatIndex.class.getName());
+
+    private final File file;
+    private final ObjectMapper metaMapper;
+
+    ChatIndex(File file, ObjectMapper mapper) {
+        this.file = file;
+        this.metaMapper = mapper.copy().addMixIn(ChatSession.class, ChatJournal.MetaMixin.class)
+                .disable(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /** Modification time of the index, 0 if there is none. */
+    long lastModified() {
+        return file.lastModified();
+    }
+
+    /**
+     * Reads the index as chats without their messages, by id. Returns an empty
+     * map if there is no index or it cannot be read.
+     */
+    Map<UUID, ChatSession> read() {
+        Map<UUID, ChatSession> sessions = new HashMap<>();
+        if (!file.exists()) {
+            return sessions;
+        }
+        try {
+            for (JsonNode node : metaMapper.readTree(file)) {
+                if (!(node instanceof ObjectNode)) {
+                    continue;
+                }
+                ObjectNode entry = (ObjectNode) node;
+                int messageCount = entry.path("messageCount").asInt();
+                entry.remove("messageCount");
+                ChatSession session = metaMapper.treeToValue(entry, ChatSession.class);
+                session.unloadMessages(messageCount, null);
+                sessions.put(session.getId(), session);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read the chat index, chats will be read in full", e);
+            sessions.clear();
+        }
+        return sessions;
+    }
+
+    void write(Collection<ChatSession> sessions) throws IOException {
+        ArrayNode array = metaMapper.createArrayNode();
+        for (ChatSession session : sessions) {
+            ObjectNode entry = metaMapper.valueToTree(session);
+            entry.put("messageCount", session.getMessageCount());
+            array.add(entry);
+        }
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        metaMapper.writeValue(temp, array);
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.org.ollamafx.model.ChatMessage;
+import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.GenerationStats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Append-only file of one chat, ~/.OllamaFX/chats/&lt;id&gt;.journal. Each line is
+ * a JSON record:
+ *
+ * <pre>
+ * {"t":"meta","v":1,"s":{...}}     session fields except the messages; the first line is the header
+ * {"t":"msg","i":3,"m":{...}}      message 3 added or replaced
+ * {"t":"append","i":3,"d":"..."}   text appended to message 3 (streaming checkpoints)
+ * {"t":"trunc","n":3}              messages from index 3 on removed
+ * </pre>
+ *
+ * Replaying the lines in order rebuilds the session; a last line cut short by
+ * a crash is ignored. {@link #sync(ChatSession)} compares the session with
+ * what was last written and appends only the difference, so a new turn never
+ * rewrites older messages. Superseded records are dropped by
+ * {@link #compact()} once they make up most of the file.
+ *
+ * While a chat's messages are not in memory the journal is released: it only
+ * knows the session header, and only header changes can be appended.
+ *
+ * Writes come from ChatManager's writer thread; loading messages may happen on
+ * any thread, so every method locks the journal.
+ */
+class ChatJournal {
+
+    static final String EXTENSION = ".journal";
+    private static final int VERSION = 1;
+
+    /** Compact once superseded records are more than this share of the file... */
+    private static final double COMPACT_GARBAGE_RATIO = 0.5;
+    /** ...and the file is at least this big. */
+    private static final long COMPACT_MIN_BYTES = 64 * 1024;
+
+    /** Serializes a session without its messages. */
+    @JsonIgnoreProperties("messages")
+    abstract static class MetaMixin {
+    }
+
+    /** What was last written for one message. Holds references, not copies. */
+    private static class Entry {
+        ChatMessage message;
+        String role;
+        String timestamp;
+        String content;
+        List<String> imageRefs;
+        GenerationStats stats;
+        long bytes; // Size of the records that make up this message in the file
+
+        Entry(ChatMessage message) {
+            this.message = message;
+            capture();
+        }
+
+        void capture() {
+            role = message.getRole();
+            timestamp = message.getTimestamp();
+            content = message.getContent();
+            imageRefs = message.getImageRefs();
+            stats = message.getStats();
+        }
+
+        boolean sameExceptContent(ChatMessage m) {
+            return message == m && Objects.equals(role, m.getRole()) && Objects.equals(timestamp, m.getTimestamp())
+                    && imageRefs == m.getImageRefs() && stats == m.getStats();
+        }
+    }
+
+    private final File file;
+    private final ObjectMapper mapper;
+    private final ObjectWriter lineWriter;
+    private final ObjectWriter metaWriter;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private String meta;
+    private boolean attached; // entries describe the messages in memory
+    private long metaBytes;
+    private long fileBytes;
+
+    // Byte accounting filled in by read()
+    private long lastMetaBytes;
+    private final List<Long> replayBytes = new ArrayList<>();
+    private boolean torn;
+
+    ChatJournal(File file, ObjectMapper mapper) {
+        this.file = file;
+        this.mapper = mapper;
+        this.lineWriter = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.metaWriter = mapper.copy().addMixIn(ChatSession.class, MetaMixin.class).writer()
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads the file and returns the session it describes, or null if the file
+     * has no valid header. Afterwards the journal tracks the returned session.
+     */
+    synchronized ChatSession replay() throws IOException {
+        ChatSession session = read();
+        entries.clear();
+        meta = null;
+        if (session == null) {
+            return null;
+        }
+        meta = metaWriter.writeValueAsString(session);
+        metaBytes = lastMetaBytes;
+        attached = true;
+        for (int i = 0; i < session.getMessages().size(); i++) {
+            Entry entry = new Entry(session.getMessages().get(i));
+            entry.bytes = replayBytes.get(i);
+            entries.add(entry);
+        }
+        fileBytes = file.length();
+        if (torn) {
+            // Appending after a partial line would corrupt the next record
+            rewrite(session);
+        }
+        return session;
+    }
+
+    private ChatSession read() throws IOException {
+        replayBytes.clear();
+        torn = false;
+        JsonNode metaNode = null;
+        List<ChatMessage> messages = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                long bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+                JsonNode record;
+                try {
+                    record = mapper.readTree(line);
+                } catch (IOException e) {
+                    torn = true; // Write cut short at the end of the file
+                    break;
+                }
+                switch (record.path("t").asText()) {
+                    case "meta":
+                        metaNode = record.get("s");
+                        lastMetaBytes = bytes;
+                        break;
+                    case "msg": {
+                        int i = record.path("i").asInt();
+                        ChatMessage message = mapper.treeToValue(record.get("m"), ChatMessage.class);
+                        if (i < messages.size()) {
+                            messages.set(i, message);
+                            replayBytes.set(i, bytes);
+                        } else if (i == messages.size()) {
+                            messages.add(message);
+                            replayBytes.add(bytes);
+                        }
+                        break;
+                    }
+                    case "append": {
+                        int i = record.path("i").asInt();
+                        if (i < messages.size()) {
+                            messages.get(i).appendContent(record.path("d").asText());
+                            replayBytes.set(i, replayBytes.get(i) + bytes);
+                        }
+                        break;
+                    }
+                    case "trunc": {
+                        int n = record.path("n").asInt();
+                        while (messages.size() > n) {
+                            messages.remove(messages.size() - 1);
+                            replayBytes.remove(replayBytes.size() - 1);
+                        }
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            }
+        }
+        if (metaNode == null) {
+            return null;
+        }
+        ChatSession session = mapper.treeToValue(metaNode, ChatSession.class);
+        session.setMessages(messages);
+        return session;
+    }
+
+    /**
+     * Takes over a session whose messages are still on disk, given the header it
+     * was restored with. The journal stays released until the messages load.
+     */
+    synchronized void adoptUnloaded(ChatSession session) throws IOException {
+        entries.clear();
+        attached = false;
+        meta = metaWriter.writeValueAsString(session);
+        fileBytes = file.length();
+    }
+
+    /** Whether the file has exactly these messages, with their current content and stats. */
+    synchronized boolean isWritten(List<ChatMessage> messages) {
+        if (!attached || entries.size() != messages.size()) {
+            return false;
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            Entry entry = entries.get(i);
+            ChatMessage message = messages.get(i);
+            if (!entry.sameExceptContent(message) || !Objects.equals(entry.content, message.getContent())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Forgets the messages so they can be garbage collected; the header is kept. */
+    synchronized void release() {
+        entries.clear();
+        attached = false;
+    }
+
+    /**
+     * Brings the file up to date with the session, appending only what changed.
+     *
+     * @return indexes of the messages written, or null if the messages were not
+     *         in memory and only the header was checked
+     */
+    synchronized List<Integer> sync(ChatSession session) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!session.isMessagesLoaded() && meta != null && file.exists()) {
+            appendMeta(session, lines);
+            append(lines);
+            return null;
+        }
+        // Loading the messages here replays this journal and attaches it
+        List<ChatMessage> messages = session.getMessagesSnapshot();
+        List<Integer> changed = new ArrayList<>();
+        if (meta == null || !attached || !file.exists()) {
+            rewrite(session);
+            for (int i = 0; i < entries.size(); i++) {
+                changed.add(i);
+            }
+            return changed;
+        }
+
+        appendMeta(session, lines);
+
+        if (messages.size() < entries.size()) {
+            ObjectNode trunc = mapper.createObjectNode();
+            trunc.put("t", "trunc");
+            trunc.put("n", messages.size());
+            lines.add(lineWriter.writeValueAsString(trunc));
+            entries.subList(messages.size(), entries.size()).clear();
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            Entry entry = i < entries.size() ? entries.get(i) : null;
+            if (entry != null && entry.sameExceptContent(message)) {
+                String content = message.getContent();
+                String written = entry.content != null ? entry.content : "";
+                if (Objects.equals(content, entry.content)) {
+                    continue;
+                }
+                if (content != null && content.length() > written.length() && content.startsWith(written)) {
+                    ObjectNode append = mapper.createObjectNode();
+                    append.put("t", "append");
+                    append.put("i", i);
+                    append.put("d", content.substring(written.length()));
+                    String line = lineWriter.writeValueAsString(append);
+                    lines.add(line);
+                    changed.add(i);
+                    entry.content = content;
+                    entry.bytes += byteLength(line);
+                    continue;
+                }
+            }
+            if (entry == null) {
+                entry = new Entry(message);
+                entries.add(entry);
+            } else {
+                entry.message = message;
+                entry.capture();
+            }
+            String line = messageLine(i, entry.message, entry.content);
+            lines.add(line);
+            changed.add(i);
+            entry.bytes = byteLength(line);
+        }
+
+        append(lines);
+        return changed;
+    }
+
+    private void appendMeta(ChatSession session, List<String> lines) throws IOException {
+        String newMeta = metaWriter.writeValueAsString(session);
+        if (!newMeta.equals(meta)) {
+            String line = metaLine(newMeta);
+            lines.add(line);
+            meta = newMeta;
+            metaBytes = byteLength(line);
+        }
+    }
+
+    private void append(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                out.write(line);
+                out.write('\n');
+                fileBytes += byteLength(line);
+            }
+        }
+    }
+
+    /** True once superseded records take up enough of the file to be worth a rewrite. */
+    synchronized boolean needsCompaction() {
+        if (!attached || fileBytes < COMPACT_MIN_BYTES) {
+            return false;
+        }
+        long live = metaBytes;
+        for (Entry entry : entries) {
+            live += entry.bytes;
+        }
+        return (double) (fileBytes - live) / fileBytes > COMPACT_GARBAGE_RATIO;
+    }
+
+    /**
+     * Rewrites the file with one record per message. Works from the file itself,
+     * so it does not need the messages to be in memory.
+     */
+    synchronized void compact() throws IOException {
+        ChatSession onDisk = attached ? read() : null;
+        if (onDisk == null) {
+            return;
+        }
+        List<ChatMessage> messages = onDisk.getMessages();
+        List<String> lines = new ArrayList<>();
+        lines.add(metaLine(meta));
+        for (int i = 0; i < messages.size(); i++) {
+            lines.add(messageLine(i, messages.get(i), messages.get(i).getContent()));
+        }
+        writeAtomically(lines);
+        metaBytes = byteLength(lines.get(0));
+        for (int i = 0; i < entries.size() && i < messages.size(); i++) {
+            entries.get(i).bytes = byteLength(lines.get(i + 1));
+        }
+    }
+
+    /** Writes the whole session as a fresh journal. */
+    synchronized void rewrite(ChatSession session) throws IOException {
+        List<ChatMessage> messages = session.getMessagesSnapshot();
+        List<String> lines = new ArrayList<>();
+        meta = metaWriter.writeValueAsString(session);
+        lines.add(metaLine(meta));
+        entries.clear();
+        for (int i = 0; i < messages.size(); i++) {
+            Entry entry = new Entry(messages.get(i));
+            String line = messageLine(i, entry.message, entry.content);
+            lines.add(line);
+            entry.bytes = byteLength(line);
+            entries.add(entry);
+        }
+        writeAtomically(lines);
+        metaBytes = byteLength(lines.get(0));
+        attached = true;
+    }
+
+    /**
+     * Reads the messages from the file without attaching them, for callers that
+     * only need to look at them once.
+     */
+    synchronized List<ChatMessage> readMessages() throws IOException {
+        ChatSession onDisk = read();
+        return onDisk != null ? onDisk.getMessages() : new ArrayList<>();
+    }
+
+    /** Forgets what was written, so the next sync rewrites the whole file. */
+    synchronized void invalidate() {
+        entries.clear();
+        attached = false;
+        meta = null;
+    }
+
+    synchronized void delete() {
+        if (file.exists()) {
+            file.delete();
+        }
+        entries.clear();
+        attached = false;
+        meta = null;
+    }
+
+    private void writeAtomically(List<String> lines) throws IOException {
+        Path target = file.toPath();
+        Path temp = new File(file.getParentFile(), file.getName() + ".tmp").toPath();
+        long bytes = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                out.write(line);
+                out.write('\n');
+                bytes += byteLength(line);
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        fileBytes = bytes;
+    }
+
+    private String metaLine(String metaJson) {
+        return "{\"t\":\"meta\",\"v\":" + VERSION + ",\"s\":" + metaJson + "}";
+    }
+
+    /**
+     * The content is passed separately: a streaming message may grow while it is
+     * serialized, and the record must hold exactly the text the entry remembers.
+     */
+    private String messageLine(int index, ChatMessage message, String content) throws IOException {
+        ObjectNode node = mapper.valueToTree(message);
+        if (content != null) {
+            node.put("content", content);
+        } else {
+            node.putNull("content");
+        }
+        return "{\"t\":\"msg\",\"i\":" + index + ",\"m\":" + lineWriter.writeValueAsString(node) + "}";
+    }
+
+    private static long byteLength(String line) {
+        return line.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+}
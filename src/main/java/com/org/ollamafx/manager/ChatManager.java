@@ -1,18 +1,83 @@
 package com.org.ollamafx.manager;
 
+import com.org.ollamafx.model.ChatMessage;
 import com.org.ollamafx.model.ChatSession;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Chat sessions and their files under ~/.OllamaFX/chats.
+ *
+ * Changes are not written where they happen: callers mark the session dirty
+ * and a background writer saves the dirty sessions once the debounce window
+ * has passed, so a burst of edits costs one write per changed session.
+ * {@link #flush()} writes whatever is still pending and must be called on
+ * shutdown.
+ *
+ * Each chat is stored as an append-only {@link ChatJournal}; a write appends
+ * only what changed since the previous one, and journals are compacted in the
+ * background once they carry too many superseded records. Chats saved as plain
+ * &lt;id&gt;.json by older versions are converted the first time they load.
+ *
+ * Images are not part of the chat files: messages refer to them in the
+ * {@link ImageStore}, and images older versions stored inline are moved there
+ * when their chat is read.
+ *
+ * At startup the sessions come from {@link ChatIndex} without their messages.
+ * Messages are read from the journal when a chat is opened ({@link #openChat})
+ * or first used, and dropped again when too many chats are loaded or the heap
+ * is nearly full.
+ */
 public class ChatManager {
+    private static final Logger LOGGER = Logger.getLogger(ChatManager.class.getName());
+
+    /** Time a dirty session waits for further changes before it is written. */
+    private static final long WRITE_DELAY_MS = 500;
+    private static final long FLUSH_TIMEOUT_MS = 5_000;
+    /** The index trails the journals; it is only needed at the next startup. */
+    private static final long INDEX_WRITE_DELAY_MS = 2_000;
+    /** Deletions in a row are followed by a single sweep of the image store. */
+    private static final long IMAGE_SWEEP_DELAY_MS = 5_000;
+    /** Chats kept with their messages in memory; the least recently opened go first. */
+    private static final int MAX_LOADED_CHATS = 8;
+    /** Share of the maximum heap above which every chat but the latest is unloaded. */
+    private static final double MEMORY_PRESSURE_RATIO = 0.8;
+
     private static ChatManager instance;
     private final ObservableList<ChatSession> chatSessions;
     private final SortedList<ChatSession> sortedSessions;
@@ -20,6 +85,26 @@ public class ChatManager {
     private final File storageDir;
     private final ObjectMapper objectMapper;
 
+    private final ScheduledExecutorService writer;
+    /** Sessions changed since their last write, guarded by itself. */
+    private final Set<ChatSession> dirty = new LinkedHashSet<>();
+    private ScheduledFuture<?> pendingWrite; // guarded by dirty
+    private final Map<UUID, ChatJournal> journals = new ConcurrentHashMap<>();
+    /** Chats still stored as &lt;id&gt;.json; the file is removed once the journal exists. */
+    private final Set<UUID> legacyFiles = ConcurrentHashMap.newKeySet();
+    /** Every chat with a file, including those in the trash: the content of the index. */
+    private final Map<UUID, ChatSession> stored = new ConcurrentHashMap<>();
+    /** Journals that could not be read; they are left alone rather than overwritten. */
+    private final Set<UUID> unreadable = ConcurrentHashMap.newKeySet();
+    /** Chats with messages in memory, least recently used first. Guarded by itself. */
+    private final Map<ChatSession, Boolean> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    /** Chats shown in a view; never unloaded. */
+    private final Set<ChatSession> openChats = ConcurrentHashMap.newKeySet();
+    private final ChatIndex index;
+    private ScheduledFuture<?> pendingIndexWrite; // guarded by dirty
+    private ScheduledFuture<?> pendingImageSweep; // guarded by dirty
+    private final List<Consumer<ChatSession>> changeListeners = new CopyOnWriteArrayList<>();
+
     private ChatManager() {
         chatSessions = FXCollections.observableArrayList();
 
@@ -41,6 +126,13 @@ public class ChatManager {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        index = new ChatIndex(new File(storageDir, "index.json"), objectMapper);
+
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-writer");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     public static synchronized ChatManager getInstance() {
@@ -58,7 +150,7 @@ public class ChatManager {
         ChatSession session = new ChatSession(name);
         setupSessionListeners(session);
         chatSessions.add(session);
-        saveChat(session); // Save immediately
+        markDirty(session);
         return session;
     }
 
@@ -68,10 +160,10 @@ public class ChatManager {
             if (index >= 0) {
                 chatSessions.set(index, session); // Force re-sort
             }
-            saveChat(session); // Save on pin change
+            markDirty(session); // Save on pin change
         });
-        session.nameProperty().addListener((obs, oldVal, newVal) -> saveChat(session)); // Save on rename
-        session.modelNameProperty().addListener((obs, oldVal, newVal) -> saveChat(session)); // Save on model change
+        session.nameProperty().addListener((obs, oldVal, newVal) -> markDirty(session)); // Save on rename
+        session.modelNameProperty().addListener((obs, oldVal, newVal) -> markDirty(session)); // Save on model change
     }
 
     public void deleteChat(ChatSession session) {
@@ -87,12 +179,32 @@ public class ChatManager {
         chatSessions.remove(session);
     }
 
+    /** Remueve varios chats con un solo cambio en la lista. */
+    public void removeChatsFromList(Collection<ChatSession> sessions) {
+        Set<ChatSession> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(sessions);
+        chatSessions.removeIf(toRemove::contains);
+    }
+
     /** Restaura un chat a la lista activa (usado por TrashManager al restaurar). */
     public void restoreChatToList(ChatSession session) {
-        if (!chatSessions.contains(session)) {
-            setupSessionListeners(session);
-            chatSessions.add(session);
-            saveChat(session);
+        restoreChatsToList(List.of(session));
+    }
+
+    /** Restaura varios chats con un solo cambio en la lista. */
+    public void restoreChatsToList(Collection<ChatSession> sessions) {
+        Set<ChatSession> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+        listed.addAll(chatSessions);
+        List<ChatSession> toAdd = new ArrayList<>();
+        for (ChatSession session : sessions) {
+            if (listed.add(session)) {
+                setupSessionListeners(session);
+                toAdd.add(session);
+            }
+        }
+        chatSessions.addAll(toAdd);
+        for (ChatSession session : toAdd) {
+            markDirty(session);
         }
     }
 
@@ -101,9 +213,84 @@ public class ChatManager {
      * permanentemente).
      */
     public void physicallyDeleteChat(ChatSession session) {
-        File file = new File(storageDir, session.getId().toString() + ".json");
-        if (file.exists())
-            file.delete();
+        physicallyDeleteChats(List.of(session));
+    }
+
+    /** Borra los archivos de varios chats en una sola pasada del writer. */
+    public void physicallyDeleteChats(Collection<ChatSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        List<ChatSession> toDelete = new ArrayList<>(sessions);
+        synchronized (dirty) {
+            dirty.removeAll(toDelete);
+        }
+        // On the writer so a write already in progress cannot bring the file back
+        writer.execute(() -> {
+            for (ChatSession session : toDelete) {
+                deleteFiles(session.getId());
+            }
+            scheduleIndexWrite();
+            scheduleImageSweep();
+        });
+        synchronized (loaded) {
+            for (ChatSession session : toDelete) {
+                loaded.remove(session);
+            }
+        }
+    }
+
+    /** Writer thread. */
+    private void deleteFiles(UUID id) {
+        stored.remove(id);
+        unreadable.remove(id);
+        ChatJournal journal = journals.remove(id);
+        if (journal != null) {
+            journal.delete();
+        } else {
+            new File(storageDir, id.toString() + ChatJournal.EXTENSION).delete();
+        }
+        legacyFiles.remove(id);
+        ChatSearchManager.getInstance().sessionDeleted(id.toString());
+        File legacy = legacyFile(id);
+        if (legacy.exists())
+            legacy.delete();
+    }
+
+    /** The chat with the id among those with a file, listed or in the trash. */
+    ChatSession getStoredChat(String id) {
+        try {
+            return stored.get(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gives a chat that exists only in memory (e.g. embedded in an old
+     * trash.json) a file of its own, and waits until it is written. Chats that
+     * already have one are left alone. Returns whether the chat has a file.
+     */
+    boolean adoptStoredChat(ChatSession session) {
+        if (stored.putIfAbsent(session.getId(), session) != null) {
+            return true;
+        }
+        try {
+            boolean written = writer.submit(() -> {
+                writeChat(session);
+                scheduleIndexWrite();
+                return journals.containsKey(session.getId());
+            }).get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (written) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Failed to save chat " + session.getId(), e);
+        }
+        markDirty(session); // Try again in the background
+        return false;
     }
 
     public void renameChat(ChatSession session, String newName) {
@@ -116,32 +303,454 @@ public class ChatManager {
         // Listener handles save
     }
 
+    /**
+     * Schedules the session to be written. Cheap enough to call on every change;
+     * writes are coalesced on the background writer.
+     */
+    public void markDirty(ChatSession session) {
+        if (session == null) {
+            return;
+        }
+        fireChanged(session);
+        requeue(session);
+    }
+
+    /** Puts the session back in the set to write, without telling the listeners again. */
+    private void requeue(ChatSession session) {
+        synchronized (dirty) {
+            dirty.add(session);
+            if (pendingWrite == null) {
+                pendingWrite = writer.schedule(this::writeDirty, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Listens for changes to any chat (header or messages), on the FX thread.
+     * Additions and removals are seen on {@link #getChatSessions()}.
+     */
+    public void addChangeListener(Consumer<ChatSession> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged(ChatSession session) {
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> fireChanged(session));
+            return;
+        }
+        for (Consumer<ChatSession> listener : changeListeners) {
+            listener.accept(session);
+        }
+    }
+
+    /** Marks every session dirty. Prefer {@link #markDirty(ChatSession)}. */
     public void saveChats() {
         for (ChatSession session : chatSessions) {
-            saveChat(session);
+            markDirty(session);
+        }
+    }
+
+    /** Writes all pending sessions and the index, and waits for the writer. Called on shutdown. */
+    public void flush() {
+        try {
+            writer.submit(() -> {
+                writeDirty();
+                writeIndex();
+            }).get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Failed to flush chats", e);
+        }
+    }
+
+    /** Runs on the writer thread. */
+    private void writeDirty() {
+        List<ChatSession> batch;
+        synchronized (dirty) {
+            batch = new ArrayList<>(dirty);
+            dirty.clear();
+            pendingWrite = null;
+        }
+        if (!batch.isEmpty()) {
+            scheduleIndexWrite();
+        }
+        for (ChatSession session : batch) {
+            try {
+                writeChat(session);
+            } catch (Exception e) {
+                // The journal no longer knows what reached the disk: rewrite it next time
+                ChatJournal journal = journals.get(session.getId());
+                if (journal != null) {
+                    journal.invalidate();
+                }
+                LOGGER.log(Level.WARNING, "Failed to save chat " + session.getId(), e);
+                // Try again on the next pass, or the change would wait for the next edit of the chat
+                requeue(session);
+            }
+        }
+    }
+
+    private void writeChat(ChatSession session) throws IOException {
+        UUID id = session.getId();
+        if (unreadable.contains(id)) {
+            LOGGER.warning("Not saving chat " + id + ": its journal could not be read");
+            return;
+        }
+        stored.put(id, session);
+        ChatJournal journal = journals.computeIfAbsent(id, this::newJournal);
+        List<Integer> changed = journal.sync(session);
+        if (changed != null) {
+            ChatSearchManager.getInstance().messagesChanged(session, changed);
+        }
+        if (legacyFiles.remove(id)) {
+            legacyFile(id).delete();
+        }
+        if (journal.needsCompaction()) {
+            writer.execute(() -> compact(journal));
+        }
+    }
+
+    /** Runs on the writer thread, after the writes that made it necessary. */
+    private void compact(ChatJournal journal) {
+        if (!journals.containsValue(journal) || !journal.needsCompaction()) {
+            return; // Deleted or already compacted
+        }
+        try {
+            journal.compact();
+            scheduleIndexWrite(); // The journal is now newer than the index
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to compact " + journal.getFile().getName(), e);
+        }
+    }
+
+    private void scheduleIndexWrite() {
+        synchronized (dirty) {
+            if (pendingIndexWrite == null) {
+                pendingIndexWrite = writer.schedule(this::writeIndex, INDEX_WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void scheduleImageSweep() {
+        synchronized (dirty) {
+            if (pendingImageSweep == null) {
+                pendingImageSweep = writer.schedule(this::sweepImages, IMAGE_SWEEP_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Runs on the writer thread: deletes the images no stored chat, listed or
+     * in the trash, refers to any more. Skipped if any chat could not be read,
+     * since its images are unknown.
+     */
+    private void sweepImages() {
+        synchronized (dirty) {
+            pendingImageSweep = null;
+        }
+        if (!unreadable.isEmpty()) {
+            return;
+        }
+        Set<String> referenced = new HashSet<>();
+        try {
+            for (ChatSession session : stored.values()) {
+                for (ChatMessage message : storedMessages(session)) {
+                    if (message.getImageRefs() != null) {
+                        referenced.addAll(message.getImageRefs());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Not removing unused images: a chat could not be read", e);
+            return;
+        }
+        int deleted = ImageStore.getInstance().sweep(referenced);
+        if (deleted > 0) {
+            LOGGER.log(Level.INFO, "Removed {0} unused images", deleted);
+        }
+    }
+
+    /** The messages as saved, read from the journal if not in memory; fails rather than answer an empty chat. */
+    private List<ChatMessage> storedMessages(ChatSession session) throws IOException {
+        ChatJournal journal = journals.get(session.getId());
+        if (journal != null) {
+            synchronized (journal) {
+                if (!session.isMessagesLoaded()) {
+                    return journal.readMessages();
+                }
+            }
         }
+        return session.getMessagesSnapshot();
     }
 
-    private void saveChat(ChatSession session) {
+    /** Runs on the writer thread. */
+    private void writeIndex() {
+        synchronized (dirty) {
+            if (pendingIndexWrite == null) {
+                return;
+            }
+            pendingIndexWrite.cancel(false);
+            pendingIndexWrite = null;
+        }
         try {
-            File file = new File(storageDir, session.getId().toString() + ".json");
-            objectMapper.writeValue(file, session);
+            index.write(new ArrayList<>(stored.values()));
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.log(Level.WARNING, "Failed to save chat index", e);
+        }
+    }
+
+    /**
+     * Makes sure the chat's messages are in memory and keeps them there until
+     * {@link #closeChat}: the view holds the session's message objects. Called
+     * when a chat is shown.
+     */
+    public void openChat(ChatSession session) {
+        if (session == null) {
+            return;
+        }
+        openChats.add(session);
+        session.getMessages();
+        touch(session);
+    }
+
+    /** The chat is no longer shown; its messages may be unloaded again. */
+    public void closeChat(ChatSession session) {
+        if (session != null) {
+            openChats.remove(session);
+        }
+    }
+
+    /** Every chat with a file, including those in the trash. */
+    List<ChatSession> getStoredChats() {
+        return new ArrayList<>(stored.values());
+    }
+
+    /**
+     * The chat's messages without loading them into the session: a copy if they
+     * are in memory, otherwise read from the journal. Any thread.
+     */
+    List<ChatMessage> readMessages(ChatSession session) {
+        try {
+            return storedMessages(session);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read chat " + session.getId(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /** Message loader of the sessions restored without messages. Any thread. */
+    private List<ChatMessage> loadMessages(ChatSession session) {
+        List<ChatMessage> messages = new ArrayList<>();
+        ChatJournal journal = journals.get(session.getId());
+        if (journal != null) {
+            synchronized (journal) {
+                if (session.isMessagesLoaded()) {
+                    return session.getMessages(); // Loaded by another thread meanwhile
+                }
+                try {
+                    ChatSession onDisk = journal.replay();
+                    if (onDisk != null) {
+                        messages = onDisk.getMessages();
+                    } else {
+                        unreadable.add(session.getId());
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to load chat " + session.getId(), e);
+                    unreadable.add(session.getId());
+                }
+                session.setMessages(messages);
+            }
+        }
+        if (migrateImages(messages)) {
+            markDirty(session);
         }
+        touch(session);
+        return messages;
+    }
+
+    private void touch(ChatSession session) {
+        List<ChatSession> evict = new ArrayList<>();
+        synchronized (loaded) {
+            loaded.put(session, Boolean.TRUE);
+            Runtime rt = Runtime.getRuntime();
+            boolean pressure = rt.totalMemory() - rt.freeMemory() > rt.maxMemory() * MEMORY_PRESSURE_RATIO;
+            int keep = pressure ? 1 : MAX_LOADED_CHATS;
+            int excess = loaded.size() - keep;
+            for (Iterator<ChatSession> it = loaded.keySet().iterator(); it.hasNext() && excess > 0;) {
+                ChatSession candidate = it.next();
+                // A chat on screen or still receiving a response keeps its messages
+                if (candidate != session && !openChats.contains(candidate) && GenerationRegistry.getInstance()
+                        .findBySession(candidate.getId().toString()) == null) {
+                    evict.add(candidate);
+                    excess--;
+                }
+            }
+        }
+        for (ChatSession candidate : evict) {
+            writer.execute(() -> unload(candidate));
+        }
+    }
+
+    /**
+     * Runs on the writer thread, so no write of the same chat is in progress.
+     * Unloads only a chat whose journal has every message as it is in memory,
+     * checked while holding the message list's lock: a message added or text
+     * appended but not yet written (the dirty mark may still be on its way)
+     * keeps the chat loaded.
+     */
+    private void unload(ChatSession session) {
+        UUID id = session.getId();
+        ChatJournal journal = journals.get(id);
+        if (openChats.contains(session)) {
+            return;
+        }
+        synchronized (dirty) {
+            if (dirty.contains(session)) {
+                return; // Unsaved changes; it will be a candidate again later
+            }
+        }
+        if (journal == null || legacyFiles.contains(id) || unreadable.contains(id)) {
+            return;
+        }
+        synchronized (journal) {
+            if (!session.isMessagesLoaded()) {
+                return;
+            }
+            List<ChatMessage> messages = session.getMessages();
+            synchronized (messages) {
+                if (!journal.isWritten(messages)) {
+                    return; // Not saved yet; it will be a candidate again later
+                }
+                journal.release();
+                session.unloadMessages(messages.size(), this::loadMessages);
+            }
+        }
+        synchronized (loaded) {
+            loaded.remove(session);
+        }
+    }
+
+    /**
+     * Moves the images older versions stored inline in the messages to the
+     * {@link ImageStore}. Returns whether any message changed, in which case the
+     * chat must be written again to drop the inline data.
+     */
+    private static boolean migrateImages(List<ChatMessage> messages) {
+        boolean changed = false;
+        for (ChatMessage message : messages) {
+            List<String> legacy = message.getLegacyImages();
+            if (legacy == null) {
+                continue;
+            }
+            List<String> refs = new ArrayList<>(legacy.size());
+            for (String base64 : legacy) {
+                try {
+                    refs.add(ImageStore.getInstance().putBase64(base64));
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to move a chat image to the image store", e);
+                }
+            }
+            message.setImageRefs(refs.isEmpty() ? null : refs);
+            message.setLegacyImages(null);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /** Chats written before lastActivity existed: use the last message time. */
+    private static void fillLastActivity(ChatSession session) {
+        if (session.getLastActivity() != null) {
+            return;
+        }
+        LocalDateTime last = session.getCreationDate();
+        List<ChatMessage> messages = session.getMessages();
+        if (!messages.isEmpty() && messages.get(messages.size() - 1).getTimestamp() != null) {
+            try {
+                last = LocalDateTime.parse(messages.get(messages.size() - 1).getTimestamp());
+            } catch (DateTimeParseException ignored) {
+                // Keep the creation date
+            }
+        }
+        session.setLastActivity(last);
+    }
+
+    private ChatJournal newJournal(UUID id) {
+        return new ChatJournal(new File(storageDir, id.toString() + ChatJournal.EXTENSION), objectMapper);
+    }
+
+    private File legacyFile(UUID id) {
+        return new File(storageDir, id.toString() + ".json");
     }
 
     public void loadChats() {
         chatSessions.clear();
-        File[] files = storageDir.listFiles((dir, name) -> name.endsWith(".json"));
+        journals.clear();
+        stored.clear();
+        Map<UUID, ChatSession> indexed = index.read();
+        long indexTime = index.lastModified();
+        boolean indexStale = false;
+        List<ChatSession> readInFull = new ArrayList<>();
+
+        File[] files = storageDir.listFiles((dir, name) -> name.endsWith(ChatJournal.EXTENSION));
         if (files != null) {
             for (File file : files) {
+                try {
+                    UUID id = UUID.fromString(
+                            file.getName().substring(0, file.getName().length() - ChatJournal.EXTENSION.length()));
+                    ChatJournal journal = new ChatJournal(file, objectMapper);
+                    ChatSession session = indexed.get(id);
+                    if (session != null && file.lastModified() <= indexTime) {
+                        // Listed in the index: messages stay on disk until the chat is opened
+                        journal.adoptUnloaded(session);
+                        session.unloadMessages(session.getMessageCount(), this::loadMessages);
+                    } else {
+                        // Changed after the index was written: read it in full
+                        session = journal.replay();
+                        if (session == null) {
+                            System.err.println("Skipping chat journal without header: " + file.getName());
+                            continue;
+                        }
+                        fillLastActivity(session);
+                        if (migrateImages(session.getMessages())) {
+                            markDirty(session);
+                        }
+                        readInFull.add(session);
+                        indexStale = true;
+                        if (journal.needsCompaction()) {
+                            writer.execute(() -> compact(journal));
+                        }
+                    }
+                    journals.put(id, journal);
+                    stored.put(id, session);
+                    addLoadedChat(session);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    System.err.println("Failed to load chat: " + file.getName());
+                }
+            }
+        }
+
+        // Chats saved by older versions as a single JSON document
+        File[] legacy = storageDir.listFiles((dir, name) -> name.endsWith(".json") && !name.equals("index.json"));
+        if (legacy != null) {
+            for (File file : legacy) {
                 try {
                     ChatSession session = objectMapper.readValue(file, ChatSession.class);
-                    // Filter out any chats that have been moved to the trash
-                    if (!TrashManager.getInstance().isChatInTrash(session.getId().toString())) {
-                        setupSessionListeners(session);
-                        chatSessions.add(session);
+                    if (journals.containsKey(session.getId())) {
+                        file.delete(); // Converted, but the old file was not removed
+                        continue;
+                    }
+                    fillLastActivity(session);
+                    boolean migrated = migrateImages(session.getMessages());
+                    legacyFiles.add(session.getId());
+                    stored.put(session.getId(), session);
+                    readInFull.add(session);
+                    if (addLoadedChat(session) || migrated) {
+                        markDirty(session);
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -149,5 +758,23 @@ public class ChatManager {
                 }
             }
         }
+
+        if (indexStale || indexed.size() != journals.size()) {
+            scheduleIndexWrite();
+        }
+        for (ChatSession session : readInFull) {
+            touch(session);
+        }
+        TrashManager.getInstance().chatsLoaded();
+    }
+
+    private boolean addLoadedChat(ChatSession session) {
+        // Filter out any chats that have been moved to the trash
+        if (TrashManager.getInstance().isChatInTrash(session.getId().toString())) {
+            return false;
+        }
+        setupSessionListeners(session);
+        chatSessions.add(session);
+        return true;
     }
 }
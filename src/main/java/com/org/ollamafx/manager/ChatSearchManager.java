@@ -0,0 +1,555 @@
+package com.org.ollamafx.manager;
+
+import com.org.ollamafx.model.ChatMessage;
+import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.SearchHit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Full-text index over the messages of every stored chat, kept in
+ * ~/.OllamaFX/search with Lucene.
+ *
+ * One document per message. ChatManager reports the messages it writes, so
+ * the index follows the journals; updates are visible to searches right away
+ * and committed to disk a few seconds later. If the app did not shut down
+ * cleanly the index is rebuilt from the journals in the background.
+ *
+ * Hits carry the chat id: callers drop chats that are not in the chat list
+ * (the trash is indexed too, so restoring a chat needs no reindexing).
+ */
+public class ChatSearchManager {
+
+    private static final Logger LOGGER = Logger.getLogger(ChatSearchManager.class.getName());
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_SESSION = "session";
+    private static final String FIELD_INDEX = "index";
+    private static final String FIELD_ROLE = "role";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    private static final String FIELD_CONTENT = "content";
+
+    /** Bumped when the document layout changes, to force a rebuild. */
+    private static final String INDEX_VERSION = "1";
+    private static final long COMMIT_DELAY_MS = 5_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+    private static final int SNIPPET_LENGTH = 180;
+    private static final int SNIPPET_CONTEXT = 50;
+
+    private static ChatSearchManager instance;
+
+    private final File indexDir;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    /** Index updates, in the order ChatManager wrote them. */
+    private final ScheduledExecutorService indexer;
+    /** Queries, so a rebuild does not hold them up. */
+    private final ExecutorService searcher;
+
+    private Directory directory;
+    private IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private ScheduledFuture<?> pendingCommit; // indexer thread only
+    private final List<Consumer<String>> indexListeners = new CopyOnWriteArrayList<>();
+
+    private ChatSearchManager() {
+        String userHome = System.getProperty("user.home");
+        indexDir = new File(userHome, ".OllamaFX/search");
+        indexer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-search-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+        searcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "chat-search");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static synchronized ChatSearchManager getInstance() {
+        if (instance == null) {
+            instance = new ChatSearchManager();
+        }
+        return instance;
+    }
+
+    /** Opens the index in the background, rebuilding it if it may be out of date. Call after loading the chats. */
+    public void start() {
+        indexer.execute(() -> {
+            try {
+                indexDir.mkdirs();
+                directory = FSDirectory.open(indexDir.toPath());
+                IndexWriterConfig config = new IndexWriterConfig(analyzer);
+                config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+                writer = new IndexWriter(directory, config);
+
+                Map<String, String> commitData = new HashMap<>();
+                Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+                if (live != null) {
+                    live.forEach(e -> commitData.put(e.getKey(), e.getValue()));
+                }
+                boolean upToDate = "true".equals(commitData.get("clean"))
+                        && INDEX_VERSION.equals(commitData.get("version"));
+
+                // Until the next clean shutdown the index counts as out of date
+                setCommitData(false);
+                writer.commit();
+                searcherManager = new SearcherManager(writer, null);
+
+                if (!upToDate) {
+                    rebuild();
+                } else {
+                    // Searches made before the index was open found nothing
+                    fireIndexed(null);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Chat search index unavailable", e);
+                searcherManager = null;
+            }
+        });
+    }
+
+    /** Commits the index as up to date and closes it. Called on shutdown, after ChatManager.flush(). */
+    public void shutdown() {
+        try {
+            indexer.submit(() -> {
+                if (writer == null) {
+                    return null;
+                }
+                SearcherManager manager = searcherManager;
+                searcherManager = null;
+                if (manager != null) {
+                    manager.close();
+                }
+                setCommitData(true);
+                writer.commit();
+                writer.close();
+                directory.close();
+                writer = null;
+                return null;
+            }).get(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to close chat search index", e);
+        }
+    }
+
+    /**
+     * Listens for chats whose messages were (re)indexed, with the chat id, or
+     * null when the whole index was opened or rebuilt. Called on the indexer
+     * thread once the change is searchable.
+     */
+    public void addIndexListener(Consumer<String> listener) {
+        indexListeners.add(listener);
+    }
+
+    private void fireIndexed(String sessionId) {
+        for (Consumer<String> listener : indexListeners) {
+            listener.accept(sessionId);
+        }
+    }
+
+    // ─── Updates (from ChatManager's writer thread) ──────────────────────────
+
+    /**
+     * Reindexes the given messages of a chat and drops those past its end.
+     * Content is captured now; the index is updated on the indexer thread.
+     */
+    void messagesChanged(ChatSession session, List<Integer> changed) {
+        String sessionId = session.getId().toString();
+        List<ChatMessage> messages = session.getMessagesSnapshot();
+        int size = messages.size();
+        List<Document> docs = new ArrayList<>();
+        List<Integer> empty = new ArrayList<>();
+        for (int i : changed) {
+            if (i >= size) {
+                continue;
+            }
+            ChatMessage message = messages.get(i);
+            String content = message.getContent();
+            if (content == null || content.isBlank()) {
+                empty.add(i);
+            } else {
+                docs.add(document(sessionId, i, message, content));
+            }
+        }
+        indexer.execute(() -> {
+            if (writer == null) {
+                return;
+            }
+            try {
+                for (Document doc : docs) {
+                    writer.updateDocument(new Term(FIELD_KEY, doc.get(FIELD_KEY)), doc);
+                }
+                for (int i : empty) {
+                    writer.deleteDocuments(new Term(FIELD_KEY, key(sessionId, i)));
+                }
+                BooleanQuery.Builder tail = new BooleanQuery.Builder();
+                tail.add(new TermQuery(new Term(FIELD_SESSION, sessionId)), BooleanClause.Occur.FILTER);
+                tail.add(IntPoint.newRangeQuery(FIELD_INDEX, size, Integer.MAX_VALUE), BooleanClause.Occur.FILTER);
+                writer.deleteDocuments(tail.build());
+                changed();
+                fireIndexed(sessionId);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to index chat " + sessionId, e);
+            }
+        });
+    }
+
+    /** Removes a permanently deleted chat. */
+    void sessionDeleted(String sessionId) {
+        indexer.execute(() -> {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.deleteDocuments(new Term(FIELD_SESSION, sessionId));
+                changed();
+                fireIndexed(sessionId);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to remove chat " + sessionId + " from the search index", e);
+            }
+        });
+    }
+
+    /** Indexer thread. */
+    private void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        writer.deleteAll();
+        ChatManager chatManager = ChatManager.getInstance();
+        int count = 0;
+        for (ChatSession session : chatManager.getStoredChats()) {
+            String sessionId = session.getId().toString();
+            List<ChatMessage> messages = chatManager.readMessages(session);
+            for (int i = 0; i < messages.size(); i++) {
+                String content = messages.get(i).getContent();
+                if (content != null && !content.isBlank()) {
+                    writer.addDocument(document(sessionId, i, messages.get(i), content));
+                    count++;
+                }
+            }
+        }
+        changed();
+        fireIndexed(null);
+        LOGGER.log(Level.INFO, "Rebuilt chat search index: {0} messages in {1} ms",
+                new Object[] { count, System.currentTimeMillis() - start });
+    }
+
+    /** Indexer thread: makes the changes searchable and schedules a commit. */
+    private void changed() throws IOException {
+        SearcherManager manager = searcherManager;
+        if (manager != null) {
+            manager.maybeRefresh();
+        }
+        if (pendingCommit == null) {
+            pendingCommit = indexer.schedule(() -> {
+                pendingCommit = null;
+                try {
+                    if (writer != null) {
+                        writer.commit();
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to commit chat search index", e);
+                }
+            }, COMMIT_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void setCommitData(boolean clean) {
+        Map<String, String> data = new HashMap<>();
+        data.put("clean", String.valueOf(clean));
+        data.put("version", INDEX_VERSION);
+        writer.setLiveCommitData(data.entrySet());
+    }
+
+    private static Document document(String sessionId, int index, ChatMessage message, String content) {
+        String role = message.getRole();
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_KEY, key(sessionId, index), Field.Store.NO));
+        doc.add(new StringField(FIELD_SESSION, sessionId, Field.Store.YES));
+        doc.add(new SortedDocValuesField(FIELD_SESSION, new BytesRef(sessionId)));
+        doc.add(new IntPoint(FIELD_INDEX, index));
+        doc.add(new StoredField(FIELD_INDEX, index));
+        doc.add(new StoredField(FIELD_ROLE, role != null ? role : ""));
+        if (message.getTimestamp() != null) {
+            // Finds the message again if its position changed since it was indexed
+            doc.add(new StoredField(FIELD_TIMESTAMP, message.getTimestamp()));
+        }
+        doc.add(new TextField(FIELD_CONTENT, content, Field.Store.YES));
+        return doc;
+    }
+
+    private static String key(String sessionId, int index) {
+        return sessionId + "/" + index;
+    }
+
+    // ─── Queries ─────────────────────────────────────────────────────────────
+
+    /** Runs {@link #search(String, int)} off the calling thread. */
+    public CompletableFuture<List<SearchHit>> searchAsync(String text, int limit) {
+        return CompletableFuture.supplyAsync(() -> search(text, limit), searcher);
+    }
+
+    /**
+     * Best matching messages for the text, best first. Every word must match;
+     * the last one also matches as a prefix while it is being typed.
+     */
+    public List<SearchHit> search(String text, int limit) {
+        List<SearchHit> hits = new ArrayList<>();
+        SearcherManager manager = searcherManager;
+        List<String> terms = analyze(text);
+        if (manager == null || terms.isEmpty()) {
+            return hits;
+        }
+        boolean prefixLast = !Character.isWhitespace(text.charAt(text.length() - 1));
+        try {
+            IndexSearcher indexSearcher = manager.acquire();
+            try {
+                TopDocs top = indexSearcher.search(buildQuery(terms, prefixLast), limit);
+                StoredFields stored = indexSearcher.storedFields();
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    Document doc = stored.document(scoreDoc.doc);
+                    hits.add(hit(doc, scoreDoc.score, terms, prefixLast));
+                }
+            } finally {
+                manager.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Chat search failed", e);
+        }
+        return hits;
+    }
+
+    /** Ids of every chat with a message matching the text, the last word as a prefix. */
+    public Set<String> findSessions(String text) {
+        Set<String> sessions = new HashSet<>();
+        SearcherManager manager = searcherManager;
+        List<String> terms = analyze(text);
+        if (manager == null || terms.isEmpty()) {
+            return sessions;
+        }
+        try {
+            IndexSearcher indexSearcher = manager.acquire();
+            try {
+                return indexSearcher.search(buildQuery(terms, true), new CollectorManager<SessionCollector, Set<String>>() {
+                    @Override
+                    public SessionCollector newCollector() {
+                        return new SessionCollector();
+                    }
+
+                    @Override
+                    public Set<String> reduce(Collection<SessionCollector> collectors) {
+                        for (SessionCollector collector : collectors) {
+                            sessions.addAll(collector.sessions);
+                        }
+                        return sessions;
+                    }
+                });
+            } finally {
+                manager.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Chat search failed", e);
+        }
+        return sessions;
+    }
+
+    /** Collects the session ids of the matching messages, one collector per search slice. */
+    private static class SessionCollector extends SimpleCollector {
+        final Set<String> sessions = new HashSet<>();
+        private SortedDocValues values;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            values = DocValues.getSorted(context.reader(), FIELD_SESSION);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                sessions.add(values.lookupOrd(values.ordValue()).utf8ToString());
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    /** Whether a message of the chat matches the text, as in {@link #findSessions(String)}. */
+    public boolean sessionMatches(String sessionId, String text) {
+        SearcherManager manager = searcherManager;
+        List<String> terms = analyze(text);
+        if (manager == null || terms.isEmpty()) {
+            return false;
+        }
+        try {
+            IndexSearcher indexSearcher = manager.acquire();
+            try {
+                Query query = new BooleanQuery.Builder()
+                        .add(buildQuery(terms, true), BooleanClause.Occur.MUST)
+                        .add(new TermQuery(new Term(FIELD_SESSION, sessionId)), BooleanClause.Occur.FILTER)
+                        .build();
+                return indexSearcher.count(query) > 0;
+            } finally {
+                manager.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Chat search failed", e);
+            return false;
+        }
+    }
+
+    private static Query buildQuery(List<String> terms, boolean prefixLast) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            Term term = new Term(FIELD_CONTENT, terms.get(i));
+            if (prefixLast && i == terms.size() - 1) {
+                // The whole word ranks above words it is only the start of
+                query.add(new BooleanQuery.Builder()
+                        .add(new BoostQuery(new TermQuery(term), 2f), BooleanClause.Occur.SHOULD)
+                        .add(new PrefixQuery(term), BooleanClause.Occur.SHOULD)
+                        .build(), BooleanClause.Occur.MUST);
+            } else {
+                query.add(new TermQuery(term), BooleanClause.Occur.MUST);
+            }
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(FIELD_CONTENT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to analyze search text", e);
+        }
+        return terms;
+    }
+
+    /** Builds the snippet around the first match and marks every match inside it. */
+    private SearchHit hit(Document doc, float score, List<String> terms, boolean prefixLast) throws IOException {
+        String content = doc.get(FIELD_CONTENT);
+        String last = terms.get(terms.size() - 1);
+        List<int[]> matches = new ArrayList<>();
+        int windowStart = 0;
+        int windowEnd = Math.min(content.length(), SNIPPET_LENGTH);
+
+        try (TokenStream stream = analyzer.tokenStream(FIELD_CONTENT, content)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            OffsetAttribute offset = stream.addAttribute(OffsetAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                if (!matches.isEmpty() && offset.startOffset() >= windowEnd) {
+                    break;
+                }
+                String token = term.toString();
+                if (terms.contains(token) || (prefixLast && token.startsWith(last))) {
+                    if (matches.isEmpty()) {
+                        windowStart = wordStartBefore(content, offset.startOffset() - SNIPPET_CONTEXT);
+                        windowEnd = wordEndBefore(content, windowStart + SNIPPET_LENGTH, offset.endOffset());
+                    }
+                    matches.add(new int[] { offset.startOffset(), offset.endOffset() });
+                }
+            }
+            stream.end();
+        }
+
+        StringBuilder snippet = new StringBuilder();
+        if (windowStart > 0) {
+            snippet.append('…');
+        }
+        int shift = snippet.length() - windowStart;
+        snippet.append(content, windowStart, windowEnd);
+        if (windowEnd < content.length()) {
+            snippet.append('…');
+        }
+        List<SearchHit.Highlight> highlights = new ArrayList<>();
+        for (int[] match : matches) {
+            if (match[1] <= windowEnd) {
+                highlights.add(new SearchHit.Highlight(match[0] + shift, match[1] + shift));
+            }
+        }
+        String text = snippet.toString().replace('\n', ' ').replace('\r', ' ');
+        return new SearchHit(doc.get(FIELD_SESSION), doc.getField(FIELD_INDEX).numericValue().intValue(),
+                doc.get(FIELD_TIMESTAMP), doc.get(FIELD_ROLE), score, text, highlights);
+    }
+
+    private static int wordStartBefore(String content, int position) {
+        if (position <= 0) {
+            return 0;
+        }
+        int space = content.indexOf(' ', position);
+        return space >= 0 && space < position + SNIPPET_CONTEXT ? space + 1 : position;
+    }
+
+    private static int wordEndBefore(String content, int position, int atLeast) {
+        if (position >= content.length()) {
+            return content.length();
+        }
+        int space = content.lastIndexOf(' ', position);
+        return space >= atLeast ? space : Math.max(position, atLeast);
+    }
+}
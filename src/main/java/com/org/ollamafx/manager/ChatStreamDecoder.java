@@ -0,0 +1,185 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.org.ollamafx.model.GenerationStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes the NDJSON body of /api/chat with a single streaming {@link JsonParser}
+ * instead of building a JsonNode tree per line. Only message.content, done,
+ * done_reason, error and the timing fields are read; everything else is skipped
+ * token by token.
+ *
+ * The decoder is a resumable state machine: {@link #drain(JsonParser)} stops at
+ * {@link JsonToken#NOT_AVAILABLE}, so the same instance also works with Jackson's
+ * non-blocking parsers fed chunk by chunk.
+ */
+public class ChatStreamDecoder {
+
+    private final ChatStreamListener listener;
+
+    // Parser position
+    private int depth;
+    private boolean inMessage;
+    private String field;
+
+    // Values of the chunk being decoded
+    private boolean done;
+    private String doneReason;
+    private String error;
+    private long totalDuration;
+    private long loadDuration;
+    private int promptEvalCount;
+    private long promptEvalDuration;
+    private int evalCount;
+    private long evalDuration;
+
+    private GenerationStats stats;
+    private boolean finished;
+
+    public ChatStreamDecoder(ChatStreamListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Blocking mode: reads the whole stream, forwarding deltas to the listener.
+     *
+     * @return true if the final chunk (done or error) was received
+     */
+    public boolean decode(JsonFactory factory, InputStream in) throws IOException {
+        try (JsonParser parser = factory.createParser(in)) {
+            return drain(parser);
+        }
+    }
+
+    /**
+     * Consumes tokens until the input runs out (end of stream or
+     * {@link JsonToken#NOT_AVAILABLE}) or the final chunk is decoded.
+     *
+     * @return true once the final chunk has been decoded
+     */
+    public boolean drain(JsonParser parser) throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != null) {
+            switch (token) {
+                case NOT_AVAILABLE:
+                    return false;
+                case FIELD_NAME:
+                    // Field names are canonicalized by Jackson, so no String is allocated per chunk
+                    field = parser.currentName();
+                    break;
+                case START_OBJECT:
+                    depth++;
+                    if (depth == 2 && "message".equals(field)) {
+                        inMessage = true;
+                    }
+                    break;
+                case END_OBJECT:
+                    if (depth == 2) {
+                        inMessage = false;
+                    }
+                    depth--;
+                    if (depth == 0) {
+                        endOfChunk();
+                    }
+                    break;
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    depth--;
+                    break;
+                case VALUE_STRING:
+                    onString(parser);
+                    break;
+                case VALUE_NUMBER_INT:
+                    if (depth == 1) {
+                        onNumber(parser);
+                    }
+                    break;
+                case VALUE_TRUE:
+                    if (depth == 1 && "done".equals(field)) {
+                        done = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return finished;
+    }
+
+    private void onString(JsonParser parser) throws IOException {
+        if (inMessage && depth == 2) {
+            if ("content".equals(field) && parser.getTextLength() > 0) {
+                listener.onDelta(parser.getText());
+            }
+        } else if (depth == 1) {
+            if ("done_reason".equals(field)) {
+                doneReason = parser.getText();
+            } else if ("error".equals(field)) {
+                error = parser.getText();
+            }
+        }
+    }
+
+    private void onNumber(JsonParser parser) throws IOException {
+        switch (field) {
+            case "total_duration":
+                totalDuration = parser.getLongValue();
+                break;
+            case "load_duration":
+                loadDuration = parser.getLongValue();
+                break;
+            case "prompt_eval_count":
+                promptEvalCount = parser.getIntValue();
+                break;
+            case "prompt_eval_duration":
+                promptEvalDuration = parser.getLongValue();
+                break;
+            case "eval_count":
+                evalCount = parser.getIntValue();
+                break;
+            case "eval_duration":
+                evalDuration = parser.getLongValue();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void endOfChunk() {
+        field = null;
+        if (error != null) {
+            finished = true;
+        } else if (done) {
+            stats = new GenerationStats();
+            stats.setTotalDuration(totalDuration);
+            stats.setLoadDuration(loadDuration);
+            stats.setPromptEvalCount(promptEvalCount);
+            stats.setPromptEvalDuration(promptEvalDuration);
+            stats.setEvalCount(evalCount);
+            stats.setEvalDuration(evalDuration);
+            stats.setDoneReason(doneReason);
+            finished = true;
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /** Error message sent by the server inside the stream, or null. */
+    public String getError() {
+        return error;
+    }
+
+    /** Final stats, available once the done chunk has been decoded. */
+    public GenerationStats getStats() {
+        return stats;
+    }
+}
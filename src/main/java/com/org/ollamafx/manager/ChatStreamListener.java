@@ -0,0 +1,29 @@
+package com.org.ollamafx.manager;
+
+import com.org.ollamafx.model.GenerationStats;
+
+/**
+ * Receives a /api/chat response as token deltas instead of the accumulated
+ * text. Callbacks run on the thread that reads the stream, never on the FX
+ * thread.
+ */
+public interface ChatStreamListener {
+
+    /** Called once the server accepted the request, before the first delta. */
+    default void onStart() {
+    }
+
+    /** Called for every non-empty content fragment, in order. */
+    void onDelta(String delta);
+
+    /** Called after the final chunk, with the timing data Ollama reported. */
+    default void onComplete(GenerationStats stats) {
+    }
+
+    /**
+     * Called instead of {@link #onComplete} when the request fails. Cancellation
+     * is reported as a {@link java.util.concurrent.CancellationException}.
+     */
+    default void onError(Throwable error) {
+    }
+}
@@ -50,6 +50,64 @@ public class ConfigManager {
         prefs.putInt(KEY_API_TIMEOUT, seconds);
     }
 
+    private static final String KEY_KEEP_ALIVE = "model_keep_alive";
+    private static final String DEFAULT_KEEP_ALIVE = "10m"; // Ollama duration: "10m", "1h", 3600 (s), -1 (forever)
+
+    public String getKeepAlive() {
+        return prefs.get(KEY_KEEP_ALIVE, DEFAULT_KEEP_ALIVE);
+    }
+
+    public void setKeepAlive(String keepAlive) {
+        prefs.put(KEY_KEEP_ALIVE, keepAlive);
+    }
+
+    /** Valid keep_alive: whole seconds (negative keeps the model loaded) or a duration like "1h30m". */
+    public static boolean isValidKeepAlive(String value) {
+        return value != null && !value.isEmpty() && value.matches("-?\\d+|(\\d+h)?(\\d+m)?(\\d+s)?");
+    }
+
+    /** keep_alive as Ollama expects it: plain numbers are seconds and must be sent as JSON numbers. */
+    public Object getKeepAliveValue() {
+        String value = getKeepAlive().trim();
+        if (value.matches("-?\\d+")) {
+            return Long.parseLong(value);
+        }
+        return value;
+    }
+
+    private static final String KEY_PREFIX_WARMUP = "prefix_warmup";
+
+    /** Opt-in: pre-evaluate the conversation while the user is typing. */
+    public boolean isPrefixWarmup() {
+        return prefs.getBoolean(KEY_PREFIX_WARMUP, false);
+    }
+
+    public void setPrefixWarmup(boolean enabled) {
+        prefs.putBoolean(KEY_PREFIX_WARMUP, enabled);
+    }
+
+    private static final String KEY_DOWNLOAD_PARALLELISM = "download_parallelism";
+    private static final int DEFAULT_DOWNLOAD_PARALLELISM = 2;
+    private static final String KEY_DOWNLOAD_CAP = "download_bandwidth_cap_mb";
+
+    /** Model pulls running at the same time. */
+    public int getDownloadParallelism() {
+        return prefs.getInt(KEY_DOWNLOAD_PARALLELISM, DEFAULT_DOWNLOAD_PARALLELISM);
+    }
+
+    public void setDownloadParallelism(int parallelism) {
+        prefs.putInt(KEY_DOWNLOAD_PARALLELISM, parallelism);
+    }
+
+    /** Approximate limit for all pulls together in MB/s, 0 = unlimited. */
+    public int getDownloadBandwidthCapMb() {
+        return prefs.getInt(KEY_DOWNLOAD_CAP, 0);
+    }
+
+    public void setDownloadBandwidthCapMb(int megabytesPerSecond) {
+        prefs.putInt(KEY_DOWNLOAD_CAP, megabytesPerSecond);
+    }
+
     private static final String KEY_LANGUAGE = "app_language";
     private static final String DEFAULT_LANGUAGE = "es"; // Default to Spanish as requested
 
@@ -0,0 +1,266 @@
+package com.org.ollamafx.manager;
+
+import com.org.ollamafx.model.ChatMessage;
+import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.ContextUsage;
+import com.org.ollamafx.model.ContextWindow;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds the /api/chat messages array from the session history so that it fits
+ * in the session's num_ctx.
+ *
+ * When the history overflows, the oldest whole turns are dropped until it is
+ * back under a low watermark, and the cut point is stored in the session. Later
+ * requests keep the same first messages until the window overflows again, so
+ * Ollama can reuse its prompt cache for the unchanged prefix instead of
+ * re-evaluating a window that slides by one turn on every send.
+ */
+public class ContextAssembler {
+
+    private static final Logger LOGGER = Logger.getLogger(ContextAssembler.class.getName());
+
+    /** Share of num_ctx kept free for the response, capped at MAX_RESPONSE_RESERVE. */
+    private static final double RESPONSE_RESERVE_RATIO = 0.25;
+    private static final int MAX_RESPONSE_RESERVE = 1024;
+    /** After trimming, history is cut down to this share of its budget. */
+    private static final double LOW_WATERMARK = 0.7;
+    /** Retrieved chunks (RagManager.queryContext limit) times their approximate size. */
+    public static final int RAG_RESERVE_TOKENS = 5 * 500;
+
+    private ContextAssembler() {
+    }
+
+    /** Tokens left for the prompt once the response reserve is taken out of num_ctx. */
+    public static int promptBudget(int numCtx) {
+        int reserve = (int) Math.min(MAX_RESPONSE_RESERVE, numCtx * RESPONSE_RESERVE_RATIO);
+        return Math.max(0, numCtx - reserve);
+    }
+
+    /**
+     * Assembles the request for the current turn.
+     *
+     * @param session       chat whose history and num_ctx are used; its stored cut
+     *                      point is advanced when the history overflows
+     * @param history       messages before the current turn
+     * @param systemPrompt  system prompt, may be empty
+     * @param prompt        current user text (already augmented with RAG context)
+     * @param images        base64 images of the current turn, or null
+     */
+    public static ContextWindow assemble(ChatSession session, List<ChatMessage> history, String systemPrompt,
+            String prompt, List<String> images) {
+        boolean hasImages = images != null && !images.isEmpty();
+        int budget = promptBudget(session.getNumCtx());
+        TokenCounter counter = TokenCounter.getInstance();
+        String model = session.getModelName();
+
+        List<Map<String, Object>> messages = new ArrayList<>();
+        List<Integer> tokens = new ArrayList<>();
+
+        // Some vision models don't support system prompts alongside images.
+        // Only include system prompt when there are no images.
+        Map<String, Object> systemMsg = null;
+        int systemTokens = 0;
+        if (!hasImages && systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            systemMsg = message("system", systemPrompt);
+            systemTokens = counter.count(systemPrompt, model) + TokenCounter.MESSAGE_OVERHEAD;
+        }
+        Map<String, Object> userMsg = userMessage(prompt, images);
+        int userTokens = counter.count((String) userMsg.get("content"), model) + TokenCounter.MESSAGE_OVERHEAD
+                + (hasImages ? images.size() * counter.imageTokens(model) : 0);
+
+        // History fills whatever the system prompt and the current turn leave free
+        int historyBudget = Math.max(0, budget - systemTokens - userTokens);
+        int[] historyTokens = new int[history.size()];
+        for (int i = 0; i < history.size(); i++) {
+            historyTokens[i] = isSendable(history.get(i)) ? counter.count(history.get(i), model) : 0;
+        }
+
+        int start = cutIndex(session, history);
+        int used = 0;
+        for (int i = start; i < history.size(); i++) {
+            used += historyTokens[i];
+        }
+        if (used > historyBudget) {
+            int target = (int) (historyBudget * LOW_WATERMARK);
+            while (start < history.size() && used > target) {
+                used -= historyTokens[start++];
+            }
+            // Never start the window in the middle of a turn
+            while (start < history.size() && !"user".equals(history.get(start).getRole())) {
+                used -= historyTokens[start++];
+            }
+        }
+        // Trimmed, moved by removed messages, or cut by a version that kept no timestamp
+        if (start != session.getContextStartIndex() || (start > 0 && session.getContextStartTimestamp() == null)) {
+            saveCutPoint(session, start, start < history.size() ? history.get(start).getTimestamp() : null);
+        }
+
+        if (systemMsg != null) {
+            messages.add(systemMsg);
+            tokens.add(systemTokens);
+        }
+        int dropped = 0;
+        for (int i = 0; i < history.size(); i++) {
+            ChatMessage msg = history.get(i);
+            if (!isSendable(msg)) {
+                continue;
+            }
+            if (i < start) {
+                dropped++;
+                continue;
+            }
+            // Images of earlier turns are not resent; only the current turn carries them
+            messages.add(message(msg.getRole(), msg.getContent()));
+            tokens.add(historyTokens[i]);
+        }
+        messages.add(userMsg);
+        tokens.add(userTokens);
+
+        int total = systemTokens + used + userTokens;
+        LOGGER.log(Level.FINE, "Context for {0}: {1} messages, ~{2}/{3} tokens, {4} dropped",
+                new Object[] { session.getId(), messages.size(), total, budget, dropped });
+        return new ContextWindow(messages, tokens, total, budget, start, dropped);
+    }
+
+    /**
+     * Index of the first message of the window. The cut is stored as an index
+     * and the timestamp of the message there; if messages before it were
+     * removed since, the message is found again by its timestamp, so the
+     * window keeps starting at the same turn.
+     */
+    static int cutIndex(ChatSession session, List<ChatMessage> history) {
+        int index = Math.min(Math.max(0, session.getContextStartIndex()), history.size());
+        String anchor = session.getContextStartTimestamp();
+        if (anchor == null || (index < history.size() && anchor.equals(history.get(index).getTimestamp()))) {
+            return index;
+        }
+        // Removals only move it towards the start
+        for (int i = Math.min(index, history.size() - 1); i >= 0; i--) {
+            if (anchor.equals(history.get(i).getTimestamp())) {
+                return i;
+            }
+        }
+        // The message itself is gone: start at the next turn after where it was
+        while (index < history.size() && !"user".equals(history.get(index).getRole())) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Stores the new cut point on the FX thread, where the session is changed,
+     * and saves the chat so the prompt prefix stays the same after a restart.
+     */
+    private static void saveCutPoint(ChatSession session, int start, String timestamp) {
+        Runnable apply = () -> {
+            if (session.getContextStartIndex() != start
+                    || !Objects.equals(session.getContextStartTimestamp(), timestamp)) {
+                session.setContextStartIndex(start);
+                session.setContextStartTimestamp(timestamp);
+                ChatManager.getInstance().markDirty(session);
+            }
+        };
+        if (Platform.isFxApplicationThread()) {
+            apply.run();
+        } else {
+            Platform.runLater(apply);
+        }
+    }
+
+    /** Request with only the system prompt and one user turn, without history. */
+    public static List<Map<String, Object>> singleTurn(String systemPrompt, String prompt, List<String> images) {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        boolean hasImages = images != null && !images.isEmpty();
+        if (!hasImages && systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            messages.add(message("system", systemPrompt));
+        }
+        messages.add(userMessage(prompt, images));
+        return messages;
+    }
+
+    /**
+     * The part of the next request that does not depend on the new user turn:
+     * system prompt and the history from the stored cut point. It matches the
+     * start of what {@link #assemble} will send as long as the window does not
+     * overflow. The session is not modified.
+     */
+    public static List<Map<String, Object>> stablePrefix(ChatSession session, String systemPrompt) {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            messages.add(message("system", systemPrompt));
+        }
+        List<ChatMessage> history = session.getMessages();
+        for (int i = cutIndex(session, history); i < history.size(); i++) {
+            ChatMessage msg = history.get(i);
+            if (isSendable(msg)) {
+                messages.add(message(msg.getRole(), msg.getContent()));
+            }
+        }
+        return messages;
+    }
+
+    private static Map<String, Object> userMessage(String prompt, List<String> images) {
+        boolean hasImages = images != null && !images.isEmpty();
+        // Ensure content is never empty — use a default for image-only messages
+        String messageContent = (prompt != null && !prompt.trim().isEmpty())
+                ? prompt
+                : (hasImages ? "What is in this image?" : prompt);
+        Map<String, Object> userMsg = message("user", messageContent);
+        if (hasImages) {
+            userMsg.put("images", images);
+        }
+        return userMsg;
+    }
+
+    private static Map<String, Object> message(String role, String content) {
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("role", role);
+        msg.put("content", content);
+        return msg;
+    }
+
+    /** Empty placeholders and error notices were never model output. */
+    private static boolean isSendable(ChatMessage msg) {
+        String content = msg.getContent();
+        return content != null && !content.isEmpty() && !content.startsWith("⚡ Error:");
+    }
+
+    /**
+     * Estimates what the next request would use, for the context meter. The draft
+     * is the text still being typed; RAG context is not retrieved yet, so a
+     * reserve is counted instead when collections are selected.
+     */
+    public static ContextUsage measure(ChatSession session, String systemPrompt, String draft, int imageCount,
+            boolean ragEnabled) {
+        TokenCounter counter = TokenCounter.getInstance();
+        String model = session.getModelName();
+
+        int systemTokens = 0;
+        if (imageCount == 0 && systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            systemTokens = counter.count(systemPrompt, model) + TokenCounter.MESSAGE_OVERHEAD;
+        }
+        int historyTokens = 0;
+        List<ChatMessage> history = session.getMessages();
+        for (int i = cutIndex(session, history); i < history.size(); i++) {
+            ChatMessage msg = history.get(i);
+            if (isSendable(msg)) {
+                historyTokens += counter.count(msg, model);
+            }
+        }
+        int draftTokens = counter.count(draft, model) + TokenCounter.MESSAGE_OVERHEAD;
+        int imageTokens = imageCount * counter.imageTokens(model);
+        int ragTokens = ragEnabled && imageCount == 0 ? RAG_RESERVE_TOKENS : 0;
+
+        return new ContextUsage(systemTokens, historyTokens, draftTokens, ragTokens, imageTokens,
+                session.getNumCtx(), promptBudget(session.getNumCtx()));
+    }
+}
@@ -0,0 +1,309 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.org.ollamafx.model.DownloadJob;
+import com.org.ollamafx.model.DownloadJob.State;
+import com.org.ollamafx.model.PullProgress;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queue of model pulls that outlives the window that started them.
+ *
+ * Jobs run through /api/pull with at most {@link ConfigManager#getDownloadParallelism()}
+ * at a time. The queue is saved to ~/.OllamaFX/downloads.json on every state
+ * change; after a restart unfinished jobs are queued again, and Ollama resumes
+ * layers it had partially downloaded.
+ *
+ * Ollama downloads on the server side, so the optional bandwidth cap cannot
+ * shape the transfer itself. When the running jobs together get ahead of the
+ * cap they are all paused, and started again once the average is back under it.
+ */
+public class DownloadManager {
+
+    private static final Logger LOGGER = Logger.getLogger(DownloadManager.class.getName());
+
+    /** Wait before retrying a job that could not reach the server. */
+    private static final long CONNECT_RETRY_MS = 10_000;
+    /** How far, in seconds of the cap, the downloads may run ahead of it before they are paused. */
+    private static final double CAP_BURST_SECONDS = 4.0;
+
+    private static DownloadManager instance;
+
+    /** Source of truth, guarded by this. */
+    private final List<DownloadJob> queue = new ArrayList<>();
+    private final Map<DownloadJob, CompletableFuture<Void>> running = new HashMap<>();
+    /** Last completed byte count of each running job, -1 until its first report. */
+    private final Map<DownloadJob, Long> lastCompleted = new HashMap<>();
+    private long capWindowStart;
+    private long capWindowBytes;
+    /** Nothing is started before this time while the cap is being paid back. */
+    private long capNotBefore;
+    /** FX-thread mirror of the queue for the views. */
+    private final ObservableList<DownloadJob> jobs = FXCollections.observableArrayList();
+
+    private final File storageFile;
+    private final ObjectMapper mapper;
+    private final ScheduledExecutorService scheduler;
+
+    private DownloadManager() {
+        String userHome = System.getProperty("user.home");
+        File storageDir = new File(userHome, ".OllamaFX");
+        if (!storageDir.exists()) {
+            storageDir.mkdirs();
+        }
+        storageFile = new File(storageDir, "downloads.json");
+
+        mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "download-manager");
+            t.setDaemon(true);
+            return t;
+        });
+        load();
+    }
+
+    public static synchronized DownloadManager getInstance() {
+        if (instance == null) {
+            instance = new DownloadManager();
+        }
+        return instance;
+    }
+
+    /** Jobs in queue order. Read on the FX thread only. */
+    public ObservableList<DownloadJob> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Queues a pull. If the model is already queued, that job is returned (and
+     * restarted if it was paused or had failed).
+     */
+    public synchronized DownloadJob enqueue(String modelName, String tag) {
+        for (DownloadJob job : queue) {
+            if (job.getModelName().equals(modelName) && job.getTag().equals(tag)
+                    && job.getState() != State.COMPLETED) {
+                if (job.getState() == State.PAUSED || job.getState() == State.FAILED) {
+                    setState(job, State.PENDING);
+                    schedule();
+                }
+                return job;
+            }
+        }
+        DownloadJob job = new DownloadJob(modelName, tag);
+        queue.add(job);
+        Platform.runLater(() -> jobs.add(job));
+        save();
+        schedule();
+        return job;
+    }
+
+    public synchronized void pause(DownloadJob job) {
+        if (job.getState() == State.PENDING || job.getState() == State.ACTIVE) {
+            setState(job, State.PAUSED);
+            stop(job);
+            save();
+            schedule();
+        }
+    }
+
+    public synchronized void resume(DownloadJob job) {
+        if (job.getState() == State.PAUSED || job.getState() == State.FAILED) {
+            job.setNotBefore(0);
+            setState(job, State.PENDING);
+            save();
+            schedule();
+        }
+    }
+
+    /** Stops the job and removes it from the queue. Finished jobs are just removed. */
+    public synchronized void remove(DownloadJob job) {
+        queue.remove(job);
+        stop(job);
+        Platform.runLater(() -> jobs.remove(job));
+        save();
+        schedule();
+    }
+
+    /** Starts queued jobs up to the configured parallelism. Safe to call at any time. */
+    public synchronized void schedule() {
+        int parallelism = Math.max(1, ConfigManager.getInstance().getDownloadParallelism());
+        long now = System.currentTimeMillis();
+        if (now < capNotBefore) {
+            scheduler.schedule(this::schedule, capNotBefore - now, TimeUnit.MILLISECONDS);
+            return;
+        }
+        long nextWake = Long.MAX_VALUE;
+        for (DownloadJob job : new ArrayList<>(queue)) {
+            if (running.size() >= parallelism) {
+                break;
+            }
+            if (job.getState() != State.PENDING || running.containsKey(job)) {
+                continue;
+            }
+            if (job.getNotBefore() > now) {
+                nextWake = Math.min(nextWake, job.getNotBefore());
+                continue;
+            }
+            start(job);
+        }
+        if (nextWake != Long.MAX_VALUE) {
+            scheduler.schedule(this::schedule, nextWake - now, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void start(DownloadJob job) {
+        job.setError(null);
+        setState(job, State.ACTIVE);
+        if (running.isEmpty()) {
+            capWindowStart = System.currentTimeMillis();
+            capWindowBytes = 0;
+        }
+        lastCompleted.put(job, -1L);
+        LOGGER.log(Level.INFO, "Starting pull of {0}", job.getFullName());
+
+        CompletableFuture<Void> pull = OllamaManager.getInstance().pullModelAsync(job.getModelName(), job.getTag(),
+                progress -> onProgress(job, progress));
+        running.put(job, pull);
+        pull.whenComplete((v, error) -> onFinished(job, pull, error));
+        save();
+    }
+
+    private void stop(DownloadJob job) {
+        CompletableFuture<Void> pull = running.remove(job);
+        lastCompleted.remove(job);
+        if (pull != null) {
+            pull.cancel(true);
+        }
+    }
+
+    private void onProgress(DownloadJob job, PullProgress progress) {
+        job.setCompletedBytes(progress.getCompletedBytes());
+        job.setTotalBytes(progress.getTotalBytes());
+        Platform.runLater(() -> job.progressProperty().set(progress));
+        enforceCap(job, progress.getCompletedBytes());
+    }
+
+    /** Pauses every running job once together they are far enough ahead of the bandwidth cap. */
+    private synchronized void enforceCap(DownloadJob job, long completed) {
+        Long previous = lastCompleted.get(job);
+        if (previous == null || job.getState() != State.ACTIVE) {
+            return;
+        }
+        lastCompleted.put(job, completed);
+        long cap = ConfigManager.getInstance().getDownloadBandwidthCapMb() * 1024L * 1024L;
+        if (cap <= 0 || previous < 0) {
+            return; // Bytes resumed from a partial download don't count
+        }
+        capWindowBytes += Math.max(0, completed - previous);
+        long now = System.currentTimeMillis();
+        double excess = capWindowBytes - cap * ((now - capWindowStart) / 1000.0);
+        if (excess > cap * CAP_BURST_SECONDS) {
+            long waitMs = (long) (excess / cap * 1000);
+            LOGGER.log(Level.FINE, "Bandwidth cap reached, pausing downloads for {0} ms", waitMs);
+            capNotBefore = now + waitMs;
+            for (DownloadJob active : new ArrayList<>(running.keySet())) {
+                setState(active, State.PENDING);
+                stop(active);
+            }
+            schedule();
+        }
+    }
+
+    private synchronized void onFinished(DownloadJob job, CompletableFuture<Void> pull, Throwable error) {
+        if (running.get(job) == pull) {
+            running.remove(job);
+            lastCompleted.remove(job);
+        }
+        if (error instanceof CancellationException || job.getState() != State.ACTIVE) {
+            return; // Paused, throttled or removed: whoever stopped it set the state
+        }
+        if (error == null) {
+            LOGGER.log(Level.INFO, "Pull of {0} completed", job.getFullName());
+            setState(job, State.COMPLETED);
+            ModelManager.getInstance().refreshLocalModels();
+        } else if (error instanceof ConnectException) {
+            // Server not reachable (yet): keep the job and try again later
+            job.setNotBefore(System.currentTimeMillis() + CONNECT_RETRY_MS);
+            setState(job, State.PENDING);
+        } else {
+            LOGGER.log(Level.WARNING, "Pull of " + job.getFullName() + " failed", error);
+            job.setError(error.getMessage());
+            setState(job, State.FAILED);
+        }
+        save();
+        schedule();
+    }
+
+    private void setState(DownloadJob job, State state) {
+        job.setState(state);
+        Platform.runLater(() -> job.stateProperty().set(state));
+    }
+
+    private synchronized void save() {
+        List<DownloadJob> snapshot = new ArrayList<>();
+        for (DownloadJob job : queue) {
+            if (job.getState() != State.COMPLETED) {
+                snapshot.add(job.copy()); // The job keeps changing while it is written
+            }
+        }
+        scheduler.execute(() -> {
+            try {
+                mapper.writeValue(storageFile, snapshot);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to save the download queue", e);
+            }
+        });
+    }
+
+    private void load() {
+        if (!storageFile.exists()) {
+            return;
+        }
+        try {
+            List<DownloadJob> loaded = mapper.readValue(storageFile, new TypeReference<List<DownloadJob>>() {
+            });
+            for (DownloadJob job : loaded) {
+                if (job.getModelName() == null || job.getTag() == null) {
+                    continue;
+                }
+                // Interrupted by the last shutdown: queue it again
+                if (job.getState() == State.ACTIVE) {
+                    job.setState(State.PENDING);
+                }
+                job.stateProperty().set(job.getState());
+                queue.add(job);
+            }
+            List<DownloadJob> restored = new ArrayList<>(queue);
+            if (Platform.isFxApplicationThread()) {
+                jobs.setAll(restored);
+            } else {
+                Platform.runLater(() -> jobs.setAll(restored));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load the download queue", e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.org.ollamafx.manager;
+
+import com.org.ollamafx.model.GenerationStats;
+import com.org.ollamafx.model.RagResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle to a single streaming request, handed out by {@link GenerationRegistry}.
+ * Cancelling it aborts only this request. Listeners can be attached and detached
+ * while it runs, so a chat view can follow a generation it did not start.
+ * The completion future finishes exactly once, with the final stats, the error,
+ * or a {@link CancellationException}.
+ */
+public class GenerationHandle {
+
+    public enum Status {
+        PENDING, STREAMING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String sessionId;
+    private final long startedAt = System.currentTimeMillis();
+    private final CompletableFuture<GenerationStats> completion = new CompletableFuture<>();
+    private final List<ChatStreamListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger tokenCount = new AtomicInteger();
+    private volatile long sentAt;
+    private volatile long firstTokenAt;
+    private volatile boolean prefixWarmed;
+    private volatile List<RagResult> citations;
+    private volatile Status status = Status.PENDING;
+    private volatile Runnable canceller;
+    private boolean outcomeDispatched;
+
+    GenerationHandle(String sessionId) {
+        this.sessionId = sessionId;
+        completion.whenComplete((stats, error) -> {
+            List<ChatStreamListener> snapshot;
+            synchronized (this) {
+                outcomeDispatched = true;
+                snapshot = new ArrayList<>(listeners);
+            }
+            for (ChatStreamListener listener : snapshot) {
+                deliverOutcome(listener, stats, error);
+            }
+        });
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** Chat session this generation writes to, or null for background requests. */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** Number of content deltas received so far. */
+    public int getTokenCount() {
+        return tokenCount.get();
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Client-side time to first token: from sending the request to the first
+     * content delta, in milliseconds, or -1 if no token has arrived yet.
+     */
+    public long getTimeToFirstTokenMs() {
+        long first = firstTokenAt;
+        return first > 0 && sentAt > 0 ? first - sentAt : -1;
+    }
+
+    /**
+     * Attaches a listener. It receives the deltas from now on and, exactly once,
+     * the outcome; if the request already ended the outcome is delivered
+     * immediately.
+     */
+    public void addListener(ChatStreamListener listener) {
+        boolean ended;
+        synchronized (this) {
+            listeners.add(listener);
+            ended = outcomeDispatched;
+        }
+        if (ended) {
+            completion.whenComplete((stats, error) -> deliverOutcome(listener, stats, error));
+        }
+    }
+
+    public void removeListener(ChatStreamListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void deliverOutcome(ChatStreamListener listener, GenerationStats stats, Throwable error) {
+        if (!listeners.contains(listener)) {
+            return; // Detached before the end
+        }
+        if (error == null) {
+            listener.onComplete(stats);
+        } else {
+            listener.onError(error);
+        }
+    }
+
+    /** Aborts the request. Safe to call from any thread, and more than once. */
+    public void cancel() {
+        if (settle(Status.CANCELLED)) {
+            completion.cancel(false);
+            Runnable c = canceller;
+            if (c != null) {
+                c.run();
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return completion.isCancelled();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    public CompletableFuture<GenerationStats> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Blocks until the request ends. If the waiting thread is interrupted the
+     * request is cancelled.
+     */
+    public GenerationStats await() throws Exception {
+        try {
+            return completion.get();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Cancelled by user");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Sets how to abort the transport; replaced as the request progresses. */
+    void setCanceller(Runnable canceller) {
+        this.canceller = canceller;
+        if (completion.isCancelled()) {
+            canceller.run();
+        }
+    }
+
+    /** Records that the prompt prefix was pre-evaluated, reported in the final stats. */
+    public void markPrefixWarmed() {
+        prefixWarmed = true;
+    }
+
+    /** Documents the prompt was augmented with, shown as sources under the answer. */
+    public void setCitations(List<RagResult> citations) {
+        this.citations = citations;
+    }
+
+    /** Null when the request used no documents. */
+    public List<RagResult> getCitations() {
+        return citations;
+    }
+
+    /** Marks the moment the request goes on the wire; TTFT is measured from here. */
+    void markSent() {
+        sentAt = System.currentTimeMillis();
+    }
+
+    void started() {
+        synchronized (this) {
+            if (status == Status.PENDING) {
+                status = Status.STREAMING;
+            }
+        }
+        for (ChatStreamListener listener : listeners) {
+            listener.onStart();
+        }
+    }
+
+    void delta(String delta) {
+        if (completion.isDone()) {
+            throw new CancellationException("Cancelled by user");
+        }
+        if (tokenCount.getAndIncrement() == 0) {
+            firstTokenAt = System.currentTimeMillis();
+        }
+        for (ChatStreamListener listener : listeners) {
+            listener.onDelta(delta);
+        }
+    }
+
+    void complete(GenerationStats stats) {
+        if (stats != null) {
+            stats.setTimeToFirstTokenMs(Math.max(0, getTimeToFirstTokenMs()));
+            stats.setPrefixWarmed(prefixWarmed);
+        }
+        if (settle(Status.COMPLETED)) {
+            completion.complete(stats);
+        }
+    }
+
+    /**
+     * Ends the request with an error. Owners use it when preparing the request
+     * fails before anything is sent.
+     */
+    public void fail(Throwable error) {
+        if (settle(Status.FAILED)) {
+            completion.completeExceptionally(error);
+        }
+    }
+
+    /** Moves to a final status; only the first caller wins. */
+    private synchronized boolean settle(Status finalStatus) {
+        if (status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED) {
+            return false;
+        }
+        status = finalStatus;
+        return true;
+    }
+}
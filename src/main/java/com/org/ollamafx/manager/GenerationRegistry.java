@@ -0,0 +1,64 @@
+package com.org.ollamafx.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of every generation in flight. Each request gets its own
+ * {@link GenerationHandle}, so several chats can stream at the same time and
+ * each one cancels only what it owns.
+ */
+public class GenerationRegistry {
+
+    private static GenerationRegistry instance;
+
+    private final Map<String, GenerationHandle> active = new ConcurrentHashMap<>();
+
+    private GenerationRegistry() {
+    }
+
+    public static synchronized GenerationRegistry getInstance() {
+        if (instance == null) {
+            instance = new GenerationRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates a handle in PENDING state. It is forgotten automatically when the
+     * request ends.
+     *
+     * @param sessionId owning chat session, or null for background requests
+     */
+    public GenerationHandle register(String sessionId) {
+        GenerationHandle handle = new GenerationHandle(sessionId);
+        active.put(handle.getId(), handle);
+        handle.getCompletion().whenComplete((stats, error) -> active.remove(handle.getId()));
+        return handle;
+    }
+
+    /** Returns the running generation of the given chat, or null. */
+    public GenerationHandle findBySession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        for (GenerationHandle handle : active.values()) {
+            if (sessionId.equals(handle.getSessionId()) && !handle.isDone()) {
+                return handle;
+            }
+        }
+        return null;
+    }
+
+    public List<GenerationHandle> getActive() {
+        return new ArrayList<>(active.values());
+    }
+
+    public void cancelAll() {
+        for (GenerationHandle handle : getActive()) {
+            handle.cancel();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.org.ollamafx.manager;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Image attachments of the chats, ~/.OllamaFX/images/&lt;ab&gt;/&lt;sha-256&gt;.
+ *
+ * Blobs are named after the SHA-256 of their bytes, so the same image attached
+ * twice, in one chat or in several, is stored once. Messages keep only that
+ * reference: the bytes are read when a request carrying them is sent, and the
+ * chat view shows a small PNG thumbnail written next to the blob in the
+ * background. Blobs are never rewritten; there is nothing to lock.
+ *
+ * Images no chat refers to any more are removed by {@link #sweep}, run after
+ * chats are deleted for good. Storing an image marks its blob as recently
+ * used, and the sweep leaves those alone, so an image attached to a message
+ * not yet saved is not taken.
+ */
+public class ImageStore {
+    private static final Logger LOGGER = Logger.getLogger(ImageStore.class.getName());
+
+    /** Thumbnails are shown at 80px; twice that stays sharp on HiDPI screens. */
+    private static final int THUMB_SIZE = 160;
+    private static final String THUMB_SUFFIX = ".thumb.png";
+    /** Blobs stored more recently than this may belong to a message not yet saved. */
+    private static final long SWEEP_GRACE_MS = 24L * 60 * 60 * 1000;
+
+    private static ImageStore instance;
+    private final File storageDir;
+    private final ExecutorService thumbnailer;
+
+    private ImageStore() {
+        String userHome = System.getProperty("user.home");
+        storageDir = new File(userHome, ".OllamaFX/images");
+        if (!storageDir.exists()) {
+            storageDir.mkdirs();
+        }
+        thumbnailer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "image-thumbnailer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static synchronized ImageStore getInstance() {
+        if (instance == null) {
+            instance = new ImageStore();
+        }
+        return instance;
+    }
+
+    /** Stores the file's bytes and returns their reference. */
+    public String put(File file) throws IOException {
+        return put(Files.readAllBytes(file.toPath()));
+    }
+
+    /** Stores the bytes, unless already there, and returns their reference. */
+    public String put(byte[] bytes) throws IOException {
+        String ref = hash(bytes);
+        File blob = blobFile(ref);
+        if (!blob.exists()) {
+            blob.getParentFile().mkdirs();
+            File temp = new File(blob.getParentFile(), ref + ".tmp");
+            Files.write(temp.toPath(), bytes);
+            try {
+                Files.move(temp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } else {
+            blob.setLastModified(System.currentTimeMillis()); // Keeps it out of a sweep
+        }
+        if (!thumbnailFile(ref).exists()) {
+            thumbnailer.execute(() -> writeThumbnail(ref));
+        }
+        return ref;
+    }
+
+    /** Stores a base64 image as written inline by older versions and returns its reference. */
+    public String putBase64(String base64) throws IOException {
+        try {
+            return put(Base64.getDecoder().decode(base64));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a base64 image", e);
+        }
+    }
+
+    public byte[] read(String ref) throws IOException {
+        return Files.readAllBytes(blobFile(ref).toPath());
+    }
+
+    /** The images as the Ollama API expects them: raw base64, no data: prefix. */
+    public List<String> readBase64(List<String> refs) throws IOException {
+        List<String> images = new ArrayList<>(refs.size());
+        for (String ref : refs) {
+            images.add(Base64.getEncoder().encodeToString(read(ref)));
+        }
+        return images;
+    }
+
+    /**
+     * URL to show the image small: its thumbnail, or the blob itself while the
+     * thumbnail is not written (or the format has no decoder here, e.g. WebP).
+     * Null if the image is missing.
+     */
+    public String thumbnailUrl(String ref) {
+        File thumb = thumbnailFile(ref);
+        if (thumb.exists()) {
+            return thumb.toURI().toString();
+        }
+        File blob = blobFile(ref);
+        return blob.exists() ? blob.toURI().toString() : null;
+    }
+
+    /**
+     * Deletes the images, and their thumbnails, that are not among the given
+     * references and were not stored recently. Returns how many were deleted.
+     */
+    public int sweep(Set<String> referenced) {
+        File[] buckets = storageDir.listFiles(File::isDirectory);
+        if (buckets == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - SWEEP_GRACE_MS;
+        int deleted = 0;
+        for (File bucket : buckets) {
+            File[] blobs = bucket.listFiles((dir, name) -> !name.contains("."));
+            if (blobs == null) {
+                continue;
+            }
+            for (File blob : blobs) {
+                String ref = blob.getName();
+                if (referenced.contains(ref) || blob.lastModified() > cutoff) {
+                    continue;
+                }
+                if (blob.delete()) {
+                    thumbnailFile(ref).delete();
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /** Runs on the thumbnailer thread. */
+    private void writeThumbnail(String ref) {
+        File thumb = thumbnailFile(ref);
+        if (thumb.exists()) {
+            return;
+        }
+        try {
+            BufferedImage source = ImageIO.read(blobFile(ref));
+            if (source == null) {
+                return; // No decoder for this format: the blob is shown instead
+            }
+            double scale = Math.min(1.0,
+                    (double) THUMB_SIZE / Math.max(source.getWidth(), source.getHeight()));
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            File temp = new File(thumb.getParentFile(), thumb.getName() + ".tmp");
+            ImageIO.write(scaled, "png", temp);
+            Files.move(temp.toPath(), thumb.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to create thumbnail of image " + ref, e);
+        }
+    }
+
+    private File blobFile(String ref) {
+        return new File(new File(storageDir, ref.substring(0, 2)), ref);
+    }
+
+    private File thumbnailFile(String ref) {
+        return new File(new File(storageDir, ref.substring(0, 2)), ref + THUMB_SUFFIX);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.org.ollamafx.model.GenerationStats;
+import com.org.ollamafx.model.ModelMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps per-model throughput numbers (tokens/s, prompt tokens/s, time to first
+ * token) measured from real responses.
+ * Persiste en ~/.OllamaFX/model_metrics.json
+ */
+public class ModelMetricsManager {
+
+    private static ModelMetricsManager instance;
+
+    private final Map<String, ModelMetrics> metrics = new ConcurrentHashMap<>();
+    private final File storageFile;
+    private final ObjectMapper mapper;
+    private final ExecutorService writer;
+
+    private ModelMetricsManager() {
+        String userHome = System.getProperty("user.home");
+        File storageDir = new File(userHome, ".OllamaFX");
+        if (!storageDir.exists()) {
+            storageDir.mkdirs();
+        }
+        storageFile = new File(storageDir, "model_metrics.json");
+
+        mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "model-metrics-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        load();
+    }
+
+    public static synchronized ModelMetricsManager getInstance() {
+        if (instance == null) {
+            instance = new ModelMetricsManager();
+        }
+        return instance;
+    }
+
+    /** Adds a finished response to its model's totals and saves in the background. */
+    public void record(GenerationStats stats) {
+        if (stats == null || stats.getModel() == null || stats.getEvalCount() == 0) {
+            return;
+        }
+        ModelMetrics entry = metrics.computeIfAbsent(stats.getModel(), ModelMetrics::new);
+        synchronized (entry) {
+            entry.add(stats);
+        }
+        writer.submit(this::save);
+    }
+
+    /** Returns the aggregates for a model ("name:tag"), or null if never used. */
+    public ModelMetrics getMetrics(String model) {
+        return metrics.get(model);
+    }
+
+    private synchronized void save() {
+        try {
+            // Copied under the lock record() adds with, so each entry's totals match
+            List<ModelMetrics> snapshot = new ArrayList<>();
+            for (ModelMetrics entry : metrics.values()) {
+                synchronized (entry) {
+                    snapshot.add(entry.copy());
+                }
+            }
+            mapper.writeValue(storageFile, snapshot);
+        } catch (IOException e) {
+            System.err.println("ModelMetricsManager: Failed to save metrics.");
+            e.printStackTrace();
+        }
+    }
+
+    private void load() {
+        if (!storageFile.exists()) {
+            return;
+        }
+        try {
+            List<ModelMetrics> loaded = mapper.readValue(storageFile, new TypeReference<List<ModelMetrics>>() {
+            });
+            for (ModelMetrics entry : loaded) {
+                if (entry.getModel() != null) {
+                    metrics.put(entry.getModel(), entry);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("ModelMetricsManager: Error loading metrics: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.org.ollamafx.manager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the selected model in the background so the first message does not
+ * wait for it inside the streaming request.
+ *
+ * Repeated selections are collapsed: while a load is running the same future is
+ * returned, and a model that finished loading less than RECENT_MS ago is not
+ * requested again.
+ */
+public class ModelPreloader {
+
+    private static final Logger LOGGER = Logger.getLogger(ModelPreloader.class.getName());
+
+    /** A load this recent is reused instead of sending a new one. */
+    private static final long RECENT_MS = 30_000;
+
+    private static ModelPreloader instance;
+
+    private final Map<String, CompletableFuture<Long>> loads = new ConcurrentHashMap<>();
+    private final Map<String, Long> loadedAt = new ConcurrentHashMap<>();
+
+    private ModelPreloader() {
+    }
+
+    public static synchronized ModelPreloader getInstance() {
+        if (instance == null) {
+            instance = new ModelPreloader();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts loading a model ("name:tag") unless it is already loading or was
+     * loaded recently.
+     *
+     * @return future with the load time in milliseconds
+     */
+    public synchronized CompletableFuture<Long> preload(String model) {
+        CompletableFuture<Long> current = loads.get(model);
+        if (current != null) {
+            if (!current.isDone()) {
+                return current;
+            }
+            Long finished = loadedAt.get(model);
+            if (!current.isCompletedExceptionally() && finished != null
+                    && System.currentTimeMillis() - finished < RECENT_MS) {
+                return current;
+            }
+        }
+
+        long start = System.nanoTime();
+        LOGGER.log(Level.INFO, "Preloading model {0}", model);
+        CompletableFuture<Long> load = OllamaManager.getInstance().loadModel(model)
+                .thenApply(v -> (System.nanoTime() - start) / 1_000_000);
+        load.whenComplete((ms, error) -> {
+            if (error == null) {
+                loadedAt.put(model, System.currentTimeMillis());
+                LOGGER.log(Level.INFO, "Model {0} loaded in {1} ms", new Object[] { model, ms });
+            } else {
+                loadedAt.remove(model);
+                LOGGER.log(Level.WARNING, "Could not preload model " + model, error);
+            }
+        });
+        loads.put(model, load);
+        return load;
+    }
+}
@@ -1,6 +1,8 @@
 package com.org.ollamafx.manager;
 
+import com.org.ollamafx.model.GenerationStats;
 import com.org.ollamafx.model.OllamaModel;
+import com.org.ollamafx.model.PullProgress;
 import com.org.ollamafx.util.SecurityUtils;
 import com.org.ollamafx.util.Utils;
 
@@ -27,11 +29,13 @@ import java.net.http.HttpResponse;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.nio.charset.StandardCharsets;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
 import java.util.HashMap;
+import java.util.function.Consumer;
 import io.github.ollama4j.models.chat.OllamaChatMessage;
 import io.github.ollama4j.models.chat.OllamaChatMessageRole;
 import io.github.ollama4j.models.chat.OllamaChatRequest;
@@ -50,13 +54,18 @@ public class OllamaManager {
     private OllamaAPI client;
     private final HttpClient httpClient;
     private final ObjectMapper mapper;
-    private volatile InputStream activeStream; // To support forceful cancellation
 
     private static final Logger LOGGER = Logger.getLogger(OllamaManager.class.getName());
 
     private OllamaManager() {
+        // A couple of daemon threads decode every stream; nothing blocks per request
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(2, r -> {
+                    Thread t = new Thread(r, "ollama-http");
+                    t.setDaemon(true);
+                    return t;
+                }))
                 .build();
         this.mapper = new ObjectMapper();
         updateClient();
@@ -268,79 +277,70 @@ public class OllamaManager {
         return modelTags;
     }
 
-    public interface ProgressCallback {
-        void onProgress(double progress, String status);
-    }
-
     /**
-     * Descarga un modelo desde Ollama.
-     * Nota: La librería ollama4j tiene soporte limitado para callbacks de progreso
-     * en algunas versiones.
-     * Si no soporta callbacks granulares, simularemos o usaremos lo que haya.
-     * 
+     * Descarga un modelo con /api/pull, funciona contra cualquier host configurado.
+     * The returned future completes when Ollama reports "success"; cancelling it
+     * aborts the transfer. Layers already downloaded stay in Ollama's blob store,
+     * so a later pull of the same model resumes from them.
+     *
      * @param modelName Nombre del modelo
      * @param tag       Tag del modelo
-     * @param callback  Callback para actualizar la UI
+     * @param listener  Recibe el progreso (bytes, capas, velocidad, ETA); runs on
+     *                  an HTTP thread
      */
-    public void pullModel(String modelName, String tag, ProgressCallback callback) throws Exception {
+    public CompletableFuture<Void> pullModelAsync(String modelName, String tag, Consumer<PullProgress> listener) {
         if (!SecurityUtils.isValidModelName(modelName) ||
                 !SecurityUtils.isValidModelName(tag)) {
-            throw new IllegalArgumentException("Invalid model name or tag.");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid model name or tag."));
         }
         String fullName = modelName + ":" + tag;
 
-        // Usamos ProcessBuilder para ejecutar "ollama pull" y leer la salida
-        ProcessBuilder builder = new ProcessBuilder(Utils.getOllamaExecutable(), "pull",
-                fullName);
-        builder.redirectErrorStream(true); // Combinar stderr y stdout
-
-        Process process = builder.start();
-
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Parsear la línea para extraer progreso
-                // Formatos típicos de Ollama:
-                // "pulling manifest"
-                // "pulling <hash>... 100%"
-                // "verifying sha256 digest"
-                // "success"
-
-                String status = line;
-                double progress = -1; // Indeterminado por defecto
-
-                if (line.contains("%")) {
-                    // Intentar extraer el porcentaje
-                    try {
-                        // Buscar el último número antes del %
-                        int percentIndex = line.lastIndexOf('%');
-                        // Retroceder para encontrar el inicio del número
-                        int start = percentIndex - 1;
-                        while (start >= 0 && (Character.isDigit(line.charAt(start)) || line.charAt(start) == '.')) {
-                            start--;
-                        }
-                        String numStr = line.substring(start + 1, percentIndex).trim();
-                        progress = Double.parseDouble(numStr);
-                    } catch (Exception e) {
-                        LOGGER.log(Level.WARNING, "Error parsing progress from line: " + line, e);
-                        // Ignorar errores de parsing, mantener progreso actual o indeterminado
-                    }
-                } else if (line.contains("success")) {
-                    progress = 100;
-                }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("model", fullName);
+        payload.put("name", fullName); // Older servers only read "name"
+        payload.put("stream", true);
 
-                if (callback != null) {
-                    callback.onProgress(progress, status);
+        PullBodySubscriber subscriber = new PullBodySubscriber(mapper, listener);
+        CompletableFuture<Void> result = subscriber.getResult();
+        try {
+            // No request timeout: a pull of several GB legitimately takes long
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ConfigManager.getInstance().getOllamaHost() + "/api/pull"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(payload)))
+                    .build();
+
+            HttpResponse.BodyHandler<Void> bodyHandler = info -> {
+                if (info.statusCode() != 200) {
+                    return HttpResponse.BodySubscribers.mapping(
+                            HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                                result.completeExceptionally(
+                                        new Exception(parseErrorBody(info.statusCode(), body)));
+                                return null;
+                            });
                 }
-            }
-        }
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new Exception("Ollama pull failed with exit code: " + exitCode);
+                return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber, s -> null,
+                        StandardCharsets.UTF_8, null);
+            };
+
+            CompletableFuture<HttpResponse<Void>> exchange = httpClient.sendAsync(request, bodyHandler);
+            exchange.whenComplete((response, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error);
+                }
+            });
+            result.whenComplete((v, error) -> {
+                if (result.isCancelled()) {
+                    subscriber.cancel();
+                    exchange.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            result.completeExceptionally(e);
         }
+        return result;
     }
 
     public void deleteModel(String modelName, String tag) throws Exception {
@@ -349,20 +349,22 @@ public class OllamaManager {
             throw new IllegalArgumentException("Invalid model name or tag.");
         }
         String fullName = modelName + ":" + tag;
-        ProcessBuilder builder = new ProcessBuilder(Utils.getOllamaExecutable(), "rm", fullName);
-        builder.redirectErrorStream(true);
-        Process process = builder.start();
-
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-            while (reader.readLine() != null) {
-                // Drain the buffer
-            }
-        }
 
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new Exception("Ollama rm failed with exit code: " + exitCode);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("model", fullName);
+        payload.put("name", fullName); // Older servers only read "name"
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(ConfigManager.getInstance().getOllamaHost() + "/api/delete"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(ConfigManager.getInstance().getApiTimeout()))
+                .method("DELETE", HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(payload)))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request,
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() != 200) {
+            throw new Exception(parseErrorBody(response.statusCode(), response.body()));
         }
     }
 
@@ -395,41 +397,103 @@ public class OllamaManager {
         return result.getResponse();
     }
 
+    /**
+     * Compatibility wrapper over {@link #streamChat}: the handler receives the
+     * accumulated response on every token, as ollama4j does. Errors are rethrown
+     * to the caller.
+     */
     public void askModelStream(String modelName, String prompt, List<String> images,
             Map<String, Object> requestOptions, String systemPrompt,
             OllamaStreamHandler handler)
             throws Exception {
+        AccumulatingStreamListener adapter = new AccumulatingStreamListener(handler);
+        streamChat(modelName, prompt, images, requestOptions, systemPrompt, adapter);
+        Throwable error = adapter.getError();
+        if (error instanceof Exception) {
+            throw (Exception) error;
+        } else if (error != null) {
+            throw new Exception(error);
+        }
+    }
 
-        // Build Payload manually
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("model", modelName);
-        payload.put("stream", true);
+    /**
+     * Streams a chat response token by token and blocks the calling thread until
+     * it ends. Interrupting the thread cancels the request. The outcome is always
+     * reported through the listener.
+     */
+    public void streamChat(String modelName, String prompt, List<String> images,
+            Map<String, Object> requestOptions, String systemPrompt,
+            ChatStreamListener listener) {
+        // Listeners run in order, so this one fires after the caller's has finished
+        CountDownLatch finished = new CountDownLatch(1);
+        GenerationHandle handle = GenerationRegistry.getInstance().register(null);
+        handle.addListener(listener);
+        handle.addListener(new ChatStreamListener() {
+            @Override
+            public void onDelta(String delta) {
+            }
 
-        List<Map<String, Object>> messages = new ArrayList<>();
+            @Override
+            public void onComplete(GenerationStats stats) {
+                finished.countDown();
+            }
 
-        // Some vision models don't support system prompts alongside images.
-        // Only include system prompt when there are no images.
-        boolean hasImages = images != null && !images.isEmpty();
-        if (!hasImages && systemPrompt != null && !systemPrompt.trim().isEmpty()) {
-            Map<String, Object> sysMsg = new HashMap<>();
-            sysMsg.put("role", "system");
-            sysMsg.put("content", systemPrompt);
-            messages.add(sysMsg);
+            @Override
+            public void onError(Throwable error) {
+                finished.countDown();
+            }
+        });
+        streamChatAsync(handle, modelName, prompt, images, requestOptions, systemPrompt);
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            handle.cancel();
+            Thread.currentThread().interrupt();
         }
+    }
+
+    /**
+     * Starts a streaming chat request without blocking, registered as a
+     * background generation.
+     *
+     * @return handle to cancel this request only
+     */
+    public GenerationHandle streamChatAsync(String modelName, String prompt, List<String> images,
+            Map<String, Object> requestOptions, String systemPrompt,
+            ChatStreamListener listener) {
+        GenerationHandle handle = GenerationRegistry.getInstance().register(null);
+        handle.addListener(listener);
+        return streamChatAsync(handle, modelName, prompt, images, requestOptions, systemPrompt);
+    }
+
+    /**
+     * Runs a single-turn streaming chat request (system prompt plus one user
+     * message, no history) on a handle obtained from {@link GenerationRegistry}.
+     */
+    public GenerationHandle streamChatAsync(GenerationHandle handle, String modelName, String prompt,
+            List<String> images, Map<String, Object> requestOptions, String systemPrompt) {
+        return streamChatAsync(handle, modelName, ContextAssembler.singleTurn(systemPrompt, prompt, images),
+                requestOptions);
+    }
 
-        Map<String, Object> userMsg = new HashMap<>();
-        userMsg.put("role", "user");
-        // Ensure content is never empty — use a default for image-only messages
-        String messageContent = (prompt != null && !prompt.trim().isEmpty())
-                ? prompt
-                : (hasImages ? "What is in this image?" : prompt);
-        userMsg.put("content", messageContent);
-        if (hasImages) {
-            userMsg.put("images", images);
+    /**
+     * Runs a streaming chat request with a prepared messages array, typically
+     * built by {@link ContextAssembler#assemble}. Bytes are decoded on the shared
+     * HTTP executor as they arrive and dispatched to the handle's listeners. If
+     * the handle was cancelled beforehand nothing is sent.
+     */
+    public GenerationHandle streamChatAsync(GenerationHandle handle, String modelName,
+            List<Map<String, Object>> messages, Map<String, Object> requestOptions) {
+        if (handle.isDone()) {
+            return handle;
         }
-        messages.add(userMsg);
 
+        // Build Payload manually
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("model", modelName);
+        payload.put("stream", true);
         payload.put("messages", messages);
+        payload.put("keep_alive", ConfigManager.getInstance().getKeepAliveValue());
 
         // Options: Merge any defaults if needed, but here we assume requestOptions is
         // complete or null
@@ -442,104 +506,142 @@ public class OllamaManager {
             payload.put("options", defaultOptions);
         }
 
-        String jsonBody = mapper.writeValueAsString(payload);
-        // Debug: log payload (truncate images for readability)
-        if (hasImages) {
-            LOGGER.log(Level.INFO, "[OllamaFX] Sending multimodal request to model: {0}, images count: {1}",
-                    new Object[] { modelName, images.size() });
+        int imageCount = 0;
+        for (Map<String, Object> msg : messages) {
+            Object images = msg.get("images");
+            if (images instanceof List) {
+                imageCount += ((List<?>) images).size();
+            }
         }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(ConfigManager.getInstance().getOllamaHost() + "/api/chat"))
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(ConfigManager.getInstance().getApiTimeout()))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-        HttpResponse<InputStream> response;
         try {
-            // Use send (blocking) but handle interruption gracefully
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-        } catch (HttpTimeoutException e) {
-            System.err.println("[OllamaFX] API Timeout: " + e.getMessage());
-            int timeoutVal = ConfigManager.getInstance().getApiTimeout();
-            String lang = ConfigManager.getInstance().getLanguage();
-            ResourceBundle bundle = ResourceBundle.getBundle("messages",
-                    new Locale(lang));
-            String errorMsg = bundle.getString("error.timeout").replace("{0}", String.valueOf(timeoutVal));
-            throw new Exception(errorMsg);
-        }
-
-        if (response.statusCode() != 200) {
-            // Read error body for diagnostics
-            String errorBody = "";
-            try (var errorReader = new BufferedReader(
-                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
-                errorBody = errorReader.lines().collect(Collectors.joining("\n"));
-            } catch (Exception ignored) {
+            String jsonBody = mapper.writeValueAsString(payload);
+            if (imageCount > 0) {
+                LOGGER.log(Level.INFO, "[OllamaFX] Sending multimodal request to model: {0}, images count: {1}",
+                        new Object[] { modelName, imageCount });
             }
 
-            // Try to parse JSON to get a clean error string for the UI
-            String displayError = errorBody;
-            try {
-                JsonNode node = mapper.readTree(errorBody);
-                if (node.has("error")) {
-                    displayError = node.get("error").asText();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ConfigManager.getInstance().getOllamaHost() + "/api/chat"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(ConfigManager.getInstance().getApiTimeout()))
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                    .build();
+
+            ChatBodySubscriber subscriber = new ChatBodySubscriber(mapper.getFactory(), handle);
+            HttpResponse.BodyHandler<Void> bodyHandler = info -> {
+                if (info.statusCode() != 200) {
+                    // Buffer the (small) error body and report it
+                    return HttpResponse.BodySubscribers.mapping(
+                            HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                                handle.fail(new Exception(parseErrorBody(info.statusCode(), body)));
+                                return null;
+                            });
                 }
-            } catch (Exception e) {
-                // Fallback to raw errorBody if not JSON
-            }
-
-            System.err.println("[OllamaFX] API Error " + response.statusCode() + ": " + errorBody);
-            throw new Exception(displayError);
+                handle.started();
+                return HttpResponse.BodySubscribers.fromSubscriber(subscriber, s -> null);
+            };
+
+            handle.markSent();
+            CompletableFuture<HttpResponse<Void>> exchange = httpClient.sendAsync(request, bodyHandler);
+            handle.setCanceller(() -> exchange.cancel(true));
+            exchange.whenComplete((response, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof HttpTimeoutException) {
+                        System.err.println("[OllamaFX] API Timeout: " + cause.getMessage());
+                        handle.fail(new Exception(timeoutMessage()));
+                    } else {
+                        handle.fail(cause);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            handle.fail(e);
         }
+        return handle;
+    }
 
-        this.activeStream = response.body(); // Capture stream
-
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(activeStream, StandardCharsets.UTF_8))) {
-            String line;
-            StringBuilder fullContent = new StringBuilder();
+    /**
+     * Loads a model into memory without generating anything (/api/generate with
+     * no prompt), keeping it resident for the configured keep_alive. There is no
+     * request timeout: a large model may take minutes to load and the first chat
+     * request would otherwise pay for it.
+     */
+    public CompletableFuture<Void> loadModel(String modelName) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("model", modelName);
+        payload.put("keep_alive", ConfigManager.getInstance().getKeepAliveValue());
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ConfigManager.getInstance().getOllamaHost() + "/api/generate"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(payload)))
+                    .build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new CompletionException(
+                                    new Exception(parseErrorBody(response.statusCode(), response.body())));
+                        }
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-            while ((line = reader.readLine()) != null) {
-                if (Thread.currentThread().isInterrupted()) {
-                    return; // Stop reading
-                }
+    /**
+     * Evaluates a conversation prefix and generates a single token, so the
+     * runner's KV cache already holds the prefix when the real request arrives.
+     * The options must carry the same num_ctx as the later request, otherwise
+     * the model is reloaded. Cancelling the returned future aborts the request.
+     */
+    public CompletableFuture<HttpResponse<String>> evaluatePrefix(String modelName,
+            List<Map<String, Object>> messages, Map<String, Object> requestOptions) {
+        Map<String, Object> options = new HashMap<>(requestOptions);
+        options.put("num_predict", 1);
 
-                try {
-                    JsonNode node = mapper.readTree(line);
-                    if (node.has("message")) {
-                        JsonNode msgNode = node.get("message");
-                        if (msgNode.has("content")) {
-                            String content = msgNode.get("content").asText();
-                            // If I send DELTAS now, the UI will just flash single characters.
-                            // So I MUST ACCUMULATE here before calling handler.accept
-
-                            fullContent.append(content);
-                            handler.accept(fullContent.toString());
-                        }
-                    }
-                    if (node.has("done") && node.get("done").asBoolean()) {
-                        break;
-                    }
-                } catch (RuntimeException re) {
-                    // Re-throw (e.g., Cancelled by user)
-                    throw re;
-                } catch (Exception e) {
-                }
-            }
-        } finally {
-            this.activeStream = null; // Clean up
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("model", modelName);
+        payload.put("stream", false);
+        payload.put("messages", messages);
+        payload.put("options", options);
+        payload.put("keep_alive", ConfigManager.getInstance().getKeepAliveValue());
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ConfigManager.getInstance().getOllamaHost() + "/api/chat"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(payload)))
+                    .build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    public void cancelCurrentRequest() {
-        if (activeStream != null) {
-            try {
-                activeStream.close(); // This will throw IOException in the read loop
-            } catch (IOException e) {
-                e.printStackTrace();
+    private String timeoutMessage() {
+        int timeoutVal = ConfigManager.getInstance().getApiTimeout();
+        String lang = ConfigManager.getInstance().getLanguage();
+        ResourceBundle bundle = ResourceBundle.getBundle("messages",
+                new Locale(lang));
+        return bundle.getString("error.timeout").replace("{0}", String.valueOf(timeoutVal));
+    }
+
+    private String parseErrorBody(int statusCode, String errorBody) {
+        // Try to parse JSON to get a clean error string for the UI
+        String displayError = errorBody;
+        try {
+            JsonNode node = mapper.readTree(errorBody);
+            if (node.has("error")) {
+                displayError = node.get("error").asText();
             }
+        } catch (Exception e) {
+            // Fallback to raw errorBody if not JSON
         }
+
+        System.err.println("[OllamaFX] API Error " + statusCode + ": " + errorBody);
+        return displayError;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.org.ollamafx.manager;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pre-evaluates the stable part of the next chat request (system prompt and
+ * history) while the user is still typing, so the runner's KV cache already
+ * holds it and the real request only has to evaluate the new turn.
+ *
+ * Only the latest prefix is tracked: the runner keeps one cached prompt per
+ * slot, so warming a second chat would evict the first one anyway.
+ */
+public class PrefixWarmer {
+
+    private static final Logger LOGGER = Logger.getLogger(PrefixWarmer.class.getName());
+
+    private static PrefixWarmer instance;
+
+    private CompletableFuture<HttpResponse<String>> inFlight;
+    private String warmSessionId;
+    private int warmKey;
+    private boolean warmed;
+
+    private PrefixWarmer() {
+    }
+
+    public static synchronized PrefixWarmer getInstance() {
+        if (instance == null) {
+            instance = new PrefixWarmer();
+        }
+        return instance;
+    }
+
+    /**
+     * Sends the prefix unless the same one is already warm or being warmed.
+     * Any other warm-up still running is cancelled.
+     */
+    public synchronized void warm(String sessionId, String model, List<Map<String, Object>> prefix,
+            Map<String, Object> options) {
+        int key = key(model, prefix, options);
+        if (sessionId.equals(warmSessionId) && key == warmKey && (warmed || inFlight != null)) {
+            return;
+        }
+        cancel();
+
+        warmSessionId = sessionId;
+        warmKey = key;
+        warmed = false;
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> request = OllamaManager.getInstance().evaluatePrefix(model, prefix,
+                options);
+        inFlight = request;
+        request.whenComplete((response, error) -> {
+            synchronized (PrefixWarmer.this) {
+                if (inFlight != request) {
+                    return; // Superseded or cancelled
+                }
+                inFlight = null;
+                if (error == null && response.statusCode() == 200) {
+                    warmed = true;
+                    LOGGER.log(Level.FINE, "Prefix of {0} warmed in {1} ms ({2} messages)",
+                            new Object[] { sessionId, (System.nanoTime() - start) / 1_000_000, prefix.size() });
+                } else {
+                    LOGGER.log(Level.FINE, "Prefix warm-up failed: {0}",
+                            error != null ? error.getMessage() : response.body());
+                }
+            }
+        });
+    }
+
+    /**
+     * True if this exact prefix finished warming and nothing else was sent since.
+     */
+    public synchronized boolean isWarm(String sessionId, String model, List<Map<String, Object>> prefix,
+            Map<String, Object> options) {
+        return warmed && sessionId.equals(warmSessionId) && key(model, prefix, options) == warmKey;
+    }
+
+    /** Aborts a warm-up in progress, e.g. on chat switch or before a real send. */
+    public synchronized void cancel() {
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    /** Forgets the warm prefix once a real request has replaced it in the cache. */
+    public synchronized void invalidate() {
+        cancel();
+        warmed = false;
+        warmSessionId = null;
+    }
+
+    private static int key(String model, List<Map<String, Object>> prefix, Map<String, Object> options) {
+        // num_ctx changes reload the model, the other options don't affect the cache
+        return Objects.hash(model, options.get("num_ctx"), prefix);
+    }
+}
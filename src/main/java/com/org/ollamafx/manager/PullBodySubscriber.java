@@ -0,0 +1,91 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.ollamafx.model.PullProgress;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the /api/pull NDJSON body line by line. Each line updates a
+ * {@link PullTracker}; the result completes on the final "success" line or
+ * fails on an "error" line or a body that ends early.
+ */
+class PullBodySubscriber implements Flow.Subscriber<String> {
+
+    private final ObjectMapper mapper;
+    private final Consumer<PullProgress> listener;
+    private final PullTracker tracker = new PullTracker();
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private volatile Flow.Subscription subscription;
+
+    PullBodySubscriber(ObjectMapper mapper, Consumer<PullProgress> listener) {
+        this.mapper = mapper;
+        this.listener = listener;
+    }
+
+    CompletableFuture<Void> getResult() {
+        return result;
+    }
+
+    void cancel() {
+        Flow.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (result.isDone()) {
+            subscription.cancel();
+        } else {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(String line) {
+        if (result.isDone()) {
+            subscription.cancel();
+            return;
+        }
+        try {
+            if (!line.isBlank()) {
+                JsonNode node = mapper.readTree(line);
+                if (node.has("error")) {
+                    subscription.cancel();
+                    result.completeExceptionally(new Exception(node.get("error").asText()));
+                    return;
+                }
+                PullProgress progress = tracker.update(node);
+                if (progress != null && listener != null) {
+                    listener.accept(progress);
+                }
+                if (progress != null && progress.isSuccess()) {
+                    result.complete(null);
+                }
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (!result.isDone()) {
+            result.completeExceptionally(new IOException("Pull ended before the model was complete"));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.org.ollamafx.manager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.org.ollamafx.model.PullProgress;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds /api/pull NDJSON lines into {@link PullProgress} snapshots: keeps the
+ * per-layer byte counts, derives a smoothed transfer rate and an ETA, and
+ * limits how often a snapshot is produced.
+ */
+class PullTracker {
+
+    /** Weight of the newest rate sample in the moving average. */
+    private static final double RATE_SMOOTHING = 0.3;
+    private static final long RATE_SAMPLE_MS = 500;
+    /** Progress lines arrive every few milliseconds; the UI needs far fewer. */
+    private static final long EMIT_INTERVAL_MS = 100;
+
+    private final Map<String, long[]> layers = new LinkedHashMap<>();
+    private String status = "";
+    private double rate;
+    private long sampleBytes = -1;
+    private long sampleAt;
+    private long lastEmit;
+
+    /**
+     * Applies one decoded line.
+     *
+     * @return a snapshot to publish, or null if it is too soon after the last one
+     */
+    PullProgress update(JsonNode line) {
+        String newStatus = line.path("status").asText("");
+        boolean statusChanged = !newStatus.equals(status);
+        status = newStatus;
+
+        String digest = line.path("digest").asText(null);
+        if (digest != null && !digest.isEmpty()) {
+            long[] layer = layers.computeIfAbsent(digest, d -> new long[2]);
+            if (line.has("total")) {
+                layer[1] = line.get("total").asLong();
+            }
+            if (line.has("completed")) {
+                layer[0] = line.get("completed").asLong();
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long completed = 0;
+        long total = 0;
+        for (long[] layer : layers.values()) {
+            completed += layer[0];
+            total += layer[1];
+        }
+        sampleRate(completed, now);
+
+        if (!statusChanged && !"success".equals(status) && now - lastEmit < EMIT_INTERVAL_MS) {
+            return null;
+        }
+        lastEmit = now;
+        return snapshot(completed, total);
+    }
+
+    private void sampleRate(long completed, long now) {
+        if (sampleBytes < 0) {
+            sampleBytes = completed;
+            sampleAt = now;
+            return;
+        }
+        long elapsed = now - sampleAt;
+        if (elapsed < RATE_SAMPLE_MS) {
+            return;
+        }
+        double current = Math.max(0, completed - sampleBytes) * 1000.0 / elapsed;
+        rate = rate == 0 ? current : RATE_SMOOTHING * current + (1 - RATE_SMOOTHING) * rate;
+        sampleBytes = completed;
+        sampleAt = now;
+    }
+
+    private PullProgress snapshot(long completed, long total) {
+        List<PullProgress.Layer> list = new ArrayList<>(layers.size());
+        for (Map.Entry<String, long[]> entry : layers.entrySet()) {
+            list.add(new PullProgress.Layer(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        long eta = rate > 0 && total > 0 ? (long) Math.ceil((total - completed) / rate) : -1;
+        return new PullProgress(status, list, completed, total, rate, eta);
+    }
+}
@@ -0,0 +1,205 @@
+package com.org.ollamafx.manager;
+
+import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.SmartCollection;
+import com.org.ollamafx.model.SmartCollection.Condition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Materialized membership of the smart collections.
+ *
+ * Each collection keeps the set of chats matching all of its conditions. The
+ * set is computed in full when the collection is created or edited, and from
+ * then on updated one chat at a time as chats are added, removed or changed,
+ * so listing a collection does not look at the other chats.
+ *
+ * Keyword matches in message content come from {@link ChatSearchManager} and
+ * are cached per keyword; the owner refreshes them as chats are reindexed.
+ *
+ * DATE values: "N" (the last N days, today included), "today", or a range
+ * "YYYY-MM-DD..YYYY-MM-DD" where either end may be left out.
+ *
+ * FX thread only, except {@link #keywords()}.
+ */
+class SmartCollectionViews {
+
+    /** Same order as the chat list: pinned first, then newest first. */
+    private static final Comparator<ChatSession> ORDER = Comparator
+            .comparing((ChatSession c) -> !c.isPinned())
+            .thenComparing(ChatSession::getCreationDate, Comparator.reverseOrder());
+
+    /** The chat list: chats outside it (in the trash) belong to no collection. */
+    private final Map<String, ChatSession> chats = new HashMap<>();
+    /** Members by collection id. */
+    private final Map<String, Set<ChatSession>> members = new HashMap<>();
+    /** Ids of the chats with a message matching each keyword. */
+    private final Map<String, Set<String>> contentMatches = new HashMap<>();
+    /** Copy of the keys of contentMatches, for the indexer thread. */
+    private volatile Set<String> keywords = Set.of();
+
+    /** Computes the collection from scratch. */
+    void rebuild(SmartCollection sc) {
+        for (Condition condition : sc.getConditions()) {
+            if (condition.getCriteria() == SmartCollection.Criteria.KEYWORD && condition.getValue() != null) {
+                contentMatches.put(condition.getValue(),
+                        ChatSearchManager.getInstance().findSessions(condition.getValue()));
+                keywords = Set.copyOf(contentMatches.keySet());
+            }
+        }
+        Set<ChatSession> set = new HashSet<>();
+        for (ChatSession chat : chats.values()) {
+            if (matches(sc, chat)) {
+                set.add(chat);
+            }
+        }
+        members.put(sc.getId(), set);
+    }
+
+    void remove(SmartCollection sc) {
+        members.remove(sc.getId());
+    }
+
+    /** Adds a chat to the list and to the collections it matches. Returns whether any membership changed. */
+    boolean chatAdded(Collection<SmartCollection> collections, ChatSession chat) {
+        chats.put(chat.getId().toString(), chat);
+        return update(collections, chat);
+    }
+
+    /** Re-evaluates a listed chat against every collection. Returns whether any membership changed. */
+    boolean chatChanged(Collection<SmartCollection> collections, ChatSession chat) {
+        return chats.get(chat.getId().toString()) == chat && update(collections, chat);
+    }
+
+    /** The listed chat with the id, or null. */
+    ChatSession getChat(String sessionId) {
+        return chats.get(sessionId);
+    }
+
+    private boolean update(Collection<SmartCollection> collections, ChatSession chat) {
+        boolean changed = false;
+        for (SmartCollection sc : collections) {
+            Set<ChatSession> set = members.computeIfAbsent(sc.getId(), id -> new HashSet<>());
+            changed |= matches(sc, chat) ? set.add(chat) : set.remove(chat);
+        }
+        return changed;
+    }
+
+    /** Drops a chat that left the chat list. Returns whether it was in any collection. */
+    boolean chatRemoved(ChatSession chat) {
+        chats.remove(chat.getId().toString(), chat);
+        boolean changed = false;
+        for (Set<ChatSession> set : members.values()) {
+            changed |= set.remove(chat);
+        }
+        return changed;
+    }
+
+    /** Keywords whose content matches are cached. Any thread. */
+    Set<String> keywords() {
+        return keywords;
+    }
+
+    /** Stores whether the chat's messages match each keyword, as found after it was reindexed. */
+    void setContentMatches(String sessionId, Map<String, Boolean> matchesByKeyword) {
+        matchesByKeyword.forEach((keyword, match) -> {
+            Set<String> ids = contentMatches.get(keyword);
+            if (ids != null) {
+                if (match) {
+                    ids.add(sessionId);
+                } else {
+                    ids.remove(sessionId);
+                }
+            }
+        });
+    }
+
+    /** Members in chat list order. */
+    List<ChatSession> getMembers(SmartCollection sc) {
+        List<ChatSession> list = new ArrayList<>(members.getOrDefault(sc.getId(), Set.of()));
+        list.sort(ORDER);
+        return list;
+    }
+
+    /** Whether the collection's members change as time passes, e.g. "last 7 days". */
+    static boolean isRelative(SmartCollection sc) {
+        for (Condition condition : sc.getConditions()) {
+            if (condition.getCriteria() == SmartCollection.Criteria.DATE && condition.getValue() != null
+                    && !condition.getValue().contains("..")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(SmartCollection sc, ChatSession chat) {
+        if (sc.getConditions().isEmpty()) {
+            return false;
+        }
+        for (Condition condition : sc.getConditions()) {
+            if (!matches(condition, chat)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(Condition condition, ChatSession chat) {
+        String value = condition.getValue() != null ? condition.getValue().trim() : "";
+        if (condition.getCriteria() == null || value.isEmpty()) {
+            return false;
+        }
+        switch (condition.getCriteria()) {
+            case KEYWORD:
+                if (chat.getName() != null && chat.getName().toLowerCase().contains(value.toLowerCase())) {
+                    return true;
+                }
+                Set<String> ids = contentMatches.get(condition.getValue());
+                return ids != null && ids.contains(chat.getId().toString());
+            case MODEL:
+                return chat.getModelName() != null && chat.getModelName().equalsIgnoreCase(value);
+            case DATE:
+                LocalDateTime date = condition.getDateField() == SmartCollection.DateField.LAST_ACTIVITY
+                        && chat.getLastActivity() != null ? chat.getLastActivity() : chat.getCreationDate();
+                LocalDateTime[] range = parseRange(value);
+                return date != null && range != null
+                        && (range[0] == null || !date.isBefore(range[0]))
+                        && (range[1] == null || date.isBefore(range[1]));
+            default:
+                return false;
+        }
+    }
+
+    /** [from, to) for a DATE value, either end null when open; null if the value is not valid. */
+    static LocalDateTime[] parseRange(String value) {
+        String v = value.trim().toLowerCase();
+        LocalDate today = LocalDate.now();
+        try {
+            if (v.equals("today")) {
+                return new LocalDateTime[] { today.atStartOfDay(), null };
+            }
+            int dots = v.indexOf("..");
+            if (dots < 0) {
+                int days = Integer.parseInt(v);
+                return days > 0 ? new LocalDateTime[] { today.minusDays(days - 1L).atStartOfDay(), null } : null;
+            }
+            String from = v.substring(0, dots).trim();
+            String to = v.substring(dots + 2).trim();
+            return new LocalDateTime[] {
+                    from.isEmpty() ? null : LocalDate.parse(from).atStartOfDay(),
+                    to.isEmpty() ? null : LocalDate.parse(to).plusDays(1).atStartOfDay() };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.org.ollamafx.manager;
+
+import com.org.ollamafx.model.ChatMessage;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Local token estimator. Ollama does not expose a tokenizer endpoint, so counts
+ * are approximated per model family from how its vocabulary splits words, CJK
+ * text and code symbols. The result is an estimate, good enough to size the
+ * context window before sending, not an exact count.
+ *
+ * Counts for history messages are cached by message and content identity, so
+ * only new or edited text is scanned again.
+ */
+public class TokenCounter {
+
+    /** Approximate tokenizer behaviour of a model family. */
+    public enum Profile {
+        // Large BPE vocabularies (128k+): long word pieces, CJK often one token per char or less
+        LLAMA3(4.2, 0.8, 0.6, 576),
+        QWEN(4.0, 0.6, 0.6, 576),
+        GEMMA(4.3, 0.7, 0.6, 256),
+        // SentencePiece 32k vocabularies: shorter pieces, CJK often split in bytes
+        SENTENCEPIECE_32K(3.4, 1.3, 0.8, 576),
+        DEFAULT(3.8, 1.0, 0.7, 576);
+
+        final double charsPerToken;
+        final double tokensPerCjkChar;
+        final double tokensPerSymbol;
+        final int imageTokens;
+
+        Profile(double charsPerToken, double tokensPerCjkChar, double tokensPerSymbol, int imageTokens) {
+            this.charsPerToken = charsPerToken;
+            this.tokensPerCjkChar = tokensPerCjkChar;
+            this.tokensPerSymbol = tokensPerSymbol;
+            this.imageTokens = imageTokens;
+        }
+    }
+
+    /** Role and separator tokens the chat template adds around every message. */
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    private static TokenCounter instance;
+
+    private final Map<ChatMessage, CachedCount> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final class CachedCount {
+        final String content;
+        final Profile profile;
+        final int tokens;
+
+        CachedCount(String content, Profile profile, int tokens) {
+            this.content = content;
+            this.profile = profile;
+            this.tokens = tokens;
+        }
+    }
+
+    private TokenCounter() {
+    }
+
+    public static synchronized TokenCounter getInstance() {
+        if (instance == null) {
+            instance = new TokenCounter();
+        }
+        return instance;
+    }
+
+    public static Profile profileFor(String modelName) {
+        if (modelName == null) {
+            return Profile.DEFAULT;
+        }
+        String name = modelName.toLowerCase(Locale.ROOT);
+        if (name.startsWith("llama3") || name.startsWith("llama-3") || name.startsWith("gpt-oss")
+                || name.startsWith("deepseek-r1") || name.startsWith("hermes3")) {
+            return Profile.LLAMA3;
+        }
+        if (name.startsWith("qwen")) {
+            return Profile.QWEN;
+        }
+        if (name.startsWith("gemma")) {
+            return Profile.GEMMA;
+        }
+        if (name.startsWith("llama2") || name.startsWith("mistral") || name.startsWith("mixtral")
+                || name.startsWith("phi3") || name.startsWith("tinyllama") || name.startsWith("codellama")
+                || name.startsWith("vicuna") || name.startsWith("llava")) {
+            return Profile.SENTENCEPIECE_32K;
+        }
+        return Profile.DEFAULT;
+    }
+
+    /** Estimated tokens of a message including its template overhead. Cached. */
+    public int count(ChatMessage message, String modelName) {
+        Profile profile = profileFor(modelName);
+        String content = message.getContent();
+        CachedCount cached = cache.get(message);
+        // Identity check: getContent() returns the same String while the text is unchanged
+        if (cached != null && cached.content == content && cached.profile == profile) {
+            return cached.tokens;
+        }
+        int tokens = count(content, profile) + MESSAGE_OVERHEAD;
+        cache.put(message, new CachedCount(content, profile, tokens));
+        return tokens;
+    }
+
+    public int count(String text, String modelName) {
+        return count(text, profileFor(modelName));
+    }
+
+    public int imageTokens(String modelName) {
+        return profileFor(modelName).imageTokens;
+    }
+
+    static int count(String text, Profile profile) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        double tokens = 0;
+        int wordLength = 0;
+        boolean nonLatinWord = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                tokens += wordTokens(wordLength, nonLatinWord, profile);
+                wordLength = 0;
+                nonLatinWord = false;
+                tokens += profile.tokensPerCjkChar;
+            } else if (Character.isLetterOrDigit(c)) {
+                wordLength++;
+                if (c > 0x024F) {
+                    nonLatinWord = true; // Cyrillic, Greek, Arabic... split into shorter pieces
+                }
+            } else {
+                tokens += wordTokens(wordLength, nonLatinWord, profile);
+                wordLength = 0;
+                nonLatinWord = false;
+                if (c == '\n') {
+                    tokens += 0.5;
+                } else if (!Character.isWhitespace(c)) {
+                    // Punctuation and code symbols: merged in pairs by large vocabularies
+                    tokens += profile.tokensPerSymbol;
+                }
+            }
+        }
+        tokens += wordTokens(wordLength, nonLatinWord, profile);
+        return (int) Math.ceil(tokens);
+    }
+
+    private static double wordTokens(int wordLength, boolean nonLatin, Profile profile) {
+        if (wordLength == 0) {
+            return 0;
+        }
+        double charsPerToken = nonLatin ? profile.charsPerToken * 0.5 : profile.charsPerToken;
+        return Math.max(1.0, Math.round(wordLength / charsPerToken));
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= 0x3040 && c <= 0x30FF) // Hiragana, Katakana
+                || (c >= 0x3400 && c <= 0x4DBF) // CJK Extension A
+                || (c >= 0x4E00 && c <= 0x9FFF) // CJK Unified Ideographs
+                || (c >= 0xAC00 && c <= 0xD7AF) // Hangul
+                || (c >= 0xF900 && c <= 0xFAFF); // CJK Compatibility
+    }
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.org.ollamafx.model.ChatFolder;
 import com.org.ollamafx.model.ChatSession;
 import com.org.ollamafx.model.TrashItem;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -16,22 +17,40 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Gestiona la papelera de reciclaje de OllamaFX.
  * Los items eliminados se mueven aquí antes de ser borrados físicamente.
  * Persiste en ~/.OllamaFX/trash.json
+ *
+ * Los chats se guardan como referencias a sus journals, que siguen en
+ * ~/.OllamaFX/chats hasta que se eliminan permanentemente. Los ids de los
+ * chats en la papelera se mantienen en un set para consultarlos en O(1).
  */
 public class TrashManager {
 
+    private static final long RETENTION_DAYS = 30;
+
     private static TrashManager instance;
 
     private final ObservableList<TrashItem> trashItems;
+    /** Ids of the chats in trashItems. */
+    private final Set<String> trashedChatIds = new HashSet<>();
     private final File storageFile;
-    private final File chatStorageDir;
     private final ObjectMapper objectMapper;
     private final List<Runnable> updateListeners = new ArrayList<>();
+    // Diferidos mientras hay un ChatBatch abierto
+    private boolean savePending;
+    private boolean updatePending;
 
     private TrashManager() {
         trashItems = FXCollections.observableArrayList();
@@ -41,7 +60,6 @@ public class TrashManager {
         storageDir.mkdirs();
 
         storageFile = new File(storageDir, "trash.json");
-        chatStorageDir = new File(storageDir, "chats");
 
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -49,7 +67,6 @@ public class TrashManager {
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
         load();
-        cleanOldItems(); // Limpiar items antiguos al inicio
     }
 
     public static synchronized TrashManager getInstance() {
@@ -63,15 +80,48 @@ public class TrashManager {
         return trashItems;
     }
 
+    /**
+     * Llamado por ChatManager al terminar de cargar los chats: las referencias
+     * ya se pueden resolver y se limpian los items antiguos.
+     */
+    void chatsLoaded() {
+        migrateEmbeddedChats();
+        cleanOldItems(); // Limpiar items antiguos al inicio
+    }
+
     public boolean isChatInTrash(String chatId) {
-        for (TrashItem item : trashItems) {
-            if (item.getType() == TrashItem.ItemType.CHAT && item.getChat() != null) {
-                if (item.getChat().getId().toString().equals(chatId)) {
-                    return true;
-                }
+        return trashedChatIds.contains(chatId);
+    }
+
+    /** The chat of a CHAT item, resolved from the chat files; null if its file is gone. */
+    private ChatSession resolveChat(TrashItem item) {
+        if (item.getChat() == null && item.getChatId() != null) {
+            ChatSession chat = ChatManager.getInstance().getStoredChat(item.getChatId());
+            if (chat != null) {
+                item.setChat(chat);
+            }
+        }
+        return item.getChat();
+    }
+
+    private void addItems(List<TrashItem> items) {
+        trashItems.addAll(0, items); // más reciente primero
+        for (TrashItem item : items) {
+            if (item.getType() == TrashItem.ItemType.CHAT && item.getChatId() != null) {
+                trashedChatIds.add(item.getChatId());
+            }
+        }
+    }
+
+    private void removeItems(List<TrashItem> items) {
+        Set<TrashItem> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(items);
+        trashItems.removeIf(toRemove::contains);
+        for (TrashItem item : items) {
+            if (item.getType() == TrashItem.ItemType.CHAT) {
+                trashedChatIds.remove(item.getChatId());
             }
         }
-        return false;
     }
 
     public void addUpdateListener(Runnable listener) {
@@ -79,10 +129,25 @@ public class TrashManager {
     }
 
     private void notifyUpdate() {
+        if (ChatBatch.isOpen()) {
+            updatePending = true;
+            return;
+        }
         for (Runnable l : updateListeners)
             l.run();
     }
 
+    /** Guarda y notifica lo que quedó pendiente mientras el lote estaba abierto. */
+    void batchClosed() {
+        if (savePending) {
+            save();
+        }
+        if (updatePending) {
+            updatePending = false;
+            notifyUpdate();
+        }
+    }
+
     // ─── Mover a papelera ────────────────────────────────────────────────────
 
     /**
@@ -90,18 +155,25 @@ public class TrashManager {
      * Remueve el chat de ChatManager y de su carpeta en CollectionManager.
      */
     public void trashChat(ChatSession chat) {
-        ChatCollectionManager cm = ChatCollectionManager.getInstance();
-        ChatFolder originalFolder = cm.getFolderForChat(chat);
-        String originalFolderId = originalFolder != null ? originalFolder.getId() : null;
-
-        // Remover de la colección (sin borrar archivo)
-        cm.removeChatFromFolder(chat);
-        ChatManager.getInstance().removeChatFromList(chat);
+        trashChats(List.of(chat));
+    }
 
-        TrashItem item = TrashItem.forChat(chat, originalFolderId);
-        trashItems.add(0, item); // más reciente primero
-        save();
-        notifyUpdate();
+    /** Mueve varios chats a la papelera en un solo lote. */
+    public void trashChats(Collection<ChatSession> chats) {
+        ChatCollectionManager cm = ChatCollectionManager.getInstance();
+        List<TrashItem> items = new ArrayList<>();
+        ChatBatch.run(() -> {
+            for (ChatSession chat : chats) {
+                ChatFolder originalFolder = cm.getFolderForChat(chat);
+                items.add(TrashItem.forChat(chat, originalFolder != null ? originalFolder.getId() : null));
+                // Remover de la colección (sin borrar archivo)
+                cm.removeChatFromFolder(chat);
+            }
+            ChatManager.getInstance().removeChatsFromList(chats);
+            addItems(items);
+            save();
+            notifyUpdate();
+        });
     }
 
     /**
@@ -109,29 +181,29 @@ public class TrashManager {
      */
     public void trashFolder(ChatFolder folder) {
         ChatCollectionManager cm = ChatCollectionManager.getInstance();
-        ChatManager chatManager = ChatManager.getInstance();
-
-        // Mover cada chat de la carpeta a la papelera individualmente
-        List<String> chatIds = new ArrayList<>(folder.getChatIds());
-        for (String chatId : chatIds) {
-            ChatSession chat = chatManager.getChatSessions().stream()
-                    .filter(c -> c.getId().toString().equals(chatId))
-                    .findFirst().orElse(null);
-            if (chat != null) {
-                cm.removeChatFromFolder(chat);
-                chatManager.removeChatFromList(chat);
-                TrashItem chatItem = TrashItem.forChat(chat, folder.getId());
-                trashItems.add(0, chatItem);
+
+        ChatBatch.run(() -> {
+            Map<String, ChatSession> chatsById = new HashMap<>();
+            for (ChatSession chat : ChatManager.getInstance().getChatSessions()) {
+                chatsById.put(chat.getId().toString(), chat);
             }
-        }
+            List<ChatSession> chats = new ArrayList<>();
+            for (String chatId : folder.getChatIds()) {
+                ChatSession chat = chatsById.get(chatId);
+                if (chat != null) {
+                    chats.add(chat);
+                }
+            }
+            // Los chats recuerdan esta carpeta como su origen
+            trashChats(chats);
 
-        // Mover la carpeta a la papelera
-        cm.removeFolderFromList(folder);
-        TrashItem folderItem = TrashItem.forFolder(folder);
-        trashItems.add(0, folderItem);
+            // Mover la carpeta a la papelera
+            cm.removeFolderFromList(folder);
+            addItems(List.of(TrashItem.forFolder(folder)));
 
-        save();
-        notifyUpdate();
+            save();
+            notifyUpdate();
+        });
     }
 
     // ─── Restaurar ───────────────────────────────────────────────────────────
@@ -141,25 +213,45 @@ public class TrashManager {
      * Lo devuelve a su carpeta original si aún existe, o a Uncategorized.
      */
     public void restoreChat(TrashItem item) {
-        if (item.getType() != TrashItem.ItemType.CHAT || item.getChat() == null)
-            return;
+        restoreChats(List.of(item));
+    }
 
-        ChatSession chat = item.getChat();
-        ChatManager.getInstance().restoreChatToList(chat);
+    /** Restaura varios chats en un solo lote. */
+    public void restoreChats(Collection<TrashItem> items) {
+        ChatCollectionManager cm = ChatCollectionManager.getInstance();
+        ChatBatch.run(() -> {
+            List<TrashItem> restored = new ArrayList<>();
+            List<ChatSession> chats = new ArrayList<>();
+            for (TrashItem item : items) {
+                if (item.getType() != TrashItem.ItemType.CHAT)
+                    continue;
+                ChatSession chat = resolveChat(item);
+                if (chat == null) {
+                    System.err.println("TrashManager: Chat file not found, cannot restore " + item.getChatId());
+                    continue;
+                }
+                restored.add(item);
+                chats.add(chat);
+            }
+            ChatManager.getInstance().restoreChatsToList(chats);
 
-        // Intentar restaurar a la carpeta original
-        if (item.getOriginalFolderId() != null) {
-            ChatFolder originalFolder = ChatCollectionManager.getInstance().getFolders().stream()
-                    .filter(f -> f.getId().equals(item.getOriginalFolderId()))
-                    .findFirst().orElse(null);
-            if (originalFolder != null) {
-                ChatCollectionManager.getInstance().addChatToFolder(chat, originalFolder);
+            // Intentar restaurar a la carpeta original
+            Map<String, ChatFolder> foldersById = new HashMap<>();
+            for (ChatFolder folder : cm.getFolders()) {
+                foldersById.put(folder.getId(), folder);
+            }
+            for (int i = 0; i < restored.size(); i++) {
+                String folderId = restored.get(i).getOriginalFolderId();
+                ChatFolder originalFolder = folderId != null ? foldersById.get(folderId) : null;
+                if (originalFolder != null) {
+                    cm.addChatToFolder(chats.get(i), originalFolder);
+                }
             }
-        }
 
-        trashItems.remove(item);
-        save();
-        notifyUpdate();
+            removeItems(restored);
+            save();
+            notifyUpdate();
+        });
     }
 
     /**
@@ -172,38 +264,36 @@ public class TrashManager {
             return;
 
         ChatFolder folder = item.getFolder();
-        ChatCollectionManager.getInstance().restoreFolderToList(folder);
-
-        // Restaurar chats que pertenecían a esta carpeta y aún están en la papelera
-        List<TrashItem> chatsToRestore = new ArrayList<>();
-        for (TrashItem ti : trashItems) {
-            if (ti.getType() == TrashItem.ItemType.CHAT
-                    && folder.getId().equals(ti.getOriginalFolderId())) {
-                chatsToRestore.add(ti);
+        ChatBatch.run(() -> {
+            ChatCollectionManager.getInstance().restoreFolderToList(folder);
+
+            // Restaurar chats que pertenecían a esta carpeta y aún están en la papelera
+            List<TrashItem> chatsToRestore = new ArrayList<>();
+            for (TrashItem ti : trashItems) {
+                if (ti.getType() == TrashItem.ItemType.CHAT
+                        && folder.getId().equals(ti.getOriginalFolderId())) {
+                    chatsToRestore.add(ti);
+                }
             }
-        }
-        for (TrashItem chatItem : chatsToRestore) {
-            ChatSession chat = chatItem.getChat();
-            ChatManager.getInstance().restoreChatToList(chat);
-            ChatCollectionManager.getInstance().addChatToFolder(chat, folder);
-            trashItems.remove(chatItem);
-        }
+            restoreChats(chatsToRestore);
 
-        trashItems.remove(item);
-        save();
-        notifyUpdate();
+            removeItems(List.of(item));
+            save();
+            notifyUpdate();
+        });
     }
 
     // ─── Eliminar permanentemente ─────────────────────────────────────────────
 
     /** Elimina un chat permanentemente (borra el archivo físico). */
     public void permanentlyDeleteChat(TrashItem item) {
-        if (item.getType() != TrashItem.ItemType.CHAT || item.getChat() == null)
+        if (item.getType() != TrashItem.ItemType.CHAT)
             return;
-        File file = new File(chatStorageDir, item.getChat().getId().toString() + ".json");
-        if (file.exists())
-            file.delete();
-        trashItems.remove(item);
+        ChatSession chat = resolveChat(item);
+        if (chat != null) {
+            ChatManager.getInstance().physicallyDeleteChat(chat);
+        }
+        removeItems(List.of(item));
         save();
         notifyUpdate();
     }
@@ -212,22 +302,31 @@ public class TrashManager {
     public void permanentlyDeleteFolder(TrashItem item) {
         if (item.getType() != TrashItem.ItemType.FOLDER)
             return;
-        trashItems.remove(item);
+        removeItems(List.of(item));
         save();
         notifyUpdate();
     }
 
     /** Vacía toda la papelera permanentemente. */
     public void emptyTrash() {
-        // Borrar archivos físicos de todos los chats en papelera
-        for (TrashItem item : new ArrayList<>(trashItems)) {
-            if (item.getType() == TrashItem.ItemType.CHAT && item.getChat() != null) {
-                File file = new File(chatStorageDir, item.getChat().getId().toString() + ".json");
-                if (file.exists())
-                    file.delete();
+        deleteItems(new ArrayList<>(trashItems));
+    }
+
+    /** Elimina permanentemente varios items: un solo guardado y una sola pasada del writer. */
+    private void deleteItems(List<TrashItem> items) {
+        if (items.isEmpty())
+            return;
+        List<ChatSession> chats = new ArrayList<>();
+        for (TrashItem item : items) {
+            if (item.getType() == TrashItem.ItemType.CHAT) {
+                ChatSession chat = resolveChat(item);
+                if (chat != null) {
+                    chats.add(chat);
+                }
             }
         }
-        trashItems.clear();
+        ChatManager.getInstance().physicallyDeleteChats(chats);
+        removeItems(items);
         save();
         notifyUpdate();
     }
@@ -235,6 +334,10 @@ public class TrashManager {
     // ─── Persistencia ────────────────────────────────────────────────────────
 
     private void save() {
+        savePending = ChatBatch.isOpen();
+        if (savePending) {
+            return;
+        }
         try {
             objectMapper.writeValue(storageFile, new ArrayList<>(trashItems));
         } catch (IOException e) {
@@ -244,6 +347,7 @@ public class TrashManager {
 
     private void load() {
         trashItems.clear();
+        trashedChatIds.clear();
         if (!storageFile.exists())
             return;
         try {
@@ -251,39 +355,75 @@ public class TrashManager {
                     new TypeReference<List<TrashItem>>() {
                     });
             trashItems.addAll(loaded);
+            for (TrashItem item : loaded) {
+                if (item.getType() == TrashItem.ItemType.CHAT && item.getChatId() != null) {
+                    trashedChatIds.add(item.getChatId());
+                }
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Elimina automáticamente items que tengan más de 30 días en la papelera.
+     * Versiones anteriores guardaban una copia completa de cada chat en
+     * trash.json. Se reemplaza por la referencia al journal del chat, que se
+     * escribe si ya no existe. trash.json solo se reescribe sin las copias
+     * cuando todos los journals están en disco; si no, se reintenta en el
+     * próximo inicio.
+     */
+    private void migrateEmbeddedChats() {
+        boolean migrated = false;
+        boolean written = true;
+        for (TrashItem item : trashItems) {
+            ChatSession embedded = item.getType() == TrashItem.ItemType.CHAT ? item.getChat() : null;
+            if (embedded == null) {
+                continue;
+            }
+            ChatManager chatManager = ChatManager.getInstance();
+            written &= chatManager.adoptStoredChat(embedded);
+            item.setChat(chatManager.getStoredChat(item.getChatId()));
+            migrated = true;
+        }
+        if (migrated && written) {
+            save();
+        }
+    }
+
+    /**
+     * Elimina automáticamente items que tengan más de 30 días en la papelera,
+     * todos en un solo lote. Las fechas se revisan en segundo plano; solo el
+     * borrado vuelve al hilo de FX.
      */
     private void cleanOldItems() {
+        List<TrashItem> items = new ArrayList<>(trashItems);
+        CompletableFuture.runAsync(() -> {
+            List<TrashItem> old = findOldItems(items);
+            if (!old.isEmpty()) {
+                Platform.runLater(() -> {
+                    // Los restaurados mientras tanto ya no se borran
+                    old.removeIf(item -> !trashItems.contains(item));
+                    deleteItems(old);
+                });
+            }
+        });
+    }
+
+    private static List<TrashItem> findOldItems(List<TrashItem> items) {
         List<TrashItem> toDelete = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
 
-        for (TrashItem item : trashItems) {
+        for (TrashItem item : items) {
             try {
                 LocalDateTime deletedAt = LocalDateTime.parse(item.getDeletedAt());
-                long days = ChronoUnit.DAYS.between(deletedAt, now);
-                if (days >= 30) {
+                if (ChronoUnit.DAYS.between(deletedAt, now) >= RETENTION_DAYS) {
                     toDelete.add(item);
                 }
             } catch (Exception e) {
-                // Si falla el parseo de fecha, ignorar o eliminar si es muy antiguo/inválido?
-                // Mejor dejarlo por seguridad.
+                // Si falla el parseo de fecha, mejor dejarlo por seguridad.
                 e.printStackTrace();
             }
         }
-
-        // Eliminar permanentemente
-        for (TrashItem item : toDelete) {
-            if (item.getType() == TrashItem.ItemType.CHAT) {
-                permanentlyDeleteChat(item);
-            } else {
-                permanentlyDeleteFolder(item);
-            }
-        }
+        return toDelete;
     }
 }
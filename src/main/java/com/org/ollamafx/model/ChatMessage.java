@@ -1,6 +1,8 @@
 package com.org.ollamafx.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -11,7 +13,16 @@ public class ChatMessage {
     private String timestamp;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
-    private List<String> images; // Base64-encoded image data (null when text-only)
+    private List<String> imageRefs; // ImageStore references of the attached images (null when text-only)
+
+    @JsonIgnore
+    private List<String> legacyImages; // Base64 images stored inline by older versions, until moved to the store
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private GenerationStats stats; // Timing reported for assistant responses
+
+    @JsonIgnore
+    private StringBuilder streamBuffer; // Non-null while deltas are being appended
 
     public ChatMessage() {
         // Default constructor for Jackson
@@ -23,9 +34,9 @@ public class ChatMessage {
         this.timestamp = LocalDateTime.now().toString();
     }
 
-    public ChatMessage(String role, String content, List<String> images) {
+    public ChatMessage(String role, String content, List<String> imageRefs) {
         this(role, content);
-        this.images = (images != null && !images.isEmpty()) ? images : null;
+        this.imageRefs = (imageRefs != null && !imageRefs.isEmpty()) ? imageRefs : null;
     }
 
     public String getRole() {
@@ -36,12 +47,29 @@ public class ChatMessage {
         this.role = role;
     }
 
-    public String getContent() {
+    public synchronized String getContent() {
+        // Materialize lazily: streaming appends only invalidate the cached String
+        if (content == null && streamBuffer != null) {
+            content = streamBuffer.toString();
+        }
         return content;
     }
 
-    public void setContent(String content) {
+    public synchronized void setContent(String content) {
         this.content = content;
+        this.streamBuffer = null;
+    }
+
+    /**
+     * Appends a streamed token to the content without copying the text received
+     * so far. The full String is only built when {@link #getContent()} is called.
+     */
+    public synchronized void appendContent(String delta) {
+        if (streamBuffer == null) {
+            streamBuffer = new StringBuilder(content != null ? content : "");
+        }
+        streamBuffer.append(delta);
+        content = null;
     }
 
     public String getTimestamp() {
@@ -52,15 +80,34 @@ public class ChatMessage {
         this.timestamp = timestamp;
     }
 
-    public List<String> getImages() {
-        return images;
+    public List<String> getImageRefs() {
+        return imageRefs;
+    }
+
+    public void setImageRefs(List<String> imageRefs) {
+        this.imageRefs = imageRefs;
+    }
+
+    @JsonIgnore
+    public List<String> getLegacyImages() {
+        return legacyImages;
+    }
+
+    // Messages saved before the image store carried the base64 data itself
+    @JsonProperty("images")
+    public void setLegacyImages(List<String> legacyImages) {
+        this.legacyImages = (legacyImages != null && !legacyImages.isEmpty()) ? legacyImages : null;
+    }
+
+    public GenerationStats getStats() {
+        return stats;
     }
 
-    public void setImages(List<String> images) {
-        this.images = images;
+    public void setStats(GenerationStats stats) {
+        this.stats = stats;
     }
 
     public boolean hasImages() {
-        return images != null && !images.isEmpty();
+        return imageRefs != null && !imageRefs.isEmpty();
     }
 }
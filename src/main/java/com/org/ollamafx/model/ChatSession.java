@@ -2,8 +2,10 @@ package com.org.ollamafx.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -19,7 +21,13 @@ public class ChatSession {
     private final StringProperty modelName = new SimpleStringProperty();
     private final BooleanProperty pinned = new SimpleBooleanProperty();
     private LocalDateTime creationDate; // Not final for Jackson
-    private List<ChatMessage> messages = new ArrayList<>();
+    private LocalDateTime lastActivity;
+    // Synchronized: the chat writer copies it while the FX thread changes it
+    private List<ChatMessage> messages = Collections.synchronizedList(new ArrayList<>());
+
+    // Sessions restored from the index start without messages; they are read on first use
+    private int messageCount;
+    private Function<ChatSession, List<ChatMessage>> messageLoader;
 
     public ChatSession() {
         // Default constructor for Jackson
@@ -92,17 +100,79 @@ public class ChatSession {
         this.creationDate = creationDate;
     }
 
+    /** Time of the last message, null for chats saved before it was tracked. */
+    @JsonProperty("lastActivity")
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+
+    /** The messages, read through the loader first if they are not in memory. */
     @JsonProperty("messages")
     public List<ChatMessage> getMessages() {
-        return messages;
+        Function<ChatSession, List<ChatMessage>> loader;
+        synchronized (this) {
+            if (messages != null || messageLoader == null) {
+                if (messages == null) {
+                    messages = Collections.synchronizedList(new ArrayList<>());
+                }
+                return messages;
+            }
+            loader = messageLoader;
+        }
+        // Not holding the lock: the loader takes the storage lock, which is taken before this one
+        List<ChatMessage> loaded = loader.apply(this);
+        synchronized (this) {
+            if (messages == null) {
+                messages = Collections.synchronizedList(loaded);
+            }
+            return messages;
+        }
+    }
+
+    public synchronized void setMessages(List<ChatMessage> messages) {
+        this.messages = messages != null ? Collections.synchronizedList(messages) : null;
+    }
+
+    /**
+     * A copy of the messages, taken under the list's lock so it is consistent
+     * even while another thread adds or removes messages.
+     */
+    @JsonIgnore
+    public List<ChatMessage> getMessagesSnapshot() {
+        List<ChatMessage> list = getMessages();
+        synchronized (list) {
+            return new ArrayList<>(list);
+        }
     }
 
-    public void setMessages(List<ChatMessage> messages) {
-        this.messages = messages;
+    public void addMessage(ChatMessage message) {
+        getMessages().add(message);
+        this.lastActivity = LocalDateTime.now();
     }
 
-    public void addMessage(ChatMessage message) {
-        this.messages.add(message);
+    @JsonIgnore
+    public synchronized boolean isMessagesLoaded() {
+        return messages != null;
+    }
+
+    /** Number of messages, known without loading them. */
+    @JsonIgnore
+    public synchronized int getMessageCount() {
+        return messages != null ? messages.size() : messageCount;
+    }
+
+    /**
+     * Drops the messages from memory. They are read again through the loader the
+     * next time {@link #getMessages()} is called.
+     */
+    public synchronized void unloadMessages(int messageCount, Function<ChatSession, List<ChatMessage>> loader) {
+        this.messageCount = messageCount;
+        this.messageLoader = loader;
+        this.messages = null;
     }
 
     private double temperature = 0.7;
@@ -177,6 +247,37 @@ public class ChatSession {
         this.ragCollectionIds = ragCollectionIds != null ? ragCollectionIds : new ArrayList<>();
     }
 
+    private int contextStartIndex = 0;
+
+    /**
+     * Index of the oldest history message still sent to the model. It only moves
+     * forward when the history no longer fits in numCtx, so the prompt prefix stays
+     * stable between turns.
+     */
+    @JsonProperty("contextStartIndex")
+    public int getContextStartIndex() {
+        return contextStartIndex;
+    }
+
+    public void setContextStartIndex(int contextStartIndex) {
+        this.contextStartIndex = contextStartIndex;
+    }
+
+    private String contextStartTimestamp;
+
+    /**
+     * Timestamp of the message at {@link #getContextStartIndex()}, to find the cut
+     * again when messages before it were removed. Null for chats saved before it.
+     */
+    @JsonProperty("contextStartTimestamp")
+    public String getContextStartTimestamp() {
+        return contextStartTimestamp;
+    }
+
+    public void setContextStartTimestamp(String contextStartTimestamp) {
+        this.contextStartTimestamp = contextStartTimestamp;
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -0,0 +1,68 @@
+package com.org.ollamafx.model;
+
+/**
+ * Estimated token usage of the next request, broken down by source. Shown by
+ * the context meter in the chat view.
+ */
+public class ContextUsage {
+    private final int systemTokens;
+    private final int historyTokens;
+    private final int draftTokens;
+    private final int ragTokens;
+    private final int imageTokens;
+    private final int numCtx;
+    private final int budget;
+
+    public ContextUsage(int systemTokens, int historyTokens, int draftTokens, int ragTokens, int imageTokens,
+            int numCtx, int budget) {
+        this.systemTokens = systemTokens;
+        this.historyTokens = historyTokens;
+        this.draftTokens = draftTokens;
+        this.ragTokens = ragTokens;
+        this.imageTokens = imageTokens;
+        this.numCtx = numCtx;
+        this.budget = budget;
+    }
+
+    public int getSystemTokens() {
+        return systemTokens;
+    }
+
+    public int getHistoryTokens() {
+        return historyTokens;
+    }
+
+    public int getDraftTokens() {
+        return draftTokens;
+    }
+
+    public int getRagTokens() {
+        return ragTokens;
+    }
+
+    public int getImageTokens() {
+        return imageTokens;
+    }
+
+    public int getNumCtx() {
+        return numCtx;
+    }
+
+    /** Prompt tokens available once the response reserve is taken out of num_ctx. */
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getTotal() {
+        return systemTokens + historyTokens + draftTokens + ragTokens + imageTokens;
+    }
+
+    /** Share of num_ctx the prompt would take (can exceed 1). */
+    public double getRatio() {
+        return numCtx > 0 ? (double) getTotal() / numCtx : 0;
+    }
+
+    public boolean isOverBudget() {
+        return getTotal() > budget;
+    }
+}
@@ -0,0 +1,56 @@
+package com.org.ollamafx.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The messages array actually sent to /api/chat, with the estimated token cost
+ * of each entry. Built by ContextAssembler.
+ */
+public class ContextWindow {
+    private final List<Map<String, Object>> messages;
+    private final List<Integer> messageTokens;
+    private final int totalTokens;
+    private final int budget;
+    private final int firstHistoryIndex;
+    private final int droppedMessages;
+
+    public ContextWindow(List<Map<String, Object>> messages, List<Integer> messageTokens, int totalTokens,
+            int budget, int firstHistoryIndex, int droppedMessages) {
+        this.messages = messages;
+        this.messageTokens = messageTokens;
+        this.totalTokens = totalTokens;
+        this.budget = budget;
+        this.firstHistoryIndex = firstHistoryIndex;
+        this.droppedMessages = droppedMessages;
+    }
+
+    /** Payload entries in order: system prompt, history, current user turn. */
+    public List<Map<String, Object>> getMessages() {
+        return messages;
+    }
+
+    /** Estimated tokens contributed by each entry of {@link #getMessages()}. */
+    public List<Integer> getMessageTokens() {
+        return messageTokens;
+    }
+
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+
+    /** Tokens available for the prompt once the response reserve is taken out. */
+    public int getBudget() {
+        return budget;
+    }
+
+    /** Index in the session history of the oldest message that was included. */
+    public int getFirstHistoryIndex() {
+        return firstHistoryIndex;
+    }
+
+    /** History messages left out because they did not fit. */
+    public int getDroppedMessages() {
+        return droppedMessages;
+    }
+}
@@ -0,0 +1,156 @@
+package com.org.ollamafx.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+import java.util.UUID;
+
+/**
+ * One model pull in the download queue. The plain fields are persisted in
+ * ~/.OllamaFX/downloads.json; the properties mirror them for the UI and are
+ * only changed on the FX thread.
+ */
+public class DownloadJob {
+
+    public enum State {
+        PENDING, ACTIVE, PAUSED, FAILED, COMPLETED
+    }
+
+    private String id;
+    private String modelName;
+    private String tag;
+    private volatile State state = State.PENDING;
+    private volatile long completedBytes;
+    private volatile long totalBytes;
+    private volatile String error;
+    private long createdAt;
+
+    /** Not started again before this time (backoff, bandwidth cap). */
+    @JsonIgnore
+    private volatile long notBefore;
+
+    @JsonIgnore
+    private final ObjectProperty<State> stateProperty = new SimpleObjectProperty<>(State.PENDING);
+    @JsonIgnore
+    private final ObjectProperty<PullProgress> progressProperty = new SimpleObjectProperty<>();
+
+    public DownloadJob() {
+        // Default constructor for Jackson
+    }
+
+    public DownloadJob(String modelName, String tag) {
+        this.id = UUID.randomUUID().toString();
+        this.modelName = modelName;
+        this.tag = tag;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /** A copy of the persisted fields, to write them out while the pull goes on. */
+    public DownloadJob copy() {
+        DownloadJob copy = new DownloadJob();
+        copy.id = id;
+        copy.modelName = modelName;
+        copy.tag = tag;
+        copy.state = state;
+        copy.completedBytes = completedBytes;
+        copy.totalBytes = totalBytes;
+        copy.error = error;
+        copy.createdAt = createdAt;
+        return copy;
+    }
+
+    @JsonIgnore
+    public String getFullName() {
+        return modelName + ":" + tag;
+    }
+
+    /** Fraction between 0 and 1, or -1 while the size is unknown. */
+    @JsonIgnore
+    public double getFraction() {
+        return totalBytes > 0 ? Math.min(1.0, (double) completedBytes / totalBytes) : -1;
+    }
+
+    public ObjectProperty<State> stateProperty() {
+        return stateProperty;
+    }
+
+    /** Latest snapshot from /api/pull, null until the pull reports progress. */
+    public ObjectProperty<PullProgress> progressProperty() {
+        return progressProperty;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getCompletedBytes() {
+        return completedBytes;
+    }
+
+    public void setCompletedBytes(long completedBytes) {
+        this.completedBytes = completedBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @JsonIgnore
+    public long getNotBefore() {
+        return notBefore;
+    }
+
+    @JsonIgnore
+    public void setNotBefore(long notBefore) {
+        this.notBefore = notBefore;
+    }
+}
@@ -0,0 +1,129 @@
+package com.org.ollamafx.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Final statistics reported by Ollama in the last chunk of a /api/chat stream.
+ * Durations are in nanoseconds, exactly as the API returns them.
+ */
+public class GenerationStats {
+    private long totalDuration;
+    private long loadDuration;
+    private int promptEvalCount;
+    private long promptEvalDuration;
+    private int evalCount;
+    private long evalDuration;
+    private String doneReason;
+    private String model;
+    private long timeToFirstTokenMs; // Measured by the client, 0 if no token arrived
+    private boolean prefixWarmed; // Prompt prefix was pre-evaluated before sending
+
+    public GenerationStats() {
+        // Default constructor for Jackson
+    }
+
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public void setTotalDuration(long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public long getLoadDuration() {
+        return loadDuration;
+    }
+
+    public void setLoadDuration(long loadDuration) {
+        this.loadDuration = loadDuration;
+    }
+
+    public int getPromptEvalCount() {
+        return promptEvalCount;
+    }
+
+    public void setPromptEvalCount(int promptEvalCount) {
+        this.promptEvalCount = promptEvalCount;
+    }
+
+    public long getPromptEvalDuration() {
+        return promptEvalDuration;
+    }
+
+    public void setPromptEvalDuration(long promptEvalDuration) {
+        this.promptEvalDuration = promptEvalDuration;
+    }
+
+    public int getEvalCount() {
+        return evalCount;
+    }
+
+    public void setEvalCount(int evalCount) {
+        this.evalCount = evalCount;
+    }
+
+    public long getEvalDuration() {
+        return evalDuration;
+    }
+
+    public void setEvalDuration(long evalDuration) {
+        this.evalDuration = evalDuration;
+    }
+
+    public String getDoneReason() {
+        return doneReason;
+    }
+
+    public void setDoneReason(String doneReason) {
+        this.doneReason = doneReason;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    /** Time from sending the request to the first content token, in milliseconds. */
+    public long getTimeToFirstTokenMs() {
+        return timeToFirstTokenMs;
+    }
+
+    public void setTimeToFirstTokenMs(long timeToFirstTokenMs) {
+        this.timeToFirstTokenMs = timeToFirstTokenMs;
+    }
+
+    public boolean isPrefixWarmed() {
+        return prefixWarmed;
+    }
+
+    public void setPrefixWarmed(boolean prefixWarmed) {
+        this.prefixWarmed = prefixWarmed;
+    }
+
+    /**
+     * Velocidad de evaluación del prompt en tokens por segundo. Devuelve 0 si el
+     * prompt salió de la caché y no se reportó duración.
+     */
+    @JsonIgnore
+    public double getPromptTokensPerSecond() {
+        if (promptEvalDuration <= 0) {
+            return 0;
+        }
+        return promptEvalCount / (promptEvalDuration / 1_000_000_000.0);
+    }
+
+    /**
+     * Velocidad de generación en tokens por segundo, derivada de eval_count y
+     * eval_duration. Devuelve 0 si el servidor no reportó duración.
+     */
+    @JsonIgnore
+    public double getTokensPerSecond() {
+        if (evalDuration <= 0) {
+            return 0;
+        }
+        return evalCount / (evalDuration / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,184 @@
+package com.org.ollamafx.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Aggregated generation timings of one model on this machine, built from the
+ * stats Ollama reports at the end of every response.
+ */
+public class ModelMetrics {
+    private String model;
+    private int responses;
+    private long evalCount;
+    private long evalDuration; // ns
+    private long promptEvalCount;
+    private long promptEvalDuration; // ns
+    private long loadDuration; // ns
+    private long ttftTotalMs;
+    private int ttftSamples;
+    private long warmTtftTotalMs; // Responses whose prompt prefix was pre-evaluated
+    private int warmTtftSamples;
+    private long lastUsed;
+
+    public ModelMetrics() {
+        // Default constructor for Jackson
+    }
+
+    public ModelMetrics(String model) {
+        this.model = model;
+    }
+
+    /** A copy of the totals, to write them out while responses keep being added. */
+    public ModelMetrics copy() {
+        ModelMetrics copy = new ModelMetrics(model);
+        copy.responses = responses;
+        copy.evalCount = evalCount;
+        copy.evalDuration = evalDuration;
+        copy.promptEvalCount = promptEvalCount;
+        copy.promptEvalDuration = promptEvalDuration;
+        copy.loadDuration = loadDuration;
+        copy.ttftTotalMs = ttftTotalMs;
+        copy.ttftSamples = ttftSamples;
+        copy.warmTtftTotalMs = warmTtftTotalMs;
+        copy.warmTtftSamples = warmTtftSamples;
+        copy.lastUsed = lastUsed;
+        return copy;
+    }
+
+    /** Adds one response to the totals. */
+    public void add(GenerationStats stats) {
+        responses++;
+        evalCount += stats.getEvalCount();
+        evalDuration += stats.getEvalDuration();
+        promptEvalCount += stats.getPromptEvalCount();
+        promptEvalDuration += stats.getPromptEvalDuration();
+        loadDuration += stats.getLoadDuration();
+        if (stats.getTimeToFirstTokenMs() > 0) {
+            if (stats.isPrefixWarmed()) {
+                warmTtftTotalMs += stats.getTimeToFirstTokenMs();
+                warmTtftSamples++;
+            } else {
+                ttftTotalMs += stats.getTimeToFirstTokenMs();
+                ttftSamples++;
+            }
+        }
+        lastUsed = System.currentTimeMillis();
+    }
+
+    @JsonIgnore
+    public double getAverageTokensPerSecond() {
+        return evalDuration > 0 ? evalCount / (evalDuration / 1_000_000_000.0) : 0;
+    }
+
+    @JsonIgnore
+    public double getAveragePromptTokensPerSecond() {
+        return promptEvalDuration > 0 ? promptEvalCount / (promptEvalDuration / 1_000_000_000.0) : 0;
+    }
+
+    /** Average TTFT of responses sent without a pre-evaluated prefix. */
+    @JsonIgnore
+    public long getAverageTimeToFirstTokenMs() {
+        return ttftSamples > 0 ? ttftTotalMs / ttftSamples : 0;
+    }
+
+    @JsonIgnore
+    public long getAverageWarmTimeToFirstTokenMs() {
+        return warmTtftSamples > 0 ? warmTtftTotalMs / warmTtftSamples : 0;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public int getResponses() {
+        return responses;
+    }
+
+    public void setResponses(int responses) {
+        this.responses = responses;
+    }
+
+    public long getEvalCount() {
+        return evalCount;
+    }
+
+    public void setEvalCount(long evalCount) {
+        this.evalCount = evalCount;
+    }
+
+    public long getEvalDuration() {
+        return evalDuration;
+    }
+
+    public void setEvalDuration(long evalDuration) {
+        this.evalDuration = evalDuration;
+    }
+
+    public long getPromptEvalCount() {
+        return promptEvalCount;
+    }
+
+    public void setPromptEvalCount(long promptEvalCount) {
+        this.promptEvalCount = promptEvalCount;
+    }
+
+    public long getPromptEvalDuration() {
+        return promptEvalDuration;
+    }
+
+    public void setPromptEvalDuration(long promptEvalDuration) {
+        this.promptEvalDuration = promptEvalDuration;
+    }
+
+    public long getLoadDuration() {
+        return loadDuration;
+    }
+
+    public void setLoadDuration(long loadDuration) {
+        this.loadDuration = loadDuration;
+    }
+
+    public long getTtftTotalMs() {
+        return ttftTotalMs;
+    }
+
+    public void setTtftTotalMs(long ttftTotalMs) {
+        this.ttftTotalMs = ttftTotalMs;
+    }
+
+    public int getTtftSamples() {
+        return ttftSamples;
+    }
+
+    public void setTtftSamples(int ttftSamples) {
+        this.ttftSamples = ttftSamples;
+    }
+
+    public long getWarmTtftTotalMs() {
+        return warmTtftTotalMs;
+    }
+
+    public void setWarmTtftTotalMs(long warmTtftTotalMs) {
+        this.warmTtftTotalMs = warmTtftTotalMs;
+    }
+
+    public int getWarmTtftSamples() {
+        return warmTtftSamples;
+    }
+
+    public void setWarmTtftSamples(int warmTtftSamples) {
+        this.warmTtftSamples = warmTtftSamples;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+}
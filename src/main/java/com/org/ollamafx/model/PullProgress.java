@@ -0,0 +1,103 @@
+package com.org.ollamafx.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of a model pull as reported by /api/pull: current status line, the
+ * layers seen so far and the byte totals across them.
+ */
+public class PullProgress {
+
+    /** One blob of the model, identified by its digest. */
+    public static class Layer {
+        private final String digest;
+        private final long completed;
+        private final long total;
+
+        public Layer(String digest, long completed, long total) {
+            this.digest = digest;
+            this.completed = completed;
+            this.total = total;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public boolean isDone() {
+            return total > 0 && completed >= total;
+        }
+    }
+
+    private final String status;
+    private final List<Layer> layers;
+    private final long completedBytes;
+    private final long totalBytes;
+    private final double bytesPerSecond;
+    private final long etaSeconds;
+
+    public PullProgress(String status, List<Layer> layers, long completedBytes, long totalBytes,
+            double bytesPerSecond, long etaSeconds) {
+        this.status = status;
+        this.layers = Collections.unmodifiableList(layers);
+        this.completedBytes = completedBytes;
+        this.totalBytes = totalBytes;
+        this.bytesPerSecond = bytesPerSecond;
+        this.etaSeconds = etaSeconds;
+    }
+
+    /** Raw status from Ollama ("pulling manifest", "pulling 6a0746a1ec1a", "success"...). */
+    public String getStatus() {
+        return status;
+    }
+
+    public List<Layer> getLayers() {
+        return layers;
+    }
+
+    public long getCompletedBytes() {
+        return completedBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /** Smoothed transfer rate, 0 until enough samples exist. */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /** Estimated seconds left, or -1 if unknown. */
+    public long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    /** Fraction between 0 and 1, or -1 while the size is unknown. */
+    public double getFraction() {
+        return totalBytes > 0 ? Math.min(1.0, (double) completedBytes / totalBytes) : -1;
+    }
+
+    public int getLayersDone() {
+        int done = 0;
+        for (Layer layer : layers) {
+            if (layer.isDone()) {
+                done++;
+            }
+        }
+        return done;
+    }
+
+    public boolean isSuccess() {
+        return "success".equals(status);
+    }
+}
@@ -0,0 +1,82 @@
+package com.org.ollamafx.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A chat message matching a full-text search, with a snippet of its content
+ * and the ranges of the snippet that matched the query.
+ */
+public class SearchHit {
+
+    /** Characters [start, end) of the snippet that matched a query term. */
+    public static class Highlight {
+        private final int start;
+        private final int end;
+
+        public Highlight(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    private final String sessionId;
+    private final int messageIndex;
+    private final String messageTimestamp;
+    private final String role;
+    private final float score;
+    private final String snippet;
+    private final List<Highlight> highlights;
+
+    public SearchHit(String sessionId, int messageIndex, String messageTimestamp, String role, float score,
+            String snippet, List<Highlight> highlights) {
+        this.sessionId = sessionId;
+        this.messageIndex = messageIndex;
+        this.messageTimestamp = messageTimestamp;
+        this.role = role;
+        this.score = score;
+        this.snippet = snippet;
+        this.highlights = Collections.unmodifiableList(highlights);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Position of the message in {@link ChatSession#getMessages()} when it was
+     * indexed. Messages removed before it since then move it.
+     */
+    public int getMessageIndex() {
+        return messageIndex;
+    }
+
+    /** Timestamp of the message, which identifies it wherever it is now; may be null. */
+    public String getMessageTimestamp() {
+        return messageTimestamp;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public List<Highlight> getHighlights() {
+        return highlights;
+    }
+}
@@ -1,22 +1,80 @@
 package com.org.ollamafx.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * A saved filter shown as a folder in the sidebar. A chat belongs to the
+ * collection when it matches every one of its conditions.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SmartCollection {
 
     public enum Criteria {
-        DATE, // e.g. "Today", "Last 7 Days"
+        DATE, // e.g. "7", "today", "2024-01-01..2024-03-31"
         KEYWORD, // e.g. "Project X"
         MODEL // e.g. "llama3"
     }
 
+    /** Which date of the chat a DATE condition looks at. */
+    public enum DateField {
+        CREATED,
+        LAST_ACTIVITY
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Condition {
+        private Criteria criteria;
+        private String value;
+        private DateField dateField = DateField.CREATED;
+
+        public Condition() {
+        }
+
+        public Condition(Criteria criteria, String value) {
+            this.criteria = criteria;
+            this.value = value;
+        }
+
+        public Condition(Criteria criteria, String value, DateField dateField) {
+            this(criteria, value);
+            this.dateField = dateField;
+        }
+
+        public Criteria getCriteria() {
+            return criteria;
+        }
+
+        public void setCriteria(Criteria criteria) {
+            this.criteria = criteria;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public DateField getDateField() {
+            return dateField;
+        }
+
+        public void setDateField(DateField dateField) {
+            this.dateField = dateField != null ? dateField : DateField.CREATED;
+        }
+    }
+
     private String id;
     private String name;
     private String icon; // Feather icon name
-    private Criteria criteria;
-    private String value;
+    private List<Condition> conditions = new ArrayList<>();
     private boolean isExpanded;
 
     public SmartCollection() {
@@ -25,10 +83,13 @@ public class SmartCollection {
     }
 
     public SmartCollection(String name, Criteria criteria, String value, String icon) {
+        this(name, List.of(new Condition(criteria, value)), icon);
+    }
+
+    public SmartCollection(String name, List<Condition> conditions, String icon) {
         this();
         this.name = name;
-        this.criteria = criteria;
-        this.value = value;
+        this.conditions = new ArrayList<>(conditions);
         this.icon = icon;
     }
 
@@ -58,20 +119,42 @@ public class SmartCollection {
         this.icon = icon;
     }
 
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    public void setConditions(List<Condition> conditions) {
+        this.conditions = conditions != null ? new ArrayList<>(conditions) : new ArrayList<>();
+    }
+
+    /** Criteria of the first condition. */
+    @JsonIgnore
     public Criteria getCriteria() {
-        return criteria;
+        return conditions.isEmpty() ? null : conditions.get(0).getCriteria();
     }
 
+    // Collections saved before compound conditions had a single criteria/value pair
+    @JsonProperty("criteria")
     public void setCriteria(Criteria criteria) {
-        this.criteria = criteria;
+        firstCondition().setCriteria(criteria);
     }
 
+    /** Value of the first condition. */
+    @JsonIgnore
     public String getValue() {
-        return value;
+        return conditions.isEmpty() ? null : conditions.get(0).getValue();
     }
 
+    @JsonProperty("value")
     public void setValue(String value) {
-        this.value = value;
+        firstCondition().setValue(value);
+    }
+
+    private Condition firstCondition() {
+        if (conditions.isEmpty()) {
+            conditions.add(new Condition());
+        }
+        return conditions.get(0);
     }
 
     public boolean isExpanded() {
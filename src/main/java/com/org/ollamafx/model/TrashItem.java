@@ -1,11 +1,17 @@
 package com.org.ollamafx.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
  * Representa un item en la papelera de reciclaje.
  * Puede ser un ChatSession o un ChatFolder eliminado.
+ *
+ * Un chat se guarda solo como referencia (id y nombre): su journal sigue en
+ * ~/.OllamaFX/chats y TrashManager resuelve la sesión cuando hace falta.
  */
 public class TrashItem {
 
@@ -16,7 +22,9 @@ public class TrashItem {
     private String id;
     private ItemType type;
     private String deletedAt; // ISO-8601 timestamp
-    private ChatSession chat; // populated if type == CHAT
+    private String chatId; // populated if type == CHAT
+    private String chatName; // nombre al momento de borrarlo, para la UI
+    private ChatSession chat; // sesión resuelta, no se persiste
     private ChatFolder folder; // populated if type == FOLDER
     private String originalFolderId; // carpeta de origen del chat (para restaurar)
 
@@ -29,7 +37,7 @@ public class TrashItem {
     public static TrashItem forChat(ChatSession chat, String originalFolderId) {
         TrashItem item = new TrashItem();
         item.type = ItemType.CHAT;
-        item.chat = chat;
+        item.setChat(chat);
         item.originalFolderId = originalFolderId;
         return item;
     }
@@ -67,12 +75,36 @@ public class TrashItem {
         this.deletedAt = deletedAt;
     }
 
+    public String getChatId() {
+        return chatId;
+    }
+
+    public void setChatId(String chatId) {
+        this.chatId = chatId;
+    }
+
+    public String getChatName() {
+        return chatName;
+    }
+
+    public void setChatName(String chatName) {
+        this.chatName = chatName;
+    }
+
+    /** The chat, once resolved by TrashManager (or as embedded by older versions). */
+    @JsonIgnore
     public ChatSession getChat() {
         return chat;
     }
 
+    // Older versions embedded the whole session under "chat"
+    @JsonProperty("chat")
     public void setChat(ChatSession chat) {
         this.chat = chat;
+        if (chat != null) {
+            this.chatId = chat.getId().toString();
+            this.chatName = chat.getName();
+        }
     }
 
     public ChatFolder getFolder() {
@@ -93,8 +125,8 @@ public class TrashItem {
 
     /** Nombre para mostrar en la UI */
     public String getDisplayName() {
-        if (type == ItemType.CHAT && chat != null)
-            return chat.getName();
+        if (type == ItemType.CHAT && chatName != null)
+            return chatName;
         if (type == ItemType.FOLDER && folder != null)
             return folder.getName();
         return "Unknown";
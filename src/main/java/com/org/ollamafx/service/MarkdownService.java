@@ -45,8 +45,8 @@ public class MarkdownService {
                 writer.println();
 
                 // Add images tag if present
-                if (msg.getImages() != null && !msg.getImages().isEmpty()) {
-                    writer.println("*(Attached " + msg.getImages().size() + " image(s))*");
+                if (msg.getImageRefs() != null && !msg.getImageRefs().isEmpty()) {
+                    writer.println("*(Attached " + msg.getImageRefs().size() + " image(s))*");
                     writer.println();
                 }
 
@@ -0,0 +1,238 @@
+package com.org.ollamafx.ui;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Skin;
+import javafx.scene.control.skin.ListViewSkin;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The messages of the open chat as a virtualized list: only the rows in view
+ * have nodes, so opening or scrolling a 500-turn chat costs about the same as
+ * a short one.
+ *
+ * Each row is an {@link Entry} that knows how to build its node. The nodes of
+ * the last {@link #CACHED_NODES} rows shown are kept, so scrolling back does
+ * not parse the markdown again, and every row remembers the height it measured
+ * at the current width. The list measures rows outside the viewport to size
+ * its scroll bar; those get the remembered height, or an estimate from the
+ * length of their text until they are first shown, instead of being built.
+ *
+ * A live row (the response being streamed) keeps its node while it is live, so
+ * the controller can update it in place wherever the list is scrolled.
+ *
+ * FX thread only.
+ */
+public class ChatTranscript extends ListView<ChatTranscript.Entry> {
+
+    /** Nodes kept for rows out of view, most recently shown first. */
+    private static final int CACHED_NODES = 48;
+
+    /** One row of the transcript. */
+    public static class Entry {
+        private final Supplier<Node> builder;
+        private final int textLength;
+        private Node node;
+        private boolean live;
+        private double height = -1;
+        private double heightWidth;
+
+        /**
+         * @param builder    creates the row's node; called again if the node was dropped
+         * @param textLength length of the row's text, to estimate its height before it is built
+         */
+        public Entry(Supplier<Node> builder, int textLength) {
+            this.builder = builder;
+            this.textLength = textLength;
+        }
+
+        private double heightAt(double width) {
+            if (height >= 0 && heightWidth == width) {
+                return height;
+            }
+            // About 8px per character and 22px per line of wrapped text, plus the bubble
+            double charsPerLine = Math.max(20, (Math.min(width, 800) - 100) / 8);
+            return 60 + 22 * Math.ceil(Math.max(1, textLength) / charsPerLine);
+        }
+    }
+
+    private class TranscriptSkin extends ListViewSkin<Entry> {
+        TranscriptSkin() {
+            super(ChatTranscript.this);
+        }
+
+        VirtualFlow<ListCell<Entry>> flow() {
+            return getVirtualFlow();
+        }
+    }
+
+    private class TranscriptCell extends ListCell<Entry> {
+        TranscriptCell() {
+            // Take the list's width and wrap, rather than widening the list
+            setPrefWidth(0);
+        }
+
+        @Override
+        protected void updateItem(Entry entry, boolean empty) {
+            super.updateItem(entry, empty);
+            setText(null);
+            // Rows are built when measured in view; a hidden measuring cell never takes a node
+            setGraphic(empty || entry == null || !inView() ? null : entry.node);
+        }
+
+        /** False for the hidden cell the list uses to measure rows outside the viewport. */
+        private boolean inView() {
+            return getParent() != null && getParent().isVisible();
+        }
+
+        private void ensureGraphic() {
+            Entry entry = getItem();
+            if (entry != null && !isEmpty() && getGraphic() == null && inView()) {
+                setGraphic(nodeOf(entry));
+                applyCss();
+            }
+        }
+
+        @Override
+        protected double computePrefHeight(double width) {
+            Entry entry = getItem();
+            if (entry == null || isEmpty()) {
+                return super.computePrefHeight(width);
+            }
+            if (!inView()) {
+                return entry.heightAt(ChatTranscript.this.getWidth());
+            }
+            ensureGraphic();
+            double height = super.computePrefHeight(width);
+            entry.height = height;
+            entry.heightWidth = ChatTranscript.this.getWidth();
+            return height;
+        }
+
+        @Override
+        protected void layoutChildren() {
+            ensureGraphic();
+            super.layoutChildren();
+        }
+    }
+
+    /** Rows with a node, least recently shown first. */
+    private final Map<Entry, Boolean> built = new LinkedHashMap<>(64, 0.75f, true);
+    private TranscriptSkin skin;
+    private boolean followBottom = true;
+    private boolean scrollPending;
+
+    public ChatTranscript() {
+        getStyleClass().add("chat-transcript");
+        setFocusTraversable(false);
+        setCellFactory(list -> new TranscriptCell());
+        getItems().addListener((ListChangeListener<Entry>) c -> {
+            while (c.next()) {
+                for (Entry removed : c.getRemoved()) {
+                    built.remove(removed);
+                }
+            }
+            if (followBottom) {
+                requestScrollToEnd();
+            }
+        });
+    }
+
+    @Override
+    protected Skin<?> createDefaultSkin() {
+        skin = new TranscriptSkin();
+        return skin;
+    }
+
+    /** The row's node, built now if needed. */
+    public Node nodeOf(Entry entry) {
+        if (entry.node == null) {
+            entry.node = entry.builder.get();
+            if (entry.live) {
+                watchLiveNode(entry);
+            }
+        }
+        built.put(entry, Boolean.TRUE);
+        trimCache();
+        return entry.node;
+    }
+
+    /** Live rows keep their node, and the view follows them as they grow. */
+    public void setLive(Entry entry, boolean live) {
+        if (entry.live == live) {
+            return;
+        }
+        entry.live = live;
+        if (live && entry.node != null) {
+            watchLiveNode(entry);
+        }
+        if (!live) {
+            trimCache();
+        }
+    }
+
+    private void watchLiveNode(Entry entry) {
+        Node node = entry.node;
+        node.layoutBoundsProperty().addListener((obs, oldVal, newVal) -> {
+            if (entry.live && entry.node == node && followBottom
+                    && oldVal.getHeight() != newVal.getHeight()) {
+                requestScrollToEnd();
+            }
+        });
+    }
+
+    /** Forgets every row and its node. */
+    public void clear() {
+        built.clear();
+        getItems().clear();
+        followBottom = true;
+    }
+
+    /** Keep the last row in view while rows are added or the live row grows. */
+    public void setFollowBottom(boolean followBottom) {
+        this.followBottom = followBottom;
+        if (followBottom) {
+            requestScrollToEnd();
+        }
+    }
+
+    /** Shows the row at the top of the view and stops following the bottom. */
+    public void scrollToEntry(Entry entry) {
+        followBottom = false;
+        scrollTo(entry);
+    }
+
+    private void requestScrollToEnd() {
+        if (!scrollPending) {
+            scrollPending = true;
+            // After the change is laid out
+            Platform.runLater(() -> {
+                scrollPending = false;
+                if (followBottom && skin != null && !getItems().isEmpty()) {
+                    skin.flow().setPosition(1.0);
+                }
+            });
+        }
+    }
+
+    /** Drops the nodes of rows that are neither live, in view, nor among the recently shown. */
+    private void trimCache() {
+        int excess = built.size() - CACHED_NODES;
+        for (Iterator<Entry> it = built.keySet().iterator(); it.hasNext() && excess > 0;) {
+            Entry entry = it.next();
+            if (!entry.live && entry.node.getParent() == null) {
+                entry.node = null;
+                it.remove();
+                excess--;
+            }
+        }
+    }
+}
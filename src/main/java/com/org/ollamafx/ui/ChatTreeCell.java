@@ -2,6 +2,7 @@ package com.org.ollamafx.ui;
 
 import com.org.ollamafx.manager.ChatCollectionManager;
 import com.org.ollamafx.manager.ChatManager;
+import com.org.ollamafx.manager.TrashManager;
 import com.org.ollamafx.model.ChatFolder;
 import com.org.ollamafx.model.ChatNode;
 import com.org.ollamafx.model.ChatSession;
@@ -24,8 +25,13 @@ import javafx.scene.Cursor;
 import javafx.scene.Node;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 public class ChatTreeCell extends TreeCell<ChatNode> {
 
@@ -78,14 +84,8 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
             Optional<SmartCollection> result = SmartCollectionDialog
                     .show(sc);
 
-            result.ifPresent(updated -> {
-                sc.setName(updated.getName());
-                sc.setCriteria(updated.getCriteria());
-                sc.setValue(updated.getValue());
-                sc.setIcon(updated.getIcon());
-                // save
-                collectionManager.updateSmartCollection(sc);
-            });
+            result.ifPresent(updated -> collectionManager.redefineSmartCollection(sc, updated.getName(),
+                    updated.getConditions(), updated.getIcon()));
         });
 
         MenuItem deleteItem = new MenuItem("Delete Smart Collection");
@@ -212,7 +212,7 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
         rootItem.setGraphic(icon(
                 "M3 12l2-2m0 0l7-7 7 7M5 10v10a1 1 0 0 0 1 1h3m10-11l2 2m-2-2v10a1 1 0 0 0-1 1h-3m-6 0a1 1 0 0 0 1-1v-4a1 1 0 0 0-1-1H9a1 1 0 0 0-1 1v4a1 1 0 0 0 1 1m-6 0h16",
                 14)); // Home
-        rootItem.setOnAction(e -> collectionManager.moveChatToFolder(chat, null));
+        rootItem.setOnAction(e -> collectionManager.moveChatsToFolder(targetChats(chat), null));
         moveMenu.getItems().add(rootItem);
         moveMenu.getItems().add(new SeparatorMenuItem());
 
@@ -220,7 +220,7 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
             MenuItem folderItem = new MenuItem(f.getName());
             Circle dot = new Circle(6, Color.web(f.getColor()));
             folderItem.setGraphic(dot);
-            folderItem.setOnAction(e -> collectionManager.moveChatToFolder(chat, f));
+            folderItem.setOnAction(e -> collectionManager.moveChatsToFolder(targetChats(chat), f));
             moveMenu.getItems().add(folderItem);
         }
 
@@ -229,15 +229,18 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
                 icon("M3 6h18M19 6l-1 14a2 2 0 0 1-2 2H8a2 2 0 0 1-2-2L5 6M8 6V4a2 2 0 0 1 2-2h4a2 2 0 0 1 2 2v2", 14)); // Trash
         // Color negro nativo — sin override rojo
         deleteItem.setOnAction(e -> {
+            List<ChatSession> targets = targetChats(chat);
+            String header = targets.size() > 1
+                    ? MessageFormat.format(bundle.getString("dialog.chats.delete.header"), targets.size())
+                    : MessageFormat.format(bundle.getString("dialog.chat.delete.header"), chat.getName());
             boolean ok = FxDialog.showConfirmDialog(
                     getTreeView().getScene().getWindow(),
-                    MessageFormat.format(bundle.getString("dialog.chat.delete.header"), chat.getName()),
+                    header,
                     bundle.getString("dialog.folder.delete.content"),
                     bundle.getString("dialog.delete.confirm"),
                     bundle.getString("button.cancel"));
             if (ok) {
-                collectionManager.removeChatFromFolder(chat);
-                chatManager.deleteChat(chat);
+                TrashManager.getInstance().trashChats(targets);
             }
         });
 
@@ -245,6 +248,20 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
         return menu;
     }
 
+    /**
+     * Chats an action on this chat applies to: every selected chat if this one
+     * is part of the selection, otherwise just this one.
+     */
+    private List<ChatSession> targetChats(ChatSession chat) {
+        Set<ChatSession> selected = new LinkedHashSet<>();
+        for (TreeItem<ChatNode> item : getTreeView().getSelectionModel().getSelectedItems()) {
+            if (item != null && item.getValue() != null && item.getValue().getType() == ChatNode.Type.CHAT) {
+                selected.add(item.getValue().getChat()); // A chat can be listed twice (smart collection)
+            }
+        }
+        return selected.contains(chat) ? new ArrayList<>(selected) : List.of(chat);
+    }
+
     /**
      * Crea un icono SVG minimalista (estilo Lucide/Feather) para los menu items.
      * El path SVG debe ser de un viewBox 24x24.
@@ -289,8 +306,15 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
 
             Dragboard db = startDragAndDrop(TransferMode.MOVE);
             ClipboardContent content = new ClipboardContent();
-            // We store the Chat ID as string
-            content.putString(getItem().getChat().getId().toString());
+            // We store the Chat IDs as string, one per line (the whole selection)
+            StringBuilder ids = new StringBuilder();
+            for (ChatSession chat : targetChats(getItem().getChat())) {
+                if (ids.length() > 0) {
+                    ids.append('\n');
+                }
+                ids.append(chat.getId());
+            }
+            content.putString(ids.toString());
             db.setContent(content);
 
             // Set Drag View
@@ -333,7 +357,7 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
             Dragboard db = event.getDragboard();
             boolean success = false;
             if (db.hasString()) {
-                String chatId = db.getString();
+                Set<String> chatIds = new HashSet<>(List.of(db.getString().split("\n")));
 
                 // Determinar carpeta destino: null = Uncategorized (raíz)
                 ChatNode item = getItem();
@@ -341,14 +365,16 @@ public class ChatTreeCell extends TreeCell<ChatNode> {
                         ? item.getFolder()
                         : null; // ROOT o celda vacía → Uncategorized
 
-                // Find chat by ID
-                ChatSession chatToMove = chatManager.getChatSessions().stream()
-                        .filter(c -> c.getId().toString().equals(chatId))
-                        .findFirst()
-                        .orElse(null);
+                // Find chats by ID
+                List<ChatSession> chatsToMove = new ArrayList<>();
+                for (ChatSession chat : chatManager.getChatSessions()) {
+                    if (chatIds.contains(chat.getId().toString())) {
+                        chatsToMove.add(chat);
+                    }
+                }
 
-                if (chatToMove != null) {
-                    collectionManager.moveChatToFolder(chatToMove, targetFolder);
+                if (!chatsToMove.isEmpty()) {
+                    collectionManager.moveChatsToFolder(chatsToMove, targetFolder);
                     success = true;
                 }
             }
@@ -0,0 +1,324 @@
+package com.org.ollamafx.ui;
+
+import com.org.ollamafx.manager.ChatCollectionManager;
+import com.org.ollamafx.manager.ChatManager;
+import com.org.ollamafx.manager.TrashManager;
+import com.org.ollamafx.model.ChatFolder;
+import com.org.ollamafx.model.ChatNode;
+import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.SmartCollection;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.TreeItem;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.SVGPath;
+import org.kordamp.ikonli.feather.Feather;
+import org.kordamp.ikonli.javafx.FontIcon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The sidebar tree: smart collections, folders, then the chats in no folder.
+ *
+ * Change events from the chat, collection and trash managers only request a
+ * sync, and all requests made during a pulse are applied once on the next one,
+ * so a burst (moving many chats, emptying the trash) costs a single pass. A
+ * sync reuses the TreeItem of every node that is still in the tree, keeping
+ * its expansion, selection and icon; children lists are edited only where they
+ * differ, and a node is re-rendered only when its label or icon changed.
+ *
+ * FX thread only.
+ */
+public class ChatTreeModel {
+
+    /** A tree item remembering what its cell shows, to re-render only on change. */
+    private static class Item extends TreeItem<ChatNode> {
+        String label;
+        String iconKey;
+        /** Chat items under this one, for folders, smart collections and the root. */
+        final Map<ChatSession, Item> chatItems = new HashMap<>();
+
+        Item(ChatNode node, Node graphic) {
+            super(node, graphic);
+            label = node.toString();
+        }
+    }
+
+    private final ChatManager chatManager = ChatManager.getInstance();
+    private final ChatCollectionManager collectionManager = ChatCollectionManager.getInstance();
+
+    private final Item root = new Item(new ChatNode((ChatFolder) null), null);
+    private final Map<SmartCollection, Item> smartItems = new IdentityHashMap<>();
+    private final Map<ChatFolder, Item> folderItems = new IdentityHashMap<>();
+    private boolean syncPending;
+
+    public ChatTreeModel() {
+        root.setExpanded(true);
+
+        chatManager.getChatSessions().addListener((ListChangeListener<ChatSession>) c -> requestSync());
+        chatManager.addChangeListener(this::chatChanged);
+        collectionManager.getFolders().addListener((ListChangeListener<ChatFolder>) c -> requestSync());
+        collectionManager.addUpdateListener(this::requestSync);
+        TrashManager.getInstance().addUpdateListener(this::requestSync);
+
+        sync();
+    }
+
+    public TreeItem<ChatNode> getRoot() {
+        return root;
+    }
+
+    /** Schedules a sync for the next pulse; further requests until then are merged into it. */
+    public void requestSync() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::requestSync);
+            return;
+        }
+        if (!syncPending) {
+            syncPending = true;
+            Platform.runLater(() -> {
+                syncPending = false;
+                sync();
+            });
+        }
+    }
+
+    /** Brings the tree in line with the managers now. */
+    public void sync() {
+        Map<String, ChatSession> chatsById = new HashMap<>();
+        for (ChatSession chat : chatManager.getChatSessions()) {
+            chatsById.put(chat.getId().toString(), chat);
+        }
+        List<TreeItem<ChatNode>> top = new ArrayList<>();
+
+        List<SmartCollection> collections = collectionManager.getSmartCollections();
+        smartItems.keySet().retainAll(identitySet(collections));
+        for (SmartCollection sc : collections) {
+            Item item = smartItems.computeIfAbsent(sc, this::createSmartCollectionItem);
+            updateHeader(item, new ChatNode(sc), smartIconKey(sc), () -> createSmartCollectionIcon(sc));
+            syncChats(item, collectionManager.getChatsForSmartCollection(sc));
+            top.add(item);
+        }
+
+        List<ChatFolder> folders = collectionManager.getFolders();
+        folderItems.keySet().retainAll(identitySet(folders));
+        for (ChatFolder folder : folders) {
+            Item item = folderItems.computeIfAbsent(folder, this::createFolderItem);
+            updateHeader(item, new ChatNode(folder), folder.getColor(), () -> createFolderIcon(folder));
+            List<ChatSession> chats = new ArrayList<>();
+            for (String chatId : folder.getChatIds()) {
+                ChatSession chat = chatsById.get(chatId);
+                if (chat != null) {
+                    chats.add(chat);
+                }
+            }
+            syncChats(item, chats);
+            top.add(item);
+        }
+
+        List<ChatSession> uncategorized = new ArrayList<>();
+        for (ChatSession chat : chatManager.getChatSessions()) {
+            if (!collectionManager.isChatInFolder(chat)) {
+                uncategorized.add(chat);
+            }
+        }
+        top.addAll(chatItems(root, uncategorized));
+        applyChildren(root, top);
+    }
+
+    /** Re-renders the items of a renamed chat. */
+    private void chatChanged(ChatSession chat) {
+        refreshChat(root, chat);
+        for (Item item : smartItems.values()) {
+            refreshChat(item, chat);
+        }
+        for (Item item : folderItems.values()) {
+            refreshChat(item, chat);
+        }
+    }
+
+    private void refreshChat(Item parent, ChatSession chat) {
+        Item item = parent.chatItems.get(chat);
+        if (item != null && !Objects.equals(item.label, chat.getName())) {
+            item.label = chat.getName();
+            item.setValue(new ChatNode(chat)); // New value: the cell renders it again
+        }
+    }
+
+    private void syncChats(Item parent, List<ChatSession> chats) {
+        applyChildren(parent, chatItems(parent, chats));
+    }
+
+    /** Items for the chats under the parent, reusing existing ones and forgetting the rest. */
+    private List<TreeItem<ChatNode>> chatItems(Item parent, List<ChatSession> chats) {
+        List<TreeItem<ChatNode>> items = new ArrayList<>(chats.size());
+        for (ChatSession chat : chats) {
+            Item item = parent.chatItems.computeIfAbsent(chat, this::createChatItem);
+            refreshChat(parent, chat);
+            items.add(item);
+        }
+        if (parent.chatItems.size() > chats.size()) {
+            parent.chatItems.keySet().retainAll(identitySet(chats));
+        }
+        return items;
+    }
+
+    private void updateHeader(Item item, ChatNode node, String iconKey, java.util.function.Supplier<Node> icon) {
+        boolean iconChanged = !Objects.equals(item.iconKey, iconKey);
+        if (iconChanged) {
+            item.iconKey = iconKey;
+            item.setGraphic(icon.get());
+        }
+        if (iconChanged || !Objects.equals(item.label, node.toString())) {
+            item.label = node.toString();
+            item.setValue(node);
+        }
+    }
+
+    /**
+     * Makes the children of the parent exactly the desired items, in order,
+     * with as few list edits as possible.
+     */
+    private static void applyChildren(TreeItem<ChatNode> parent, List<TreeItem<ChatNode>> desired) {
+        ObservableList<TreeItem<ChatNode>> children = parent.getChildren();
+        if (children.equals(desired)) {
+            return;
+        }
+        Set<TreeItem<ChatNode>> wanted = identitySet(desired);
+        if (children.size() > 0) {
+            List<TreeItem<ChatNode>> gone = new ArrayList<>();
+            for (TreeItem<ChatNode> child : children) {
+                if (!wanted.contains(child)) {
+                    gone.add(child);
+                }
+            }
+            children.removeAll(gone);
+        }
+        for (int i = 0; i < desired.size(); i++) {
+            TreeItem<ChatNode> item = desired.get(i);
+            if (i < children.size() && children.get(i) == item) {
+                continue;
+            }
+            children.remove(item); // Moved: no-op when it is new here
+            children.add(i, item);
+        }
+    }
+
+    private static <T> Set<T> identitySet(List<T> list) {
+        Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(list);
+        return set;
+    }
+
+    // --- Items ---
+
+    private Item createChatItem(ChatSession chat) {
+        FontIcon chatIcon = new FontIcon(Feather.MESSAGE_SQUARE);
+        chatIcon.getStyleClass().add("chat-icon");
+        return new Item(new ChatNode(chat), chatIcon);
+    }
+
+    private Item createSmartCollectionItem(SmartCollection sc) {
+        Item item = new Item(new ChatNode(sc), createSmartCollectionIcon(sc));
+        item.iconKey = smartIconKey(sc);
+        item.setExpanded(sc.isExpanded());
+        item.expandedProperty().addListener((obs, oldVal, newVal) -> {
+            sc.setExpanded(newVal);
+            collectionManager.updateSmartCollection(sc);
+        });
+        return item;
+    }
+
+    private Item createFolderItem(ChatFolder folder) {
+        Item item = new Item(new ChatNode(folder), createFolderIcon(folder));
+        item.iconKey = folder.getColor();
+        item.setExpanded(folder.isExpanded());
+        item.expandedProperty().addListener((obs, oldVal, newVal) -> folder.setExpanded(newVal));
+        return item;
+    }
+
+    private static String smartIconKey(SmartCollection sc) {
+        return sc.getIcon() != null ? sc.getIcon() : String.valueOf(sc.getCriteria());
+    }
+
+    private Node createSmartCollectionIcon(SmartCollection sc) {
+        Feather icon = Feather.ACTIVITY; // Default
+        if (sc.getIcon() != null) {
+            // sc.getIcon() returns string name like "clock"
+            switch (sc.getIcon().toLowerCase()) {
+                case "clock":
+                    icon = Feather.CLOCK;
+                    break;
+                case "tag":
+                    icon = Feather.TAG;
+                    break;
+                case "cpu":
+                    icon = Feather.CPU;
+                    break;
+                case "star":
+                    icon = Feather.STAR;
+                    break;
+                default:
+                    icon = Feather.ACTIVITY;
+            }
+        } else if (sc.getCriteria() != null) {
+            // Fallback based on criteria
+            switch (sc.getCriteria()) {
+                case DATE:
+                    icon = Feather.CLOCK;
+                    break;
+                case KEYWORD:
+                    icon = Feather.TAG;
+                    break;
+                case MODEL:
+                    icon = Feather.CPU;
+                    break;
+            }
+        }
+
+        FontIcon fontIcon = new FontIcon(icon);
+        fontIcon.setIconSize(16);
+        fontIcon.setIconColor(Color.web("#007AFF")); // Apple Blue by default for smart collections
+        return fontIcon;
+    }
+
+    private Node createFolderIcon(ChatFolder folder) {
+        // SVG Path for a standard folder icon (Material Design style)
+        String folderPathContent = "M10 4H4c-1.1 0-1.99.9-1.99 2L2 18c0 1.1.9 2 2 2h16c1.1 0 2-.9 2-2V8c0-1.1-.9-2-2-2h-8l-2-2z";
+
+        SVGPath svgPath = new SVGPath();
+        svgPath.setContent(folderPathContent);
+
+        String colorHex = folder.getColor();
+        if (colorHex == null || colorHex.isEmpty()) {
+            colorHex = "#8E8E93"; // Default Gray
+        }
+
+        try {
+            svgPath.setFill(Color.web(colorHex));
+        } catch (IllegalArgumentException e) {
+            svgPath.setFill(Color.GRAY);
+        }
+
+        // The original path is on a 24x24 grid.
+        svgPath.setScaleX(0.75);
+        svgPath.setScaleY(0.75);
+
+        // Wrap in a StackPane to ensure proper sizing/alignment in the TreeCell
+        StackPane iconContainer = new StackPane(svgPath);
+        iconContainer.setPrefSize(20, 20);
+        iconContainer.setMaxSize(20, 20);
+
+        return iconContainer;
+    }
+}
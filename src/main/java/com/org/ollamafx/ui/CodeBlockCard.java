@@ -1,19 +1,109 @@
 package com.org.ollamafx.ui;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.TextArea;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.*;
 import javafx.scene.shape.SVGPath;
+import org.fxmisc.flowless.VirtualizedScrollPane;
+import org.fxmisc.richtext.Caret;
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A code block of an answer, syntax highlighted.
+ *
+ * The code is shown in a RichTextFX CodeArea, which only lays out the lines in
+ * view, so a block of thousands of lines scrolls like a short one. Streamed
+ * code is appended to it, never set again. {@link SyntaxHighlighter} runs on
+ * a background thread and re-highlights only the lines that changed; their
+ * styles come back as patches that the FX thread applies a range of lines at
+ * a time, at most {@link #MAX_LINES_PER_PULSE} per pulse. Code that arrives
+ * while a highlight runs replaces any code still waiting, and a patch drops
+ * the part of older ones it restyles.
+ */
 public class CodeBlockCard extends VBox {
+    private static final Logger LOGGER = Logger.getLogger(CodeBlockCard.class.getName());
+
+    private static final int MAX_LINES_PER_PULSE = 400;
+
+    /** Highlights the code of every card, one text at a time. */
+    private static final ExecutorService HIGHLIGHTER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "code-highlighter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Styles of the lines from {@code firstLine} on, for the text of one version. */
+    private static final class Patch {
+        final int version;
+        final int firstLine;
+        final List<List<SyntaxHighlighter.Span>> lines;
+        final int lineCount;
+
+        Patch(int version, int firstLine, List<List<SyntaxHighlighter.Span>> lines, int lineCount) {
+            this.version = version;
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.lineCount = lineCount;
+        }
+
+        Patch from(int line) {
+            return new Patch(version, line, lines.subList(line - firstLine, lines.size()), lineCount);
+        }
+
+        Patch upTo(int line) {
+            return new Patch(version, firstLine, lines.subList(0, line - firstLine), lineCount);
+        }
+    }
 
-    private final TextArea codeArea;
+    /** Code to highlight, and the version of the area's text it belongs to. */
+    private static final class Submission {
+        final String code;
+        final int version;
+
+        Submission(String code, int version) {
+            this.code = code;
+            this.version = version;
+        }
+    }
+
+    private final CodeArea codeArea;
+    private final VirtualizedScrollPane<CodeArea> scrollPane;
     private final Label languageLabel;
+    private String code; // What the area shows; FX thread only
+    private int rows; // Line count, for the height estimate
+
+    /** Changes when the area's text is replaced rather than appended to; its styles are gone then. */
+    private volatile int version;
+
+    // Highlighter thread
+    private final SyntaxHighlighter highlighter;
+    private int highlightedVersion;
+
+    private final AtomicReference<Submission> pendingCode = new AtomicReference<>();
+    private final AtomicBoolean highlighting = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<Patch> patches = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean applyScheduled = new AtomicBoolean();
+    /** Patches taken from the queue, still to apply. FX thread only. */
+    private final List<Patch> toApply = new ArrayList<>();
 
     public CodeBlockCard(String code, String language) {
         this.getStyleClass().add("code-block-card");
@@ -40,33 +130,175 @@ public class CodeBlockCard extends VBox {
         icon.setStyle("-fx-fill: -color-fg-muted; -fx-scale-x: 0.8; -fx-scale-y: 0.8;");
         copyButton.setGraphic(icon);
 
-        copyButton.setOnAction(e -> copyToClipboard(code));
-
         header.getChildren().addAll(languageLabel, spacer, copyButton);
 
         // --- Code Area ---
-        this.codeArea = new TextArea(code);
+        this.code = normalize(code);
+        this.highlighter = SyntaxHighlighter.forLanguage(language);
+        this.codeArea = new CodeArea(this.code);
         this.codeArea.setEditable(false);
         this.codeArea.setWrapText(false);
+        this.codeArea.setShowCaret(Caret.CaretVisibility.OFF);
+        // Appended code stays plain until highlighted, instead of taking the style before it
+        this.codeArea.setUseInitialStyleForInsertion(true);
         this.codeArea.getStyleClass().add("code-block-content");
 
+        this.scrollPane = new VirtualizedScrollPane<>(codeArea);
+        this.scrollPane.getStyleClass().add("code-block-scroll");
+        this.scrollPane.setPrefWidth(100); // Long lines scroll; they don't widen the card
+        // The area takes every wheel event: give the vertical ones to the chat while the code fits
+        this.scrollPane.addEventFilter(ScrollEvent.SCROLL, e -> {
+            Double total = codeArea.getTotalHeightEstimate();
+            if (getParent() != null && total != null && total <= codeArea.getHeight() + 1
+                    && Math.abs(e.getDeltaY()) > Math.abs(e.getDeltaX())) {
+                e.consume();
+                getParent().fireEvent(e.copyFor(getParent(), getParent()));
+            }
+        });
+
+        // Copies what the card shows now, not the code it was created with
+        copyButton.setOnAction(e -> copyToClipboard(this.code));
+
         // Auto-height estimate
-        int rows = code.split("\n").length;
-        this.codeArea.setPrefHeight(Math.max(60, Math.min(rows * 20 + 20, 500)));
-        this.codeArea.setMinHeight(60);
+        rows = this.code.split("\n").length;
+        this.scrollPane.setPrefHeight(Math.max(60, Math.min(rows * 20 + 20, 500)));
+        this.scrollPane.setMinHeight(60);
 
-        VBox.setVgrow(codeArea, Priority.ALWAYS);
+        VBox.setVgrow(scrollPane, Priority.ALWAYS);
 
-        this.getChildren().addAll(header, codeArea);
+        this.getChildren().addAll(header, scrollPane);
+        highlight();
     }
 
     public void updateCode(String newCode) {
-        if (!codeArea.getText().equals(newCode)) {
-            codeArea.setText(newCode);
-            // Re-estimate height
-            int rows = newCode.split("\n").length;
-            this.codeArea.setPrefHeight(Math.max(60, Math.min(rows * 20 + 20, 500)));
+        newCode = normalize(newCode);
+        if (code.equals(newCode)) {
+            return;
+        }
+        if (newCode.startsWith(code)) {
+            // Streaming: only the new code goes into the area
+            String appended = newCode.substring(code.length());
+            codeArea.appendText(appended);
+            rows += (int) appended.chars().filter(c -> c == '\n').count();
+        } else {
+            version++;
+            toApply.clear();
+            codeArea.replaceText(newCode);
+            rows = newCode.split("\n").length;
+        }
+        code = newCode;
+        highlight();
+        // Re-estimate height
+        this.scrollPane.setPrefHeight(Math.max(60, Math.min(rows * 20 + 20, 500)));
+    }
+
+    /** The area splits lines on any break; the highlighter on \n only. */
+    private static String normalize(String code) {
+        return code.indexOf('\r') < 0 ? code : code.replace("\r\n", "\n").replace('\r', '\n');
+    }
+
+    private void highlight() {
+        pendingCode.set(new Submission(code, version));
+        if (highlighting.compareAndSet(false, true)) {
+            HIGHLIGHTER.execute(this::highlightPending);
+        }
+    }
+
+    /** Runs on the highlighter thread until no code is waiting. */
+    private void highlightPending() {
+        try {
+            Submission submission;
+            while ((submission = pendingCode.getAndSet(null)) != null) {
+                if (submission.version != highlightedVersion) {
+                    // The area's text was replaced, and its styles with it
+                    highlighter.reset();
+                    highlightedVersion = submission.version;
+                }
+                SyntaxHighlighter.Result result = highlighter.update(submission.code);
+                if (result != null) {
+                    patches.add(new Patch(submission.version, result.firstLine, result.lines, result.lineCount));
+                    if (applyScheduled.compareAndSet(false, true)) {
+                        Platform.runLater(this::applyPatches);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Syntax highlighting failed", e);
+        } finally {
+            highlighting.set(false);
+            // Code submitted between the last poll and the reset above
+            if (pendingCode.get() != null && highlighting.compareAndSet(false, true)) {
+                HIGHLIGHTER.execute(this::highlightPending);
+            }
+        }
+    }
+
+    /** Applies waiting patches, up to a budget of lines; the rest on the next pulse. */
+    private void applyPatches() {
+        Patch patch;
+        while ((patch = patches.poll()) != null) {
+            if (patch.version != version) {
+                continue;
+            }
+            // The new patch restyles its lines: older ones needn't
+            for (int i = toApply.size() - 1; i >= 0; i--) {
+                Patch older = toApply.get(i);
+                if (older.firstLine >= patch.firstLine) {
+                    toApply.remove(i);
+                } else if (older.firstLine + older.lines.size() > patch.firstLine) {
+                    toApply.set(i, older.upTo(patch.firstLine));
+                }
+            }
+            toApply.add(patch);
+        }
+
+        int budget = MAX_LINES_PER_PULSE;
+        while (budget > 0 && !toApply.isEmpty()) {
+            Patch head = toApply.get(0);
+            int count = Math.min(budget, head.lines.size());
+            applyStyles(head.firstLine, head.lines.subList(0, count), head.lineCount);
+            budget -= count;
+            if (count == head.lines.size()) {
+                toApply.remove(0);
+            } else {
+                toApply.set(0, head.from(head.firstLine + count));
+            }
+        }
+
+        if (!toApply.isEmpty()) {
+            Platform.runLater(this::applyPatches);
+            return;
+        }
+        applyScheduled.set(false);
+        // Patch queued between the last poll and the reset above
+        if (!patches.isEmpty() && applyScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::applyPatches);
+        }
+    }
+
+    /** Styles a range of lines with one call, so the area lays them out once. */
+    private void applyStyles(int firstLine, List<List<SyntaxHighlighter.Span>> lines, int lineCount) {
+        if (firstLine >= codeArea.getParagraphs().size()) {
+            return;
+        }
+        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+        int length = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            for (SyntaxHighlighter.Span span : lines.get(i)) {
+                spans.add(span.style == null ? Collections.emptyList() : Collections.singleton(span.style),
+                        span.length);
+                length += span.length;
+            }
+            if (firstLine + i < lineCount - 1) {
+                spans.add(Collections.emptyList(), 1); // The line break
+                length++;
+            }
+        }
+        int start = codeArea.getAbsolutePosition(firstLine, 0);
+        if (length == 0 || start + length > codeArea.getLength()) {
+            return;
         }
+        codeArea.setStyleSpans(start, spans.create());
     }
 
     private void copyToClipboard(String text) {
@@ -1,6 +1,7 @@
 package com.org.ollamafx.ui;
 
 import com.org.ollamafx.App;
+import com.org.ollamafx.manager.ImageStore;
 import com.org.ollamafx.util.ImageUtils;
 
 import javafx.beans.property.BooleanProperty;
@@ -31,7 +32,7 @@ public class ImagePreviewStrip extends HBox {
     private static final int THUMB_SIZE = 60;
 
     private final List<File> imageFiles = new ArrayList<>();
-    private final List<String> base64Cache = new ArrayList<>();
+    private final List<String> imageRefs = new ArrayList<>();
     private final BooleanProperty empty = new SimpleBooleanProperty(true);
     private final Label countLabel;
 
@@ -65,11 +66,11 @@ public class ImagePreviewStrip extends HBox {
         }
 
         try {
-            String base64 = ImageUtils.toBase64(file);
+            String ref = ImageStore.getInstance().put(file);
             Image thumb = ImageUtils.createThumbnail(file, THUMB_SIZE);
 
             imageFiles.add(file);
-            base64Cache.add(base64);
+            imageRefs.add(ref);
 
             // Build thumbnail pill
             StackPane pill = createThumbnailPill(thumb, imageFiles.size() - 1);
@@ -127,7 +128,7 @@ public class ImagePreviewStrip extends HBox {
     private void removeImage(int index) {
         if (index >= 0 && index < imageFiles.size()) {
             imageFiles.remove(index);
-            base64Cache.remove(index);
+            imageRefs.remove(index);
             rebuildThumbnails();
             updateVisibility();
         }
@@ -163,16 +164,17 @@ public class ImagePreviewStrip extends HBox {
      */
     public void clearImages() {
         imageFiles.clear();
-        base64Cache.clear();
+        imageRefs.clear();
         this.getChildren().clear();
         updateVisibility();
     }
 
     /**
-     * Returns the base64-encoded image data for sending to Ollama.
+     * Returns the ImageStore references of the attached images. The bytes are
+     * read from the store when the message is sent.
      */
-    public List<String> getBase64Images() {
-        return new ArrayList<>(base64Cache);
+    public List<String> getImageRefs() {
+        return new ArrayList<>(imageRefs);
     }
 
     /**
@@ -182,6 +184,13 @@ public class ImagePreviewStrip extends HBox {
         return !imageFiles.isEmpty();
     }
 
+    /**
+     * Returns how many images are attached.
+     */
+    public int getImageCount() {
+        return imageFiles.size();
+    }
+
     /**
      * Observable property for binding visibility of related components.
      */
@@ -0,0 +1,150 @@
+package com.org.ollamafx.ui;
+
+import org.commonmark.node.FencedCodeBlock;
+import org.commonmark.node.IndentedCodeBlock;
+import org.commonmark.node.Node;
+import org.commonmark.node.SourceSpan;
+import org.commonmark.parser.IncludeSourceSpans;
+import org.commonmark.parser.Parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Markdown as a list of top-level blocks, re-parsing only the end of a text
+ * that keeps growing, as a streamed answer does.
+ *
+ * A block is closed once the block after it has started on a complete line:
+ * no text appended later can change it any more. (A partial line could still
+ * turn out to continue it, e.g. "#" before it becomes "#hashtag".) Closed
+ * blocks are kept, with the offset where they end, for as long as each new
+ * text extends the previous one, and an update parses only from the first open
+ * block on. Its cost depends on the length of that block, not of the answer.
+ *
+ * Link reference definitions only apply to the part parsed with them.
+ * Not thread-safe; blocks are immutable.
+ */
+final class IncrementalMarkdownParser {
+
+    enum BlockType {
+        PROSE, CODE
+    }
+
+    static final class Block {
+        final BlockType type;
+        final String content; // BBCode for prose, the source for code
+        final String info; // Fence info string of code blocks
+
+        Block(BlockType type, String content, String info) {
+            this.type = type;
+            this.content = content;
+            this.info = info;
+        }
+
+        boolean sameAs(Block other) {
+            return other != null && type == other.type && content.equals(other.content)
+                    && Objects.equals(info, other.info);
+        }
+    }
+
+    private final Parser parser = Parser.builder().includeSourceSpans(IncludeSourceSpans.BLOCKS).build();
+
+    private String text = "";
+    /** Closed blocks, followed by the blocks of the open part. */
+    private final List<Block> blocks = new ArrayList<>();
+    private int closedCount;
+    /** Offset where the open part starts. */
+    private int closedEnd;
+    /** Offset of the end of the complete line that closed the last closed block. */
+    private int stableEnd;
+
+    /**
+     * Parses the new text and returns how many leading blocks are the same
+     * objects as after the previous update; {@link #blocks()} has the rest.
+     */
+    int update(String markdown) {
+        if (markdown.length() < stableEnd || !markdown.regionMatches(0, text, 0, stableEnd)) {
+            // Not a continuation: start over
+            blocks.clear();
+            closedCount = 0;
+            closedEnd = 0;
+            stableEnd = 0;
+        }
+        int reused = closedCount;
+        text = markdown;
+        blocks.subList(closedCount, blocks.size()).clear();
+
+        String tail = markdown.substring(closedEnd);
+        List<Integer> lineStarts = lineStarts(tail);
+        List<Node> top = new ArrayList<>();
+        for (Node node = parser.parse(tail).getFirstChild(); node != null; node = node.getNext()) {
+            top.add(node);
+        }
+
+        // The last block that starts on a complete line closes every block before it
+        int firstOpen = 0;
+        int openStart = 0;
+        int openLineEnd = 0;
+        for (int i = top.size() - 1; i > 0; i--) {
+            List<SourceSpan> spans = top.get(i).getSourceSpans();
+            if (spans.isEmpty()) {
+                continue;
+            }
+            int lineIndex = spans.get(0).getLineIndex();
+            if (lineIndex + 1 < lineStarts.size()) {
+                firstOpen = i;
+                openStart = lineStarts.get(lineIndex);
+                openLineEnd = lineStarts.get(lineIndex + 1);
+                break;
+            }
+        }
+
+        for (int i = 0; i < top.size(); i++) {
+            if (i == firstOpen && firstOpen > 0) {
+                closedCount = blocks.size();
+            }
+            Block block = toBlock(top.get(i));
+            if (block != null) {
+                blocks.add(block);
+            }
+        }
+        if (firstOpen > 0) {
+            stableEnd = closedEnd + openLineEnd;
+            closedEnd += openStart;
+        }
+        return reused;
+    }
+
+    /** The blocks of the last update. Only valid until the next one. */
+    List<Block> blocks() {
+        return blocks;
+    }
+
+    private static Block toBlock(Node node) {
+        if (node instanceof FencedCodeBlock) {
+            FencedCodeBlock fenced = (FencedCodeBlock) node;
+            return new Block(BlockType.CODE, fenced.getLiteral(), fenced.getInfo());
+        }
+        if (node instanceof IndentedCodeBlock) {
+            return new Block(BlockType.CODE, ((IndentedCodeBlock) node).getLiteral(), "");
+        }
+        MarkdownToBBCodeVisitor visitor = new MarkdownToBBCodeVisitor();
+        node.accept(visitor);
+        String bbcode = visitor.getBBCode().strip();
+        return bbcode.isEmpty() ? null : new Block(BlockType.PROSE, bbcode, null);
+    }
+
+    /** Offset of every line, plus the end of the text if it ends with a line break. */
+    private static List<Integer> lineStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+                starts.add(i + 1);
+            }
+        }
+        return starts;
+    }
+}
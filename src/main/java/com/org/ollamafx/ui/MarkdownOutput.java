@@ -1,105 +1,282 @@
 package com.org.ollamafx.ui;
 
 import atlantafx.base.util.BBCodeParser;
+import com.org.ollamafx.ui.IncrementalMarkdownParser.Block;
+import com.org.ollamafx.ui.IncrementalMarkdownParser.BlockType;
+import javafx.application.Platform;
 import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
-import org.commonmark.node.FencedCodeBlock;
-import org.commonmark.node.IndentedCodeBlock;
-import org.commonmark.parser.Parser;
+import javafx.scene.text.Text;
 
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders markdown as one node per top-level block: BBCode layouts for prose,
+ * {@link CodeBlockCard}s for code.
+ *
+ * While an answer streams, {@link IncrementalMarkdownParser} re-parses only its
+ * open end and the nodes of closed blocks are left alone. The open block is
+ * updated in place where it can be: text appended to a paragraph goes into its
+ * last Text node, code appended to a code block into its card.
+ *
+ * {@link #updateContent} parses on a background thread: the FX thread only gets
+ * a {@link Patch} with the blocks that changed. A patch the FX thread has not
+ * applied yet when a newer one is ready is merged into it, and text that
+ * arrives while a parse runs replaces any text still waiting, so a slow frame
+ * skips intermediate states instead of queueing them. {@link #setMarkdown}
+ * parses and renders at once, for a node that must have its content when built.
+ */
 public class MarkdownOutput extends VBox {
 
-    private final Parser parser;
+    /** Parses streamed text for every output, one text at a time. */
+    private static final ExecutorService PARSER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "markdown-parser");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** The blocks from index {@code from} on, and nothing after them. */
+    private static final class Patch {
+        final long version;
+        final int from;
+        final List<Block> blocks;
+
+        Patch(long version, int from, List<Block> blocks) {
+            this.version = version;
+            this.from = from;
+            this.blocks = blocks;
+        }
+
+        /** This patch followed by the newer one, as one patch. */
+        Patch then(Patch next) {
+            if (next.version != version || next.from <= from) {
+                return next;
+            }
+            // Blocks between the two starts are unchanged since this patch
+            List<Block> merged = new ArrayList<>(blocks.subList(0, Math.min(next.from - from, blocks.size())));
+            merged.addAll(next.blocks);
+            return new Patch(version, from, merged);
+        }
+    }
+
+    /** A text to parse, and the version of the content it continues. */
+    private static final class Submission {
+        final String text;
+        final long version;
+
+        Submission(String text, long version) {
+            this.text = text;
+            this.version = version;
+        }
+    }
+
+    // Guarded by blockParser: the parser, the blocks sent to the FX thread, the version
+    private final IncrementalMarkdownParser blockParser = new IncrementalMarkdownParser();
+    private final List<Block> sent = new ArrayList<>();
+    /** Changed by setMarkdown; patches of an older version are dropped. */
+    private volatile long version;
+
+    private final AtomicReference<Submission> pendingText = new AtomicReference<>();
+    private final AtomicBoolean parsing = new AtomicBoolean();
+    private final AtomicReference<Patch> pendingPatch = new AtomicReference<>();
+
+    /** The block shown by each child, in order. FX thread only. */
+    private final List<Block> rendered = new ArrayList<>();
 
     public MarkdownOutput() {
-        this.parser = Parser.builder().build();
         this.getStyleClass().add("markdown-area");
         this.setFillWidth(true);
         this.setSpacing(10);
     }
 
-    private String originalMarkdown;
+    private volatile String originalMarkdown;
 
+    /** Shows the text once it has been parsed in the background. For text that keeps growing. */
     public void updateContent(String markdown) {
-        setMarkdown(markdown);
+        if (markdown == null)
+            markdown = "";
+
+        this.originalMarkdown = markdown;
+        pendingText.set(new Submission(markdown, version));
+        if (parsing.compareAndSet(false, true)) {
+            PARSER.execute(this::parsePending);
+        }
     }
 
     public String getMarkdown() {
         return originalMarkdown;
     }
 
+    /** Parses and shows the text now. */
     public void setMarkdown(String markdown) {
         if (markdown == null)
             markdown = "";
 
         this.originalMarkdown = markdown;
 
-        // 1. Parse into abstract "Block" list to allow diffing
-        List<BlockData> newBlocks = parseToBlocks(markdown);
+        synchronized (blockParser) {
+            // Whatever the parser thread has in hand is older than this
+            version++;
+            pendingText.set(null);
+            pendingPatch.set(null);
+
+            // 1. Parse the open end of the text; closed blocks come back as the same objects
+            int reused = blockParser.update(markdown);
+
+            // 2. Sync the children from the first block that may have changed
+            List<Block> blocks = blockParser.blocks();
+            int from = Math.min(reused, rendered.size());
+            syncChildren(from, blocks.subList(from, blocks.size()), blocks.size());
+            sent.clear();
+            sent.addAll(rendered);
+        }
+    }
 
-        // 2. Sync with children
-        syncChildren(newBlocks);
+    /** Runs on the parser thread until no text is waiting. */
+    private void parsePending() {
+        try {
+            Submission submission;
+            while ((submission = pendingText.getAndSet(null)) != null) {
+                Patch patch = parse(submission);
+                if (patch != null) {
+                    post(patch);
+                }
+            }
+        } finally {
+            parsing.set(false);
+            // Text submitted between the last poll and the reset above
+            if (pendingText.get() != null && parsing.compareAndSet(false, true)) {
+                PARSER.execute(this::parsePending);
+            }
+        }
+    }
+
+    /** Parses the text and diffs its blocks against those already sent. Null if nothing changed. */
+    private Patch parse(Submission submission) {
+        synchronized (blockParser) {
+            if (submission.version != version) {
+                return null; // setMarkdown ran since
+            }
+            int reused = blockParser.update(submission.text);
+            List<Block> blocks = blockParser.blocks();
+
+            int from = Math.min(reused, sent.size());
+            while (from < blocks.size() && from < sent.size() && blocks.get(from).sameAs(sent.get(from))) {
+                from++;
+            }
+            if (from == blocks.size() && from == sent.size()) {
+                return null;
+            }
+            List<Block> changed = List.copyOf(blocks.subList(from, blocks.size()));
+            sent.subList(from, sent.size()).clear();
+            sent.addAll(changed);
+            return new Patch(version, from, changed);
+        }
     }
 
-    private void syncChildren(List<BlockData> newBlocks) {
+    /** Hands the patch to the FX thread, merged into the one still waiting there if any. */
+    private void post(Patch patch) {
+        Patch waiting = pendingPatch.getAndUpdate(old -> old == null ? patch : old.then(patch));
+        if (waiting == null) {
+            Platform.runLater(this::applyPendingPatch);
+        }
+    }
+
+    private void applyPendingPatch() {
+        Patch patch = pendingPatch.getAndSet(null);
+        if (patch == null || patch.version != version) {
+            return;
+        }
+        syncChildren(patch.from, patch.blocks, patch.from + patch.blocks.size());
+    }
+
+    /** Shows the blocks from index {@code from} on and drops the children after {@code size}. */
+    private void syncChildren(int from, List<Block> blocks, int size) {
         var children = this.getChildren();
 
-        // Remove excess children
-        if (children.size() > newBlocks.size()) {
-            children.remove(newBlocks.size(), children.size());
-        }
-
-        for (int i = 0; i < newBlocks.size(); i++) {
-            BlockData block = newBlocks.get(i);
-
-            if (i < children.size()) {
-                Node child = children.get(i);
-
-                if (block.type == BlockType.CODE && child instanceof CodeBlockCard) {
-                    // Update Code in-place (Efficient)
-                    ((CodeBlockCard) child).updateCode(block.content);
-                } else if (block.type == BlockType.PROSE && child instanceof Region
-                        && !(child instanceof CodeBlockCard)) {
-                    // Check if Prose content changed
-                    String oldContent = (String) child.getProperties().get("bbcode");
-                    if (oldContent == null || !oldContent.equals(block.content)) {
-                        // Content changed, replace node
-                        children.set(i, createNode(block));
-                    }
-                    // Else: content identical, do nothing (No jump!)
-                } else {
-                    // Type mismatch (e.g. Prose -> Code), replace
+        for (int i = from; i < size; i++) {
+            Block block = blocks.get(i - from);
+
+            if (i < rendered.size()) {
+                Block old = rendered.get(i);
+                if (!block.sameAs(old) && !updateInPlace(children.get(i), old, block)) {
+                    // Type or markup changed: replace
                     children.set(i, createNode(block));
                 }
+                rendered.set(i, block);
             } else {
                 // Append new node
                 children.add(createNode(block));
+                rendered.add(block);
             }
         }
+
+        // Remove excess children
+        if (rendered.size() > size) {
+            children.remove(size, children.size());
+            rendered.subList(size, rendered.size()).clear();
+        }
+    }
+
+    /** Applies text appended to the block to its node. Returns false if it must be rebuilt. */
+    private boolean updateInPlace(Node node, Block old, Block block) {
+        if (old.type != block.type) {
+            return false;
+        }
+        if (block.type == BlockType.CODE) {
+            if (!(node instanceof CodeBlockCard) || !Objects.equals(old.info, block.info)) {
+                return false;
+            }
+            ((CodeBlockCard) node).updateCode(block.content);
+            return true;
+        }
+
+        // Prose: only plain text appended after plain text, so no tag opens, closes or moves
+        if (!block.content.startsWith(old.content) || old.content.endsWith("]")) {
+            return false;
+        }
+        String appended = block.content.substring(old.content.length());
+        if (appended.chars().anyMatch(c -> c == '[' || c == ']' || c == '\n' || c == '\r')) {
+            return false;
+        }
+        String run = old.content.substring(
+                Math.max(old.content.lastIndexOf(']'), old.content.lastIndexOf('\n')) + 1);
+        Text last = lastText(node);
+        if (last == null || !last.getText().endsWith(run)) {
+            return false;
+        }
+        last.setText(last.getText() + appended);
+        node.getProperties().put("bbcode", block.content);
+        return true;
     }
 
-    // Revised Sync Logic with Prose Replacement
+    /** The last Text of the BBCode layout, where its final run of text is. */
+    private static Text lastText(Node node) {
+        while (node instanceof Parent) {
+            List<Node> children = ((Parent) node).getChildrenUnmodifiable();
+            if (children.isEmpty()) {
+                return null;
+            }
+            node = children.get(children.size() - 1);
+        }
+        return node instanceof Text ? (Text) node : null;
+    }
 
-    private Node createNode(BlockData block) {
+    private Node createNode(Block block) {
         if (block.type == BlockType.CODE) {
             return new CodeBlockCard(block.content, block.info);
         } else {
             try {
-                // Use createLayout to handle block elements
-                // Note: AtlantaFX BBCodeParser might be strict or limited.
-                // If it fails, we fall back to raw text, which explains the [h2] visible.
-                Node bbCodeNode = BBCodeParser.createFormattedText(block.content); // Try createFormattedText instead of
-                                                                                   // createLayout? Or debug.
-
-                // createLayout is usually for full blocks. createFormattedText for inline.
-                // Let's stick to createLayout but debug the failure.
-                // Actually, let's look at the imports. atlantafx.base.util.BBCodeParser
-
-                bbCodeNode = BBCodeParser.createLayout(block.content);
+                // createLayout handles block elements (lists); createFormattedText is inline only
+                Node bbCodeNode = BBCodeParser.createLayout(block.content);
 
                 // Fix Text Wrapping
                 if (bbCodeNode instanceof Region) {
@@ -120,68 +297,4 @@ public class MarkdownOutput extends VBox {
             }
         }
     }
-
-    // --- Parsing Logic ---
-
-    private enum BlockType {
-        PROSE, CODE
-    }
-
-    private static class BlockData {
-        BlockType type;
-        String content;
-        String info; // for code
-
-        BlockData(BlockType type, String content, String info) {
-            this.type = type;
-            this.content = content;
-            this.info = info;
-        }
-    }
-
-    private List<BlockData> parseToBlocks(String markdown) {
-        List<BlockData> blocks = new ArrayList<>();
-        org.commonmark.node.Node document = parser.parse(markdown);
-
-        MarkdownToBBCodeVisitor visitor = new MarkdownToBBCodeVisitor();
-
-        org.commonmark.node.Node node = document.getFirstChild();
-        while (node != null) {
-            boolean isCode = (node instanceof FencedCodeBlock) || (node instanceof IndentedCodeBlock);
-
-            if (isCode) {
-                // Flush Prose
-                String prose = visitor.getBBCode();
-                if (!prose.isEmpty()) {
-                    blocks.add(new BlockData(BlockType.PROSE, prose, null));
-                    visitor.clear();
-                }
-
-                String code = "";
-                String info = "";
-
-                if (node instanceof FencedCodeBlock) {
-                    FencedCodeBlock f = (FencedCodeBlock) node;
-                    code = f.getLiteral();
-                    info = f.getInfo();
-                } else {
-                    code = ((IndentedCodeBlock) node).getLiteral();
-                }
-
-                blocks.add(new BlockData(BlockType.CODE, code, info));
-
-            } else {
-                node.accept(visitor);
-            }
-            node = node.getNext();
-        }
-
-        // Final flush
-        String prose = visitor.getBBCode();
-        if (!prose.isEmpty()) {
-            blocks.add(new BlockData(BlockType.PROSE, prose, null));
-        }
-
-        return blocks;
-    }
 }
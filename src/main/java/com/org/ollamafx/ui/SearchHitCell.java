@@ -0,0 +1,61 @@
+package com.org.ollamafx.ui;
+
+import com.org.ollamafx.model.ChatSession;
+import com.org.ollamafx.model.SearchHit;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.util.function.Function;
+
+/**
+ * Result of the sidebar search: the chat name and a snippet of the matching
+ * message with the matched words in bold.
+ */
+public class SearchHitCell extends ListCell<SearchHit> {
+
+    private final Function<String, ChatSession> chatLookup;
+    private final Label title = new Label();
+    private final TextFlow snippet = new TextFlow();
+    private final VBox content = new VBox(2, title, snippet);
+
+    public SearchHitCell(Function<String, ChatSession> chatLookup) {
+        this.chatLookup = chatLookup;
+        title.getStyleClass().add("search-result-title");
+        snippet.maxWidthProperty().bind(widthProperty().subtract(20));
+    }
+
+    @Override
+    protected void updateItem(SearchHit hit, boolean empty) {
+        super.updateItem(hit, empty);
+        if (empty || hit == null) {
+            setGraphic(null);
+            return;
+        }
+        ChatSession chat = chatLookup.apply(hit.getSessionId());
+        title.setText(chat != null ? chat.getName() : "");
+
+        snippet.getChildren().clear();
+        String text = hit.getSnippet();
+        int pos = 0;
+        for (SearchHit.Highlight highlight : hit.getHighlights()) {
+            if (highlight.getStart() > pos) {
+                snippet.getChildren().add(part(text.substring(pos, highlight.getStart()), false));
+            }
+            snippet.getChildren().add(part(text.substring(highlight.getStart(), highlight.getEnd()), true));
+            pos = highlight.getEnd();
+        }
+        if (pos < text.length()) {
+            snippet.getChildren().add(part(text.substring(pos), false));
+        }
+        setGraphic(content);
+    }
+
+    private static Text part(String text, boolean highlighted) {
+        Text node = new Text(text);
+        node.getStyleClass().add(highlighted ? "search-result-highlight" : "search-result-snippet");
+        return node;
+    }
+}
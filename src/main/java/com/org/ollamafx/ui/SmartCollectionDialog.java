@@ -3,13 +3,77 @@ package com.org.ollamafx.ui;
 import com.org.ollamafx.model.SmartCollection;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
-import javafx.util.Pair;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class SmartCollectionDialog extends Dialog<SmartCollection> {
 
+    /** Editor for one condition of the collection. */
+    private static class ConditionRow extends HBox {
+        final ComboBox<SmartCollection.Criteria> criteriaBox = new ComboBox<>();
+        final ComboBox<SmartCollection.DateField> dateFieldBox = new ComboBox<>();
+        final TextField valueField = new TextField();
+        final Button removeButton = new Button("−");
+
+        ConditionRow(SmartCollection.Condition condition) {
+            super(6);
+            setAlignment(Pos.CENTER_LEFT);
+
+            criteriaBox.getItems().setAll(SmartCollection.Criteria.values());
+            criteriaBox.setValue(condition != null && condition.getCriteria() != null ? condition.getCriteria()
+                    : SmartCollection.Criteria.KEYWORD);
+
+            dateFieldBox.getItems().setAll(SmartCollection.DateField.values());
+            dateFieldBox.setValue(condition != null ? condition.getDateField() : SmartCollection.DateField.CREATED);
+            dateFieldBox.setConverter(new javafx.util.StringConverter<>() {
+                @Override
+                public String toString(SmartCollection.DateField field) {
+                    return field == SmartCollection.DateField.LAST_ACTIVITY ? "Last activity" : "Created";
+                }
+
+                @Override
+                public SmartCollection.DateField fromString(String string) {
+                    return null;
+                }
+            });
+
+            if (condition != null && condition.getValue() != null)
+                valueField.setText(condition.getValue());
+
+            criteriaBox.valueProperty().addListener((obs, oldVal, newVal) -> updateForCriteria(newVal));
+            updateForCriteria(criteriaBox.getValue());
+
+            getChildren().addAll(criteriaBox, dateFieldBox, valueField, removeButton);
+        }
+
+        private void updateForCriteria(SmartCollection.Criteria criteria) {
+            boolean date = criteria == SmartCollection.Criteria.DATE;
+            dateFieldBox.setVisible(date);
+            dateFieldBox.setManaged(date);
+            if (date) {
+                valueField.setPromptText("7, today, 2024-01-01..2024-03-31");
+            } else if (criteria == SmartCollection.Criteria.MODEL) {
+                valueField.setPromptText("Model Name (e.g. llama3)");
+            } else {
+                valueField.setPromptText("Keyword");
+            }
+        }
+
+        SmartCollection.Condition toCondition() {
+            return new SmartCollection.Condition(criteriaBox.getValue(), valueField.getText(),
+                    dateFieldBox.getValue());
+        }
+    }
+
+    private final VBox conditionsBox = new VBox(6);
+    private final ComboBox<String> iconBox = new ComboBox<>();
+
     public SmartCollectionDialog(SmartCollection existing) {
         setTitle(existing == null ? "New Smart Collection" : "Edit Smart Collection");
         setHeaderText("Define your smart collection criteria.");
@@ -27,65 +91,76 @@ public class SmartCollectionDialog extends Dialog<SmartCollection> {
         if (existing != null)
             nameField.setText(existing.getName());
 
-        ComboBox<SmartCollection.Criteria> criteriaBox = new ComboBox<>();
-        criteriaBox.getItems().setAll(SmartCollection.Criteria.values());
-        criteriaBox.setValue(existing != null ? existing.getCriteria() : SmartCollection.Criteria.KEYWORD);
-
-        TextField valueField = new TextField();
-        valueField.setPromptText("Value (e.g. 'project', '7')");
-        if (existing != null)
-            valueField.setText(existing.getValue());
-
-        ComboBox<String> iconBox = new ComboBox<>();
         iconBox.getItems().addAll("activity", "clock", "tag", "cpu", "star");
         iconBox.setValue(existing != null && existing.getIcon() != null ? existing.getIcon() : "activity");
         // Simple string rendering for now
 
+        if (existing != null && !existing.getConditions().isEmpty()) {
+            for (SmartCollection.Condition condition : existing.getConditions()) {
+                addConditionRow(condition);
+            }
+        } else {
+            addConditionRow(null);
+        }
+
+        Button addButton = new Button("Add Condition");
+        addButton.setOnAction(e -> addConditionRow(null));
+
         grid.add(new Label("Name:"), 0, 0);
         grid.add(nameField, 1, 0);
-        grid.add(new Label("Criteria:"), 0, 1);
-        grid.add(criteriaBox, 1, 1);
-        grid.add(new Label("Value:"), 0, 2);
-        grid.add(valueField, 1, 2);
+        grid.add(new Label("Match all:"), 0, 1);
+        grid.add(conditionsBox, 1, 1);
+        grid.add(addButton, 1, 2);
         grid.add(new Label("Icon:"), 0, 3);
         grid.add(iconBox, 1, 3);
 
         // Value hint logic
-        Label hintLabel = new Label("Filter by chat name substring.");
+        Label hintLabel = new Label(
+                "Keyword: chat name or message text. Date: last N days, 'today' or a from..to range.");
+        hintLabel.setWrapText(true);
         grid.add(hintLabel, 1, 4);
 
-        criteriaBox.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal == SmartCollection.Criteria.DATE) {
-                valueField.setPromptText("Days (e.g. 7)");
-                hintLabel.setText("Chats from the last N days.");
-                iconBox.setValue("clock");
-            } else if (newVal == SmartCollection.Criteria.MODEL) {
-                valueField.setPromptText("Model Name (e.g. llama3)");
-                hintLabel.setText("Chats using this model.");
-                iconBox.setValue("cpu");
-            } else {
-                valueField.setPromptText("Keyword");
-                hintLabel.setText("Filter by chat name substring.");
-                iconBox.setValue("tag");
-            }
-        });
-
         getDialogPane().setContent(grid);
 
         Platform.runLater(nameField::requestFocus);
 
         setResultConverter(dialogButton -> {
             if (dialogButton == saveButtonType) {
+                List<SmartCollection.Condition> conditions = new ArrayList<>();
+                for (javafx.scene.Node node : conditionsBox.getChildren()) {
+                    conditions.add(((ConditionRow) node).toCondition());
+                }
                 return new SmartCollection(
                         nameField.getText(),
-                        criteriaBox.getValue(),
-                        valueField.getText(),
+                        conditions,
                         iconBox.getValue());
             }
             return null;
         });
     }
 
+    private void addConditionRow(SmartCollection.Condition condition) {
+        ConditionRow row = new ConditionRow(condition);
+        row.removeButton.setOnAction(e -> {
+            if (conditionsBox.getChildren().size() > 1) {
+                conditionsBox.getChildren().remove(row);
+            }
+        });
+        // The first condition suggests the icon, as before
+        if (conditionsBox.getChildren().isEmpty()) {
+            row.criteriaBox.valueProperty().addListener((obs, oldVal, newVal) -> {
+                if (newVal == SmartCollection.Criteria.DATE) {
+                    iconBox.setValue("clock");
+                } else if (newVal == SmartCollection.Criteria.MODEL) {
+                    iconBox.setValue("cpu");
+                } else {
+                    iconBox.setValue("tag");
+                }
+            });
+        }
+        conditionsBox.getChildren().add(row);
+    }
+
     public static Optional<SmartCollection> show(SmartCollection existing) {
         SmartCollectionDialog dialog = new SmartCollectionDialog(existing);
         return dialog.showAndWait();
@@ -0,0 +1,360 @@
+package com.org.ollamafx.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Line-by-line syntax highlighting of a code block that keeps changing, as a
+ * streamed one does.
+ *
+ * Each line is tokenized from the state the line before it ended in (inside a
+ * block comment, a multi-line string or neither), and the end state of every
+ * line is kept. An update re-highlights only from the first changed line, and
+ * stops where the lines are the old ones again and start in the same state:
+ * text appended to a block costs its last lines, not the whole block.
+ *
+ * The rules are a generic C-like / script tokenizer with a keyword set per
+ * language: comments, strings, numbers, keywords and annotations. Good enough
+ * to read a snippet, not a parser.
+ *
+ * Not thread-safe.
+ */
+final class SyntaxHighlighter {
+
+    /** A run of one style; a null style is plain text. */
+    static final class Span {
+        final String style;
+        final int length;
+
+        Span(String style, int length) {
+            this.style = style;
+            this.length = length;
+        }
+    }
+
+    /** The styles of the lines from {@code firstLine} on, one list of spans per line. */
+    static final class Result {
+        final int firstLine;
+        final List<List<Span>> lines;
+        /** Number of lines in the text, to know which line has no line break. */
+        final int lineCount;
+
+        Result(int firstLine, List<List<Span>> lines, int lineCount) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.lineCount = lineCount;
+        }
+    }
+
+    static final String KEYWORD = "keyword";
+    static final String STRING = "string";
+    static final String COMMENT = "comment";
+    static final String NUMBER = "number";
+    static final String ANNOTATION = "annotation";
+
+    // Line end states
+    private static final int NORMAL = 0;
+    private static final int BLOCK_COMMENT = 1;
+    private static final int TRIPLE_DOUBLE = 2; // """ ... """
+    private static final int TRIPLE_SINGLE = 3; // ''' ... '''
+    private static final int TEMPLATE = 4; // ` ... `
+
+    private static final Set<String> C_LIKE = Set.of(
+            "abstract", "assert", "async", "await", "boolean", "break", "byte", "case", "catch", "char",
+            "class", "const", "continue", "default", "delete", "do", "double", "else", "enum", "export",
+            "extends", "false", "final", "finally", "float", "fn", "for", "func", "function", "go", "if",
+            "impl", "implements", "import", "in", "instanceof", "int", "interface", "let", "long", "match",
+            "mod", "mut", "namespace", "new", "null", "nil", "package", "private", "protected", "pub",
+            "public", "record", "return", "short", "static", "struct", "super", "switch", "synchronized",
+            "this", "throw", "throws", "trait", "true", "try", "type", "typeof", "undefined", "unsigned",
+            "use", "using", "val", "var", "void", "volatile", "when", "where", "while", "yield");
+    private static final Set<String> PYTHON = Set.of(
+            "False", "None", "True", "and", "as", "assert", "async", "await", "break", "class", "continue",
+            "def", "del", "elif", "else", "except", "finally", "for", "from", "global", "if", "import",
+            "in", "is", "lambda", "nonlocal", "not", "or", "pass", "raise", "return", "self", "try",
+            "while", "with", "yield");
+    private static final Set<String> SHELL = Set.of(
+            "if", "then", "else", "elif", "fi", "for", "while", "until", "do", "done", "case", "esac",
+            "in", "function", "return", "exit", "export", "local", "readonly", "echo", "cd", "source",
+            "true", "false");
+    private static final Set<String> SQL = Set.of(
+            "select", "from", "where", "insert", "into", "values", "update", "set", "delete", "create",
+            "table", "drop", "alter", "index", "view", "join", "left", "right", "inner", "outer", "on",
+            "and", "or", "not", "null", "is", "as", "group", "by", "order", "having", "limit", "offset",
+            "distinct", "union", "all", "primary", "key", "foreign", "references", "default", "case",
+            "when", "then", "else", "end", "in", "exists", "between", "like", "asc", "desc");
+
+    private final Set<String> keywords;
+    private final boolean hashComments;
+    private final boolean slashComments;
+    private final boolean dashComments;
+    private final boolean tripleQuotes;
+    private final boolean templates;
+    private final boolean caseInsensitive;
+
+    private final List<String> lines = new ArrayList<>();
+    private final List<Integer> endStates = new ArrayList<>();
+    private String text = "";
+
+    private SyntaxHighlighter(Set<String> keywords, boolean hashComments, boolean slashComments,
+            boolean dashComments, boolean tripleQuotes, boolean templates, boolean caseInsensitive) {
+        this.keywords = keywords;
+        this.hashComments = hashComments;
+        this.slashComments = slashComments;
+        this.dashComments = dashComments;
+        this.tripleQuotes = tripleQuotes;
+        this.templates = templates;
+        this.caseInsensitive = caseInsensitive;
+    }
+
+    /** Rules for the fence info string of a block ("java", "py", ...). */
+    static SyntaxHighlighter forLanguage(String info) {
+        String language = info == null ? "" : info.trim().toLowerCase(Locale.ROOT);
+        int space = language.indexOf(' ');
+        if (space > 0) {
+            language = language.substring(0, space);
+        }
+        switch (language) {
+            case "python":
+            case "py":
+                return new SyntaxHighlighter(PYTHON, true, false, false, true, false, false);
+            case "bash":
+            case "sh":
+            case "shell":
+            case "zsh":
+            case "yaml":
+            case "yml":
+            case "toml":
+            case "ruby":
+            case "rb":
+            case "dockerfile":
+                return new SyntaxHighlighter(SHELL, true, false, false, false, false, false);
+            case "sql":
+                return new SyntaxHighlighter(SQL, false, true, true, false, false, true);
+            case "js":
+            case "javascript":
+            case "ts":
+            case "typescript":
+            case "jsx":
+            case "tsx":
+                return new SyntaxHighlighter(C_LIKE, false, true, false, false, true, false);
+            case "kotlin":
+            case "kt":
+            case "scala":
+                return new SyntaxHighlighter(C_LIKE, false, true, false, true, false, false);
+            default:
+                return new SyntaxHighlighter(C_LIKE, false, true, false, false, false, false);
+        }
+    }
+
+    /** Forgets the previous text: the next update highlights every line. */
+    void reset() {
+        lines.clear();
+        endStates.clear();
+        text = "";
+    }
+
+    /** Highlights the lines of the new text that changed. Null if none did. */
+    Result update(String newText) {
+        if (newText.equals(text)) {
+            return null;
+        }
+        int firstLine;
+        List<String> newLines;
+        int stopAt; // Lines from here on are the old ones, shifted by `shift`
+        int shift;
+        if (!lines.isEmpty() && newText.startsWith(text)) {
+            // Appended: only the last line and those after it are new
+            firstLine = lines.size() - 1;
+            int lastLineStart = text.length() - lines.get(firstLine).length();
+            newLines = new ArrayList<>(lines.subList(0, firstLine));
+            newLines.addAll(splitLines(newText.substring(lastLineStart)));
+            stopAt = newLines.size();
+            shift = 0;
+        } else {
+            newLines = splitLines(newText);
+            int prefix = 0;
+            int max = Math.min(lines.size(), newLines.size());
+            while (prefix < max && lines.get(prefix).equals(newLines.get(prefix))) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < max - prefix
+                    && lines.get(lines.size() - 1 - suffix).equals(newLines.get(newLines.size() - 1 - suffix))) {
+                suffix++;
+            }
+            firstLine = prefix;
+            stopAt = newLines.size() - suffix;
+            shift = lines.size() - newLines.size();
+        }
+
+        List<Integer> newEndStates = new ArrayList<>(newLines.size());
+        newEndStates.addAll(endStates.subList(0, Math.min(firstLine, endStates.size())));
+        List<List<Span>> styled = new ArrayList<>();
+        int state = firstLine == 0 ? NORMAL : newEndStates.get(firstLine - 1);
+        int i = firstLine;
+        for (; i < newLines.size(); i++) {
+            if (i >= stopAt && state == startState(i + shift)) {
+                break; // Same line, same state: the rest is unchanged
+            }
+            List<Span> spans = new ArrayList<>();
+            state = highlightLine(newLines.get(i), state, spans);
+            styled.add(spans);
+            newEndStates.add(state);
+        }
+        for (; i < newLines.size(); i++) {
+            newEndStates.add(endStates.get(i + shift));
+        }
+
+        lines.clear();
+        lines.addAll(newLines);
+        endStates.clear();
+        endStates.addAll(newEndStates);
+        text = newText;
+        return styled.isEmpty() ? null : new Result(firstLine, styled, newLines.size());
+    }
+
+    private int startState(int oldLine) {
+        return oldLine == 0 ? NORMAL : endStates.get(oldLine - 1);
+    }
+
+    /** Styles one line starting in the given state and returns the state it ends in. */
+    private int highlightLine(String line, int state, List<Span> out) {
+        int n = line.length();
+        int i = 0;
+        int plainStart = 0;
+        while (i < n) {
+            if (state != NORMAL) {
+                // Continue the comment or string the line started in
+                String close = state == BLOCK_COMMENT ? "*/"
+                        : state == TRIPLE_DOUBLE ? "\"\"\"" : state == TRIPLE_SINGLE ? "'''" : "`";
+                int end = line.indexOf(close, i);
+                int stop = end < 0 ? n : end + close.length();
+                add(out, state == BLOCK_COMMENT ? COMMENT : STRING, stop - i);
+                i = stop;
+                plainStart = i;
+                if (end >= 0) {
+                    state = NORMAL;
+                }
+                continue;
+            }
+
+            char c = line.charAt(i);
+            int tokenEnd = -1;
+            String style = null;
+            int nextState = NORMAL;
+
+            if ((slashComments && line.startsWith("//", i)) || (hashComments && c == '#')
+                    || (dashComments && line.startsWith("--", i))) {
+                tokenEnd = n;
+                style = COMMENT;
+            } else if (slashComments && line.startsWith("/*", i)) {
+                int end = line.indexOf("*/", i + 2);
+                tokenEnd = end < 0 ? n : end + 2;
+                style = COMMENT;
+                nextState = end < 0 ? BLOCK_COMMENT : NORMAL;
+            } else if (tripleQuotes && (line.startsWith("\"\"\"", i) || line.startsWith("'''", i))) {
+                String quote = line.substring(i, i + 3);
+                int end = line.indexOf(quote, i + 3);
+                tokenEnd = end < 0 ? n : end + 3;
+                style = STRING;
+                nextState = end >= 0 ? NORMAL : c == '"' ? TRIPLE_DOUBLE : TRIPLE_SINGLE;
+            } else if (templates && c == '`') {
+                int end = line.indexOf('`', i + 1);
+                tokenEnd = end < 0 ? n : end + 1;
+                style = STRING;
+                nextState = end < 0 ? TEMPLATE : NORMAL;
+            } else if (c == '"' || c == '\'') {
+                tokenEnd = stringEnd(line, i, c);
+                style = STRING;
+            } else if (Character.isDigit(c) && (i == 0 || !isWordChar(line.charAt(i - 1)))) {
+                tokenEnd = i + 1;
+                while (tokenEnd < n && (isWordChar(line.charAt(tokenEnd)) || line.charAt(tokenEnd) == '.')) {
+                    tokenEnd++;
+                }
+                style = NUMBER;
+            } else if (c == '@' && i + 1 < n && Character.isJavaIdentifierStart(line.charAt(i + 1))) {
+                tokenEnd = i + 1;
+                while (tokenEnd < n && isWordChar(line.charAt(tokenEnd))) {
+                    tokenEnd++;
+                }
+                style = ANNOTATION;
+            } else if (Character.isJavaIdentifierStart(c) && (i == 0 || !isWordChar(line.charAt(i - 1)))) {
+                int end = i + 1;
+                while (end < n && isWordChar(line.charAt(end))) {
+                    end++;
+                }
+                String word = line.substring(i, end);
+                if (keywords.contains(caseInsensitive ? word.toLowerCase(Locale.ROOT) : word)) {
+                    tokenEnd = end;
+                    style = KEYWORD;
+                } else {
+                    i = end; // Plain identifier
+                    continue;
+                }
+            }
+
+            if (style == null) {
+                i++;
+                continue;
+            }
+            add(out, null, i - plainStart);
+            add(out, style, tokenEnd - i);
+            i = tokenEnd;
+            plainStart = i;
+            state = nextState;
+        }
+        add(out, null, n - plainStart);
+        // A one-line string or comment never carries over; only the open states above do
+        return state;
+    }
+
+    /** End of the quoted string starting at i: after its closing quote, or the line's end. */
+    private static int stringEnd(String line, int i, char quote) {
+        for (int j = i + 1; j < line.length(); j++) {
+            char c = line.charAt(j);
+            if (c == '\\') {
+                j++;
+            } else if (c == quote) {
+                return j + 1;
+            }
+        }
+        return line.length();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isJavaIdentifierPart(c);
+    }
+
+    /** Adds a span, merging it into the previous one if it has the same style. */
+    private static void add(List<Span> spans, String style, int length) {
+        if (length <= 0) {
+            return;
+        }
+        if (!spans.isEmpty()) {
+            Span last = spans.get(spans.size() - 1);
+            if (Objects.equals(last.style, style)) {
+                spans.set(spans.size() - 1, new Span(style, last.length + length));
+                return;
+            }
+        }
+        spans.add(new Span(style, length));
+    }
+
+    /** Lines of the text without their breaks; a trailing break gives an empty last line. */
+    private static List<String> splitLines(String text) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                result.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        result.add(text.substring(start));
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.org.ollamafx.ui;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Brings a streamed message to the screen at most once per frame.
+ *
+ * Network threads only count deltas into the sink: no lock, no closure, no
+ * copy of the text. A single AnimationTimer drains every open sink once per
+ * pulse, reading the message's text and handing it to the view if deltas came
+ * in since the last drain. When frames get slow (a heavy render, a busy
+ * machine) it drains only every second, third or fourth pulse, and goes back
+ * to every pulse once frames are fast again. Closing a sink drains it one last
+ * time, so the final tokens are never left off screen.
+ *
+ * Open and close on the FX thread; {@link #offer()} from any thread.
+ */
+public final class TokenSink {
+
+    /** One pulse at 60 fps, in nanoseconds. */
+    private static final long FRAME_NANOS = 16_666_667L;
+    private static final int MAX_STRIDE = 4;
+
+    private static final Set<TokenSink> OPEN = new LinkedHashSet<>();
+    private static final AnimationTimer PUMP = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            pulse(now);
+        }
+    };
+    private static long lastPulse;
+    /** Moving average of the time between pulses. */
+    private static double frameNanos = FRAME_NANOS;
+    /** Drains happen every {@code stride} pulses. */
+    private static int stride = 1;
+    private static long pulses;
+
+    private final Supplier<String> text;
+    private final Consumer<String> view;
+    /** Deltas received since the last drain. */
+    private final AtomicInteger pending = new AtomicInteger();
+    private boolean open = true;
+
+    private TokenSink(Supplier<String> text, Consumer<String> view) {
+        this.text = text;
+        this.view = view;
+    }
+
+    /**
+     * Starts pumping a message to its view.
+     *
+     * @param text the message's full text so far; read on the FX thread
+     * @param view shows the text
+     */
+    public static TokenSink open(Supplier<String> text, Consumer<String> view) {
+        TokenSink sink = new TokenSink(text, view);
+        if (OPEN.isEmpty()) {
+            lastPulse = 0;
+            stride = 1;
+            frameNanos = FRAME_NANOS;
+            PUMP.start();
+        }
+        OPEN.add(sink);
+        return sink;
+    }
+
+    /** Records that text was appended to the message. Any thread. */
+    public void offer() {
+        pending.incrementAndGet();
+    }
+
+    /** Shows the text now if anything arrived since it was last shown. */
+    public void flush() {
+        if (pending.getAndSet(0) > 0) {
+            view.accept(text.get());
+        }
+    }
+
+    /** Shows whatever is still pending and stops pumping this sink. */
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        OPEN.remove(this);
+        if (OPEN.isEmpty()) {
+            PUMP.stop();
+        }
+        flush();
+    }
+
+    private static void pulse(long now) {
+        if (lastPulse > 0) {
+            frameNanos = frameNanos * 0.8 + (now - lastPulse) * 0.2;
+            if (frameNanos > 2 * FRAME_NANOS && stride < MAX_STRIDE) {
+                stride++;
+                frameNanos = FRAME_NANOS * 1.5; // Give the new stride a few pulses to show
+            } else if (frameNanos < 1.25 * FRAME_NANOS && stride > 1) {
+                stride--;
+            }
+        }
+        lastPulse = now;
+        if (++pulses % stride != 0) {
+            return;
+        }
+        // A view may close its sink, or open another, while being updated
+        for (TokenSink sink : new ArrayList<>(OPEN)) {
+            if (sink.open) {
+                sink.flush();
+            }
+        }
+    }
+}